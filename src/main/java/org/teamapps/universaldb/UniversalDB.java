@@ -20,24 +20,30 @@
 package org.teamapps.universaldb;
 
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.teamapps.universaldb.distribute.TransactionReader;
 import org.teamapps.universaldb.distribute.*;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.StoreFlushScheduler;
 import org.teamapps.universaldb.index.file.FileStore;
 import org.teamapps.universaldb.index.file.LocalFileStore;
 import org.teamapps.universaldb.schema.*;
 import org.teamapps.universaldb.transaction.*;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class UniversalDB implements DataBaseMapper, TransactionIdHandler {
 
@@ -60,6 +66,9 @@ public class UniversalDB implements DataBaseMapper, TransactionIdHandler {
 	private final Map<TableIndex, Class> entityClassByTableIndex = new HashMap<>();
 	private final Map<TableIndex, Class> queryClassByTableIndex = new HashMap<>();
 	private final Map<String, TableIndex> tableIndexByPath = new HashMap<>();
+	private volatile StoreWarmUp storeWarmUp;
+	private volatile StoreFlushScheduler flushScheduler;
+	private volatile File temporaryFileStorePath;
 
 	public static int getUserId() {
 		return THREAD_LOCAL_USER_ID.get();
@@ -96,6 +105,34 @@ public class UniversalDB implements DataBaseMapper, TransactionIdHandler {
 		return new UniversalDB(storagePath, schemaInfoProvider, fileStore, writeTransactionLog);
 	}
 
+	public static UniversalDB createInMemory(SchemaInfoProvider schemaInfoProvider) throws Exception {
+		//file fields still need a file store, the file store api hands out files - the directory is created with the first file and deleted on close
+		File fileStorePath = new File(System.getProperty("java.io.tmpdir"), "udb-file-store-" + UUID.randomUUID());
+		LocalFileStore fileStore = new LocalFileStore(fileStorePath, false);
+		UniversalDB universalDB = createInMemory(schemaInfoProvider, fileStore);
+		universalDB.temporaryFileStorePath = fileStorePath;
+		return universalDB;
+	}
+
+	public static UniversalDB createInMemory(SchemaInfoProvider schemaInfoProvider, FileStore fileStore) throws Exception {
+		//no files, no transaction log and no shutdown hooks below this virtual path - the data is gone with the instance
+		File storagePath = new File(System.getProperty("java.io.tmpdir"), "udb-memory-" + UUID.randomUUID());
+		MappedStoreUtil.addInMemoryPath(storagePath);
+		return new UniversalDB(storagePath, schemaInfoProvider, fileStore, false);
+	}
+
+	public static UniversalDB openReadOnly(File storagePath, SchemaInfoProvider schemaInfoProvider) throws Exception {
+		LocalFileStore fileStore = new LocalFileStore(new File(storagePath, "file-store"), false);
+		return openReadOnly(storagePath, schemaInfoProvider, fileStore);
+	}
+
+	public static UniversalDB openReadOnly(File storagePath, SchemaInfoProvider schemaInfoProvider, FileStore fileStore) throws Exception {
+		//maps the stores of a database written by another process - no locks, no shutdown hooks and no writes below this path
+		//the reader keeps the state of the last refresh, records and values written since then are only visible after calling refresh
+		MappedStoreUtil.addReadOnlyPath(storagePath);
+		return new UniversalDB(storagePath, schemaInfoProvider, fileStore, false);
+	}
+
 	public static UniversalDB createClusterNode(File storagePath, SchemaInfoProvider schemaInfoProvider, ClusterSetConfig clusterConfig) throws Exception {
 		LocalFileStore fileStore = new LocalFileStore(new File(storagePath, "file-store"));
 		return new UniversalDB(storagePath, schemaInfoProvider, fileStore, clusterConfig);
@@ -235,7 +272,7 @@ public class UniversalDB implements DataBaseMapper, TransactionIdHandler {
 		}
 		localSchema.mapSchema();
 		transactionStore.saveSchema(localSchema);
-		schemaIndex.merge(localSchema, true);
+		schemaIndex.merge(localSchema, !transactionStore.isReadOnly());
 
 		for (DatabaseIndex database : schemaIndex.getDatabases()) {
 			databaseById.put(database.getMappingId(), database);
@@ -335,6 +372,105 @@ public class UniversalDB implements DataBaseMapper, TransactionIdHandler {
 		}
 	}
 
+	public synchronized void compactBlockEntryStores(double minFragmentationRatio) {
+		//each store blocks its writers while it is compacted, cluster transactions may run concurrently
+		for (DatabaseIndex database : schemaIndex.getDatabases()) {
+			for (TableIndex table : database.getTables()) {
+				table.compactBlockEntryStores(minFragmentationRatio);
+			}
+		}
+	}
+
+	public void startFlushScheduler(long intervalMillis, long maxBytesPerRun) {
+		//forces dirty stores in the background so that close only has to flush the remaining backlog
+		stopFlushScheduler();
+		flushScheduler = new StoreFlushScheduler(storagePath, intervalMillis, maxBytesPerRun);
+		flushScheduler.start();
+	}
+
+	public void stopFlushScheduler() {
+		if (flushScheduler != null) {
+			flushScheduler.stop();
+			flushScheduler = null;
+		}
+	}
+
+	public synchronized void close() {
+		//flushes the tables and releases the in memory or read only path and the temporary file store, the instance cannot be used afterwards
+		stopFlushScheduler();
+		for (DatabaseIndex database : schemaIndex.getDatabases()) {
+			for (TableIndex table : database.getTables()) {
+				table.close();
+			}
+		}
+		if (transactionStore != null) {
+			transactionStore.close();
+		}
+		MappedStoreUtil.removeInMemoryPath(storagePath);
+		MappedStoreUtil.removeReadOnlyPath(storagePath);
+		if (temporaryFileStorePath != null) {
+			FileUtils.deleteQuietly(temporaryFileStorePath);
+			temporaryFileStorePath = null;
+		}
+	}
+
+	public StoreWarmUp warmUpStores(int threads, String... paths) {
+		//paths: database.table or database.table.column in order of priority, no paths for all tables
+		List<ColumnIndex> columns = new ArrayList<>();
+		if (paths.length == 0) {
+			for (DatabaseIndex database : schemaIndex.getDatabases()) {
+				for (TableIndex table : database.getTables()) {
+					columns.addAll(table.getColumnIndices());
+				}
+			}
+		}
+		for (String path : paths) {
+			String[] parts = path.split("\\.");
+			TableIndex table = parts.length >= 2 ? schemaIndex.getTableByPath(parts[0] + "." + parts[1]) : null;
+			if (table == null) {
+				logger.warn("Unknown table for warm up:" + path);
+			} else if (parts.length == 2) {
+				columns.addAll(table.getColumnIndices());
+			} else if (parts.length == 3 && table.getColumnIndex(parts[2]) != null) {
+				columns.add(table.getColumnIndex(parts[2]));
+			} else {
+				logger.warn("Unknown column for warm up:" + path);
+			}
+		}
+		StoreWarmUp storeWarmUp = new StoreWarmUp(columns, threads);
+		this.storeWarmUp = storeWarmUp;
+		return storeWarmUp.start();
+	}
+
+	public StoreWarmUp getStoreWarmUp() {
+		return storeWarmUp;
+	}
+
+	public boolean isWarmedUp() {
+		StoreWarmUp storeWarmUp = this.storeWarmUp;
+		return storeWarmUp == null || storeWarmUp.isWarmed();
+	}
+
+	public boolean isInMemory() {
+		return MappedStoreUtil.isInMemory(storagePath);
+	}
+
+	public boolean isReadOnly() {
+		return MappedStoreUtil.isReadOnly(storagePath);
+	}
+
+	public void refresh() {
+		//read only: maps the records and values the writing process has stored since the last refresh, without a refresh the reader does not see them
+		if (transactionStore != null) {
+			transactionStore.refresh();
+		}
+		for (DatabaseIndex database : schemaIndex.getDatabases()) {
+			for (TableIndex table : database.getTables()) {
+				table.refresh();
+			}
+		}
+	}
+
 	public void createDatabaseDump(File dumpFolder) throws IOException {
 		for (DatabaseIndex database : schemaIndex.getDatabases()) {
 			File dbFolder = new File(dumpFolder, database.getName());
@@ -27,6 +27,7 @@ public class UserContextImpl implements UserContext{
 	private String language;
 	private Locale locale;
 	private List<String> rankedLanguages;
+	private Collator collator;
 
 	public UserContextImpl(Locale locale) {
 		this.locale = locale;
@@ -57,11 +58,19 @@ public class UserContextImpl implements UserContext{
 		return locale;
 	}
 
-	@Override
-	public Comparator<String> getComparator(boolean ascending) {
+	public static Collator createCollator(Locale locale) {
 		Collator collator = Collator.getInstance(locale);
 		collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
 		collator.setStrength(Collator.PRIMARY);
+		return collator;
+	}
+
+	@Override
+	public Comparator<String> getComparator(boolean ascending) {
+		//the collator is created once per context, the JDK collators synchronize compare
+		if (collator == null) {
+			collator = createCollator(locale);
+		}
 		return ascending ? Comparator.nullsFirst(collator) : Comparator.nullsLast(collator.reversed());
 	}
 
@@ -125,6 +125,17 @@ public class PojoCodeGenerator {
 				}
 			}
 
+			if (!table.isView()) {
+				if (column.hasOption(ColumnOption.HASH_INDEX)) {
+					tpl.addInterfaceFindMethod(column, type, udbType, false);
+					udbTpl.addUdbEntityFindMethod(column, type, false);
+				}
+				if (column.hasOption(ColumnOption.HASH_INDEX_IGNORE_CASE) && column.getType() == ColumnType.TEXT) {
+					tpl.addInterfaceFindMethod(column, type, udbType, true);
+					udbTpl.addUdbEntityFindMethod(column, type, true);
+				}
+			}
+
 			if (column.getType() == ColumnType.ENUM) {
 				PojoTemplate enumTpl = PojoTemplate.createEnum();
 				String enumType = enumTpl.firstUpper(column.getName());
@@ -20,10 +20,18 @@
 package org.teamapps.universaldb.index;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
 
 public abstract class AbstractIndex<TYPE, FILTER> implements ColumnIndex<TYPE, FILTER> {
 
+	private static final int DENSE_WORD_BITS = 16;
+
 	private final File dataPath;
 	private final File fullTextIndexPath;
 	private final String name;
@@ -99,4 +107,46 @@ public abstract class AbstractIndex<TYPE, FILTER> implements ColumnIndex<TYPE, F
 		return data;
 	}
 
+	public static BitSet filterWords(BitSet records, IntToLongFunction wordMatcher, IntPredicate idMatcher) {
+		//dense words are matched 64 ids at a time, sparse words id by id
+		long[] words = records.toLongArray();
+		for (int i = 0; i < words.length; i++) {
+			long word = words[i];
+			if (word == 0) {
+				continue;
+			}
+			int firstId = i << 6;
+			if (Long.bitCount(word) >= DENSE_WORD_BITS) {
+				words[i] = word & wordMatcher.applyAsLong(firstId);
+			} else {
+				long result = 0;
+				for (long bits = word; bits != 0; bits &= bits - 1) {
+					int bit = Long.numberOfTrailingZeros(bits);
+					if (idMatcher.test(firstId + bit)) {
+						result |= 1L << bit;
+					}
+				}
+				words[i] = result;
+			}
+		}
+		return BitSet.valueOf(words);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <KEY> List<SortEntry> sortByKeys(List<SortEntry> sortEntries, IntFunction<KEY> keyFunction, Comparator<KEY> comparator) {
+		//read the key of each entry once instead of twice per comparison
+		SortEntry[] entries = sortEntries.toArray(new SortEntry[0]);
+		Object[] keys = new Object[entries.length];
+		Integer[] positions = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			keys[i] = keyFunction.apply(entries[i].getLeafId());
+			positions[i] = i;
+		}
+		Arrays.sort(positions, (p1, p2) -> comparator.compare((KEY) keys[p1], (KEY) keys[p2]));
+		for (int i = 0; i < entries.length; i++) {
+			sortEntries.set(i, entries[positions[i]]);
+		}
+		return sortEntries;
+	}
+
 }
@@ -22,6 +22,7 @@ package org.teamapps.universaldb.index;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.binary.BinaryIndex;
 import org.teamapps.universaldb.index.bool.BooleanIndex;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.file.FileIndex;
 import org.teamapps.universaldb.index.file.FileValue;
 import org.teamapps.universaldb.index.numeric.*;
@@ -36,6 +37,7 @@ import org.teamapps.universaldb.util.DataStreamUtil;
 
 import java.io.*;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.PrimitiveIterator;
@@ -175,6 +177,16 @@ public interface ColumnIndex<TYPE, FILTER> extends MappedObject {
 
 	void restoreIndex(DataInputStream dataInputStream) throws IOException;
 
+	default List<AbstractResizingAtomicStore> getStores() {
+		return Collections.emptyList();
+	}
+
+	default void refresh() {
+		for (AbstractResizingAtomicStore store : getStores()) {
+			store.refresh();
+		}
+	}
+
 	void close();
 
 	void drop();
@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index;
 
 import org.teamapps.universaldb.schema.Database;
 import org.teamapps.universaldb.schema.Table;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -42,8 +43,10 @@ public class DatabaseIndex implements MappedObject {
 		this.name = name;
 		this.dataPath = new File(schema.getDataPath(), name);
 		this.fullTextIndexPath = new File(schema.getFullTextIndexPath(), name);
-		dataPath.mkdir();
-		fullTextIndexPath.mkdir();
+		if (!MappedStoreUtil.isInMemory(dataPath) && !MappedStoreUtil.isReadOnly(dataPath)) {
+			dataPath.mkdir();
+			fullTextIndexPath.mkdir();
+		}
 		this.tables = new ArrayList<>();
 	}
 
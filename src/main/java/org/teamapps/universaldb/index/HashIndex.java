@@ -0,0 +1,181 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.util.SnapshotFile;
+
+import java.io.*;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+public abstract class HashIndex<KEY> {
+	private static final Logger log = LoggerFactory.getLogger(HashIndex.class);
+	private static final int VERSION = 1;
+
+	private final SnapshotFile snapshot;
+	private final Map<KEY, IdList> map = new HashMap<>();
+	private final BitSet indexedIds = new BitSet();
+
+	public HashIndex(File file) {
+		this.snapshot = new SnapshotFile(file, VERSION);
+	}
+
+	protected abstract void writeKey(DataOutputStream dataOutputStream, KEY key) throws IOException;
+
+	protected abstract KEY readKey(DataInputStream dataInputStream) throws IOException;
+
+	protected void open(TableIndex tableIndex, IntFunction<KEY> keyFunction) {
+		if (!snapshot.load(this::read)) {
+			map.clear();
+			indexedIds.clear();
+			long time = System.currentTimeMillis();
+			BitSet ids = tableIndex.getRecords();
+			BitSet deletedRecords = tableIndex.getDeletedRecords();
+			if (deletedRecords != null) {
+				ids.or(deletedRecords);
+			}
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				updateKey(id, null, keyFunction.apply(id));
+			}
+			log.info("Rebuilt hash index:" + snapshot.getFile().getName() + ", keys:" + map.size() + ", time:" + (System.currentTimeMillis() - time));
+		}
+	}
+
+	//a null key is not indexed
+	public synchronized void updateKey(int id, KEY previousKey, KEY key) {
+		boolean indexed = indexedIds.get(id);
+		if (indexed && key != null && key.equals(previousKey)) {
+			return;
+		}
+		if (indexed) {
+			IdList idList = map.get(previousKey);
+			if (idList != null && idList.remove(id) && idList.size == 0) {
+				map.remove(previousKey);
+			}
+			indexedIds.clear(id);
+		}
+		if (key != null) {
+			map.computeIfAbsent(key, k -> new IdList()).add(id);
+			indexedIds.set(id);
+		}
+	}
+
+	public synchronized BitSet getRecords(KEY key, BitSet records) {
+		BitSet result = new BitSet();
+		IdList idList = map.get(key);
+		if (idList != null) {
+			for (int i = 0; i < idList.size; i++) {
+				int id = idList.ids[i];
+				if (records.get(id)) {
+					result.set(id);
+				}
+			}
+		}
+		return result;
+	}
+
+	public synchronized BitSet getUnindexedRecords(BitSet records) {
+		BitSet result = (BitSet) records.clone();
+		result.andNot(indexedIds);
+		return result;
+	}
+
+	public synchronized int getCount(KEY key) {
+		IdList idList = map.get(key);
+		return idList != null ? idList.size : 0;
+	}
+
+	public synchronized int getKeyCount() {
+		return map.size();
+	}
+
+	public synchronized void close() {
+		snapshot.write(dos -> {
+			dos.writeInt(map.size());
+			for (Map.Entry<KEY, IdList> entry : map.entrySet()) {
+				IdList idList = entry.getValue();
+				writeKey(dos, entry.getKey());
+				dos.writeInt(idList.size);
+				for (int i = 0; i < idList.size; i++) {
+					dos.writeInt(idList.ids[i]);
+				}
+			}
+			dos.writeInt(map.size());
+		});
+	}
+
+	public synchronized void drop() {
+		map.clear();
+		indexedIds.clear();
+		snapshot.delete();
+	}
+
+	private boolean read(DataInputStream dis) throws IOException {
+		int keys = dis.readInt();
+		for (int i = 0; i < keys; i++) {
+			KEY key = readKey(dis);
+			int size = dis.readInt();
+			IdList idList = new IdList(size);
+			for (int j = 0; j < size; j++) {
+				int id = dis.readInt();
+				idList.add(id);
+				indexedIds.set(id);
+			}
+			map.put(key, idList);
+		}
+		return dis.readInt() == keys;
+	}
+
+	private static class IdList {
+		private int[] ids;
+		private int size;
+
+		private IdList() {
+			this(1);
+		}
+
+		private IdList(int capacity) {
+			ids = new int[Math.max(1, capacity)];
+		}
+
+		private void add(int id) {
+			if (size == ids.length) {
+				int[] newIds = new int[size * 2];
+				System.arraycopy(ids, 0, newIds, 0, size);
+				ids = newIds;
+			}
+			ids[size++] = id;
+		}
+
+		private boolean remove(int id) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					ids[i] = ids[--size];
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
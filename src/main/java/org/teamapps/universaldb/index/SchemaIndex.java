@@ -26,6 +26,7 @@ import org.teamapps.universaldb.schema.Column;
 import org.teamapps.universaldb.schema.Database;
 import org.teamapps.universaldb.schema.Schema;
 import org.teamapps.universaldb.schema.Table;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -45,8 +46,10 @@ public class SchemaIndex {
 		this.schema = schema;
 		this.dataPath = new File(path, "data");
 		this.fullTextIndexPath = new File(path, "full-text-index");
-		dataPath.mkdir();
-		fullTextIndexPath.mkdir();
+		if (!MappedStoreUtil.isInMemory(path) && !MappedStoreUtil.isReadOnly(path)) {
+			dataPath.mkdir();
+			fullTextIndexPath.mkdir();
+		}
 		databases = new ArrayList<>();
 	}
 
@@ -0,0 +1,123 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class StoreWarmUp {
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final List<ColumnIndex> columns;
+	private final int threads;
+	private final CompletableFuture<StoreWarmUp> warmedFuture = new CompletableFuture<>();
+	private final AtomicInteger warmedColumns = new AtomicInteger();
+	private final AtomicLong loadedBytes = new AtomicLong();
+	private long startTime;
+
+	public StoreWarmUp(List<ColumnIndex> columns, int threads) {
+		this.columns = new ArrayList<>(columns);
+		this.threads = Math.max(1, threads);
+	}
+
+	public synchronized StoreWarmUp start() {
+		if (startTime > 0) {
+			return this;
+		}
+		startTime = System.currentTimeMillis();
+		if (columns.isEmpty()) {
+			warmedFuture.complete(this);
+			return this;
+		}
+		//columns are queued in the given order, so the first columns are warm first
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, columns.size()), runnable -> {
+			Thread thread = new Thread(runnable, "store-warm-up");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (ColumnIndex column : columns) {
+			executor.execute(() -> warmUp(column));
+		}
+		executor.shutdown();
+		return this;
+	}
+
+	private void warmUp(ColumnIndex<?, ?> column) {
+		try {
+			for (AbstractResizingAtomicStore store : column.getStores()) {
+				loadedBytes.addAndGet(store.load());
+			}
+		} catch (Throwable e) {
+			logger.warn("Error warming up column:" + column.getFQN() + ", " + e.getMessage());
+		}
+		int count = warmedColumns.incrementAndGet();
+		logger.debug("Warmed up column:" + column.getFQN() + ", progress:" + count + "/" + columns.size());
+		if (count == columns.size()) {
+			logger.info("Warmed up columns:" + count + ", bytes:" + loadedBytes.get() + ", time:" + (System.currentTimeMillis() - startTime));
+			warmedFuture.complete(this);
+		}
+	}
+
+	public boolean isWarmed() {
+		return warmedFuture.isDone();
+	}
+
+	public CompletableFuture<StoreWarmUp> getWarmedFuture() {
+		return warmedFuture;
+	}
+
+	public boolean awaitWarmed(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			warmedFuture.get(timeout, unit);
+			return true;
+		} catch (ExecutionException | TimeoutException e) {
+			return false;
+		}
+	}
+
+	public double getProgress() {
+		return columns.isEmpty() ? 1 : (double) warmedColumns.get() / columns.size();
+	}
+
+	public int getColumnCount() {
+		return columns.size();
+	}
+
+	public int getWarmedColumns() {
+		return warmedColumns.get();
+	}
+
+	public long getLoadedBytes() {
+		return loadedBytes.get();
+	}
+}
@@ -23,9 +23,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.teamapps.universaldb.TableConfig;
 import org.teamapps.universaldb.context.UserContext;
+import org.teamapps.universaldb.index.binary.BinaryIndex;
 import org.teamapps.universaldb.index.bool.BooleanIndex;
+import org.teamapps.universaldb.index.buffer.AbstractBlockEntryAtomicStore;
 import org.teamapps.universaldb.index.file.FileStore;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
 import org.teamapps.universaldb.index.numeric.LongIndex;
+import org.teamapps.universaldb.index.numeric.NumericIndex;
+import org.teamapps.universaldb.index.numeric.ShortIndex;
 import org.teamapps.universaldb.index.reference.multi.MultiReferenceIndex;
 import org.teamapps.universaldb.index.reference.single.SingleReferenceIndex;
 import org.teamapps.universaldb.index.text.CollectionTextSearchIndex;
@@ -39,7 +44,9 @@ import org.teamapps.universaldb.query.Filter;
 import org.teamapps.universaldb.query.IndexFilter;
 import org.teamapps.universaldb.query.OrFilter;
 import org.teamapps.universaldb.schema.Column;
+import org.teamapps.universaldb.schema.ColumnOption;
 import org.teamapps.universaldb.schema.Table;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -56,6 +63,7 @@ public class TableIndex implements MappedObject {
 	private final File dataPath;
 	private final File fullTextIndexPath;
 	private final TableConfig tableConfig;
+	private final boolean readOnly;
 	private boolean keepDeletedRecords;
 	private BooleanIndex records;
 	private BooleanIndex deletedRecords;
@@ -80,8 +88,12 @@ public class TableIndex implements MappedObject {
 		this.parentFQN = parentFQN;
 		this.dataPath = new File(databaseIndex.getDataPath(), name);
 		this.fullTextIndexPath = new File(databaseIndex.getFullTextIndexPath(), name);
-		dataPath.mkdir();
-		fullTextIndexPath.mkdir();
+		boolean inMemory = MappedStoreUtil.isInMemory(dataPath);
+		this.readOnly = MappedStoreUtil.isReadOnly(dataPath);
+		if (!inMemory && !readOnly) {
+			dataPath.mkdir();
+			fullTextIndexPath.mkdir();
+		}
 		records = new BooleanIndex("coll-recs", this, ColumnType.BOOLEAN);
 		this.tableConfig = tableConfig;
 
@@ -92,7 +104,30 @@ public class TableIndex implements MappedObject {
 			keepDeletedRecords = true;
 			deletedRecords = new BooleanIndex("coll-del-recs", this, ColumnType.BOOLEAN);
 		}
-		Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+		if (!inMemory && !readOnly) {
+			Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+		}
+	}
+
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	private void checkWritable() {
+		if (readOnly) {
+			throw new RuntimeException("Cannot write to read only table:" + getFQN());
+		}
+	}
+
+	public void refresh() {
+		//read only: maps the data the writing process has added since the last refresh
+		records.refresh();
+		if (deletedRecords != null) {
+			deletedRecords.refresh();
+		}
+		for (ColumnIndex column : columnIndices) {
+			column.refresh();
+		}
 	}
 
 
@@ -308,6 +343,7 @@ public class TableIndex implements MappedObject {
 	}
 
 	public int createRecord(int recordId, int correlationId, boolean update) {
+		checkWritable();
 		int id = 0;
 		if (recordId == 0) {
 			if (keepDeletedRecords) {
@@ -349,6 +385,7 @@ public class TableIndex implements MappedObject {
 	}
 
 	public boolean deleteRecord(int id) {
+		checkWritable();
 		records.setValue(id, false);
 		if (keepDeletedRecords) {
 			deletedRecords.setValue(id, true);
@@ -527,6 +564,30 @@ public class TableIndex implements MappedObject {
 		return columnIndices;
 	}
 
+	public List<AbstractBlockEntryAtomicStore> getBlockEntryStores() {
+		List<AbstractBlockEntryAtomicStore> stores = new ArrayList<>();
+		for (ColumnIndex columnIndex : columnIndices) {
+			if (columnIndex instanceof TextIndex) {
+				stores.add(((TextIndex) columnIndex).getAtomicStore());
+			} else if (columnIndex instanceof TranslatableTextIndex) {
+				stores.add(((TranslatableTextIndex) columnIndex).getAtomicStore());
+			} else if (columnIndex instanceof BinaryIndex) {
+				stores.add(((BinaryIndex) columnIndex).getAtomicStore());
+			} else if (columnIndex instanceof MultiReferenceIndex) {
+				stores.add(((MultiReferenceIndex) columnIndex).getReferenceStore());
+			}
+		}
+		return stores;
+	}
+
+	public void compactBlockEntryStores(double minFragmentationRatio) {
+		for (AbstractBlockEntryAtomicStore store : getBlockEntryStores()) {
+			if (store.getReclaimableBytes() > 0 && store.getFragmentationRatio() >= minFragmentationRatio) {
+				store.compact();
+			}
+		}
+	}
+
 	public ColumnIndex getColumnIndex(String name) {
 		return columnIndexByName.get(name);
 	}
@@ -552,6 +613,95 @@ public class TableIndex implements MappedObject {
 			if (localColumn.getMappingId() == 0) {
 				localColumn.setMappingId(column.getMappingId());
 			}
+			applyColumnOptions(localColumn, column);
+		}
+	}
+
+	private void applyColumnOptions(ColumnIndex columnIndex, Column column) {
+		for (ColumnOption option : column.getOptions()) {
+			if (readOnly && !option.isStorageFormat()) {
+				//in memory indexes would not see the writes of the writing process, queries scan the stores instead
+				continue;
+			}
+			switch (option) {
+				case SORTED_INDEX:
+					if (columnIndex instanceof NumericIndex) {
+						((NumericIndex) columnIndex).enableSortedIndex();
+					} else {
+						log.warn("Sorted index not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case HASH_INDEX:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).enableHashIndex(false);
+					} else if (columnIndex instanceof NumericIndex) {
+						((NumericIndex) columnIndex).enableHashIndex();
+					} else {
+						log.warn("Hash index not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case HASH_INDEX_IGNORE_CASE:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).enableHashIndex(true);
+					} else {
+						log.warn("Case insensitive hash index not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case BITMAP_INDEX:
+					if (columnIndex instanceof ShortIndex) {
+						((ShortIndex) columnIndex).enableBitmapIndex();
+					} else {
+						log.warn("Bitmap index not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case ZONE_MAP:
+					if (columnIndex instanceof NumericIndex) {
+						((NumericIndex) columnIndex).enableZoneMap();
+					} else {
+						log.warn("Zone map not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case COMPRESSED:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).getAtomicStore().setCompressContent(true);
+					} else if (columnIndex instanceof BinaryIndex) {
+						((BinaryIndex) columnIndex).getAtomicStore().setCompressContent(true);
+					} else if (columnIndex instanceof IntegerIndex) {
+						((IntegerIndex) columnIndex).enableCompression();
+					} else if (columnIndex instanceof LongIndex) {
+						((LongIndex) columnIndex).enableCompression();
+					} else {
+						log.warn("Compression not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case DICTIONARY:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).enableDictionary();
+					} else {
+						log.warn("Dictionary encoding not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case COLLATION_KEYS:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).enableCollationKeys();
+					} else if (columnIndex instanceof TranslatableTextIndex) {
+						((TranslatableTextIndex) columnIndex).enableCollationKeys();
+					} else {
+						log.warn("Collation keys not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+				case WRITE_BUFFER:
+					if (columnIndex instanceof TextIndex) {
+						((TextIndex) columnIndex).getAtomicStore().enableWriteBuffer();
+					} else if (columnIndex instanceof BinaryIndex) {
+						((BinaryIndex) columnIndex).getAtomicStore().enableWriteBuffer();
+					} else if (columnIndex instanceof TranslatableTextIndex) {
+						((TranslatableTextIndex) columnIndex).getAtomicStore().enableWriteBuffer();
+					} else {
+						log.warn("Write buffer not supported for column:" + columnIndex.getFQN());
+					}
+					break;
+			}
 		}
 	}
 
@@ -571,8 +721,14 @@ public class TableIndex implements MappedObject {
 			if (collectionTextSearchIndex != null) {
 				collectionTextSearchIndex.commit(true);
 			}
+			if (readOnly) {
+				return;
+			}
 			records.setValue(0, true);
 			records.close();
+			if (deletedRecords != null) {
+				deletedRecords.close();
+			}
 			for (ColumnIndex column : columnIndices) {
 				column.close();
 			}
@@ -21,12 +21,14 @@ package org.teamapps.universaldb.index.binary;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.BlockEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 import org.teamapps.universaldb.util.DataStreamUtil;
 
 import java.io.*;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -37,6 +39,7 @@ public class BinaryIndex extends AbstractIndex<byte[], BinaryFilter> {
 	public BinaryIndex(String name, TableIndex table, boolean compressContent, ColumnType columnType) {
 		super(name, table, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new BlockEntryAtomicStore(table.getDataPath(), name);
+		atomicStore.setCompressContent(compressContent);
 	}
 
 	@Override
@@ -122,6 +125,15 @@ public class BinaryIndex extends AbstractIndex<byte[], BinaryFilter> {
 	}
 
 
+	public BlockEntryAtomicStore getAtomicStore() {
+		return atomicStore;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.bool;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -29,44 +30,125 @@ import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class BooleanIndex extends AbstractIndex<Boolean, BooleanFilter> {
 
+	private static final int WORDS_PER_READ = 8_192;
+	private static final int HEADER_STATE_ID = 1;
+	private static final int HEADER_SHUTDOWN_ID = 2;
+	private static final long CLEAN_SHUTDOWN_MARKER = 0x5544_4243_4c45_414eL;
+
 	private PrimitiveEntryAtomicStore atomicStore;
+	private PrimitiveEntryAtomicStore headerStore;
 
 	private int maxSetId;
 	private int numberOfSetIds;
+	private final Object bitSetLock = new Object();
+	private volatile BitSet liveBitSet;
 
 	public BooleanIndex(String name, TableIndex tableIndex, ColumnType columnType) {
 		super(name, tableIndex, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name);
-		recalculateMaxSetIndex();
-		recalculateNumberOfSetIds();
+		headerStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name + "-hdr");
+		if (!readHeader()) {
+			recalculateMaxSetIndex();
+			recalculateNumberOfSetIds();
+		}
+		if (atomicStore.isReadOnly()) {
+			return;
+		}
+		headerStore.setLong(HEADER_SHUTDOWN_ID, 0);
+		writeHeader();
+	}
+
+	@Override
+	public void refresh() {
+		//read only: the header of a running writer is not up to date, the counters are calculated from the bits
+		if (!atomicStore.isReadOnly()) {
+			return;
+		}
+		atomicStore.refresh();
+		headerStore.refresh();
+		synchronized (bitSetLock) {
+			recalculateMaxSetIndex();
+			recalculateNumberOfSetIds();
+			liveBitSet = null;
+		}
+	}
+
+	private boolean readHeader() {
+		if (headerStore.getLong(HEADER_SHUTDOWN_ID) != CLEAN_SHUTDOWN_MARKER) {
+			return false;
+		}
+		long state = headerStore.getLong(HEADER_STATE_ID);
+		maxSetId = (int) (state >>> 32);
+		numberOfSetIds = (int) state;
+		return true;
+	}
+
+	private void writeHeader() {
+		//max id and count share one long, so they are always written together
+		headerStore.setLong(HEADER_STATE_ID, ((long) maxSetId << 32) | (numberOfSetIds & 0xFFFF_FFFFL));
 	}
 
 	private void recalculateMaxSetIndex() {
-		int maximumId = (int) (atomicStore.getTotalCapacity() * 8) - 1;
-		int maxId = 0;
-		for (int id = maximumId; id > 0; id--) {
-			if (getValue(id)) {
-				maxId = id;
-				break;
+		long[] words = new long[WORDS_PER_READ];
+		int end = atomicStore.getWordCount();
+		while (end > 0) {
+			int start = Math.max(0, end - WORDS_PER_READ);
+			atomicStore.readWords(words, start);
+			for (int i = end - start - 1; i >= 0; i--) {
+				if (words[i] != 0) {
+					maxSetId = (start + i) * 64 + 63 - Long.numberOfLeadingZeros(words[i]);
+					return;
+				}
 			}
+			end = start;
 		}
-		maxSetId = maxId;
+		maxSetId = 0;
 	}
 
 	private void recalculateNumberOfSetIds() {
-		int count = 0;
-		for (int id = 1; id <= maxSetId; id++) {
-			if (getValue(id)) {
-				count++;
+		int wordCount = (maxSetId >> 6) + 1;
+		int chunks = (wordCount + WORDS_PER_READ - 1) / WORDS_PER_READ;
+		numberOfSetIds = IntStream.range(0, chunks).parallel().map(chunk -> {
+			long[] words = new long[WORDS_PER_READ];
+			int startWord = chunk * WORDS_PER_READ;
+			int length = Math.min(atomicStore.readWords(words, startWord), wordCount - startWord);
+			int count = 0;
+			for (int i = 0; i < length; i++) {
+				count += Long.bitCount(words[i]);
 			}
-		}
-		numberOfSetIds = count;
+			if (startWord == 0 && (words[0] & 1L) != 0) {
+				count--;
+			}
+			return count;
+		}).sum();
+	}
+
+	private long[] readWords(int maxId) {
+		long[] words = new long[(maxId >> 6) + 1];
+		atomicStore.readWords(words, 0);
+		return words;
 	}
 
+	private BitSet getLiveBitSet() {
+		BitSet bitSet = liveBitSet;
+		if (bitSet == null) {
+			synchronized (bitSetLock) {
+				bitSet = liveBitSet;
+				if (bitSet == null) {
+					bitSet = BitSet.valueOf(readWords(maxSetId));
+					bitSet.clear(0);
+					liveBitSet = bitSet;
+				}
+			}
+		}
+		return bitSet;
+	}
 
 	@Override
 	public IndexType getType() {
@@ -89,14 +171,23 @@ public class BooleanIndex extends AbstractIndex<Boolean, BooleanFilter> {
 	}
 
 
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		writeHeader();
+		headerStore.setLong(HEADER_SHUTDOWN_ID, CLEAN_SHUTDOWN_MARKER);
+		headerStore.close();
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		headerStore.drop();
 	}
 
 	@Override
@@ -121,15 +212,26 @@ public class BooleanIndex extends AbstractIndex<Boolean, BooleanFilter> {
 			}
 		}
 		atomicStore.setBoolean(id, value);
+		if (id > 0) {
+			synchronized (bitSetLock) {
+				if (liveBitSet != null) {
+					liveBitSet.set(id, value);
+				}
+			}
+		}
 		if (value) {
 			if (id > maxSetId) {
 				maxSetId = id;
 			}
 		} else {
 			if (id == maxSetId) {
-				recalculateMaxSetIndex();
+				BitSet bitSet = getLiveBitSet();
+				synchronized (bitSetLock) {
+					maxSetId = Math.max(0, bitSet.previousSetBit(id));
+				}
 			}
 		}
+		writeHeader();
 	}
 
 	@Override
@@ -173,25 +275,20 @@ public class BooleanIndex extends AbstractIndex<Boolean, BooleanFilter> {
 	}
 
 	public BitSet filterEquals(BitSet bitSet, boolean compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			boolean value = getValue(id);
-			if (value == compare) {
-				result.set(id);
+		BitSet result = (BitSet) bitSet.clone();
+		BitSet liveBitSet = getLiveBitSet();
+		synchronized (bitSetLock) {
+			if (compare) {
+				result.and(liveBitSet);
+			} else {
+				result.andNot(liveBitSet);
 			}
 		}
 		return result;
 	}
 
 	public BitSet filterNotEquals(BitSet bitSet, boolean compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			boolean value = getValue(id);
-			if (value != compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterEquals(bitSet, !compare);
 	}
 
 	public int getCount() {
@@ -199,13 +296,11 @@ public class BooleanIndex extends AbstractIndex<Boolean, BooleanFilter> {
 	}
 
 	public BitSet getBitSet() {
-		BitSet bitSet = new BitSet(maxSetId);
-		for (int i = 1; i <= maxSetId; i++) {
-			if (getValue(i)) {
-				bitSet.set(i);
-			}
+		//callers are allowed to modify the result - hand out a copy of the live bit set
+		BitSet liveBitSet = getLiveBitSet();
+		synchronized (bitSetLock) {
+			return (BitSet) liveBitSet.clone();
 		}
-		return bitSet;
 	}
 
 	public int getMaxId() {
@@ -20,26 +20,45 @@
 package org.teamapps.universaldb.index.buffer;
 
 import org.agrona.concurrent.AtomicBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.util.MappedStoreUtil;
+import org.teamapps.universaldb.util.SnapshotFile;
 
-import java.io.File;
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
+public abstract class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String COMPACTION_SUFFIX = "-compact";
+	private static final int FREE_LIST_VERSION = 1;
 
 	private final PrimitiveEntryAtomicStore positionBuffer;
+	private final SnapshotFile freeList;
 	private long freeSpacePosition;
 	private int maxDeletionLengthEntries = 1_000;
 	private int maxDeletionListSize = 100_000;
 	private Map<Integer, Deque<Long>> deletedEntriesMap = createDeletionEntriesMap();
+	private long deletedBytes;
+	private volatile int generation;
 
 	public AbstractBlockEntryAtomicStore(File path, String name) {
-		super(path, name);
+		super(path, name, recoverCompaction(path, name));
 		positionBuffer = new PrimitiveEntryAtomicStore(path, name + "-pos");
+		freeList = new SnapshotFile(new File(path, name + "-free.idx"), FREE_LIST_VERSION);
 		init();
-		findAllDeletedBlocks();
+		if (isReadOnly()) {
+			//readers never allocate blocks, the free list belongs to the writing process
+			return;
+		}
+		if (!freeList.load(this::readDeletedBlocks)) {
+			findAllDeletedBlocks();
+		}
 	}
 
 	private LinkedHashMap<Integer, Deque<Long>> createDeletionEntriesMap() {
@@ -52,14 +71,53 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 	}
 
 	private void init() {
-		freeSpacePosition = positionBuffer.getFirstBuffer().getLong(0, byteOrder);
+		AtomicBuffer header = positionBuffer.getFirstBuffer();
+		freeSpacePosition = header.capacity() >= 8 ? header.getLong(0, byteOrder) : 0;
 		if (freeSpacePosition == 0) {
 			freeSpacePosition = 8;
 		}
 	}
 
+	private static int recoverCompaction(File path, String name) {
+		//runs before the files are mapped: a marker means the compacted files are complete and the swap has started - finish it
+		File marker = getCompactionMarker(path, name);
+		if (!MappedStoreUtil.isReadOnly(path) && marker.exists()) {
+			String compactionName = name + COMPACTION_SUFFIX;
+			try (DataInputStream dis = new DataInputStream(new FileInputStream(marker))) {
+				int dataFileCount = dis.readInt();
+				int positionFileCount = dis.readInt();
+				logger.warn("Finishing interrupted compaction of block store:" + name);
+				moveStoreFiles(path, compactionName, path, name, dataFileCount);
+				moveStoreFiles(path, compactionName + "-pos", path, name + "-pos", positionFileCount);
+			} catch (IOException e) {
+				//an incomplete marker is written before any file is moved, the store files are unchanged
+				logger.warn("Incomplete compaction marker of block store:" + name + ", keeping the store files");
+			}
+			marker.delete();
+		}
+		//block stores are never chunked, a block can be as large as a store file
+		return MAX_FILE_SIZE;
+	}
+
+	private static File getCompactionMarker(File path, String name) {
+		return new File(path, name + COMPACTION_SUFFIX + ".marker");
+	}
+
+	static void writeCompactionMarker(File path, String name, int dataFileCount, int positionFileCount) {
+		File marker = getCompactionMarker(path, name);
+		try (FileOutputStream fos = new FileOutputStream(marker); DataOutputStream dos = new DataOutputStream(fos)) {
+			dos.writeInt(dataFileCount);
+			dos.writeInt(positionFileCount);
+			dos.flush();
+			fos.getFD().sync();
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing compaction marker:" + marker.getPath(), e);
+		}
+	}
+
 	private void findAllDeletedBlocks() {
 		Map<Integer, Deque<Long>> deletedEntriesMap = createDeletionEntriesMap();
+		long deletedBytes = 0;
 		AtomicBuffer[] buffers = getBuffers();
 		for (int i = 0; i < buffers.length; i++) {
 			AtomicBuffer buffer = buffers[i];
@@ -68,7 +126,8 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 			while (offset + 4 < capacity) {
 				int value = buffer.getInt(offset);
 				if (value < 0) {
-					long deletedPosition = ((long) i * MAX_FILE_SIZE) + offset;
+					deletedBytes += 4 + Math.abs(value);
+					long deletedPosition = getPosition(i, offset);
 					Deque<Long> positions = deletedEntriesMap.computeIfAbsent(Math.abs(value), len -> new ArrayDeque<>());
 					if (positions.size() < maxDeletionListSize) {
 						positions.add(deletedPosition);
@@ -81,14 +140,61 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 			}
 		}
 		this.deletedEntriesMap = deletedEntriesMap;
+		this.deletedBytes = deletedBytes;
+	}
+
+	private boolean readDeletedBlocks(DataInputStream dis) throws IOException {
+		if (dis.readLong() != freeSpacePosition) {
+			return false;
+		}
+		Map<Integer, Deque<Long>> deletedEntriesMap = createDeletionEntriesMap();
+		long deletedBytes = dis.readLong();
+		int lengths = dis.readInt();
+		for (int i = 0; i < lengths; i++) {
+			int length = dis.readInt();
+			int size = dis.readInt();
+			Deque<Long> positions = new ArrayDeque<>(size);
+			for (int j = 0; j < size; j++) {
+				positions.add(dis.readLong());
+			}
+			deletedEntriesMap.put(length, positions);
+		}
+		if (dis.readInt() != lengths) {
+			return false;
+		}
+		this.deletedEntriesMap = deletedEntriesMap;
+		this.deletedBytes = deletedBytes;
+		return true;
+	}
+
+	private void writeDeletedBlocks() {
+		freeList.write(dos -> {
+			dos.writeLong(freeSpacePosition);
+			dos.writeLong(deletedBytes);
+			dos.writeInt(deletedEntriesMap.size());
+			for (Map.Entry<Integer, Deque<Long>> entry : deletedEntriesMap.entrySet()) {
+				dos.writeInt(entry.getKey());
+				dos.writeInt(entry.getValue().size());
+				for (Long position : entry.getValue()) {
+					dos.writeLong(position);
+				}
+			}
+			dos.writeInt(deletedEntriesMap.size());
+		});
 	}
 
 	protected Long getFreeSlot(int length) {
+		freeList.invalidate();
 		Deque<Long> positions = deletedEntriesMap.get(length);
-		return positions != null ? positions.pollFirst() : null;
+		Long position = positions != null ? positions.pollFirst() : null;
+		if (position != null) {
+			deletedBytes -= 4 + length;
+		}
+		return position;
 	}
 
 	protected void setFreeSpacePosition(long position) {
+		freeList.invalidate();
 		freeSpacePosition = position;
 		positionBuffer.setLong(0, position);
 	}
@@ -97,8 +203,33 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 		return freeSpacePosition;
 	}
 
+	public long getReclaimableBytes() {
+		return deletedBytes;
+	}
+
+	public double getFragmentationRatio() {
+		long usedBytes = freeSpacePosition - 8;
+		return usedBytes > 0 ? (double) deletedBytes / usedBytes : 0;
+	}
+
 	public int getBlockLength(int id) {
-		long position = positionBuffer.getLong(id);
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				int length = readBlockLength(id);
+				if (isCurrentGeneration(generation)) {
+					return length;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	protected int readBlockLength(int id) {
+		long position = getBlockPosition(id);
 		if (position > 0) {
 			int bufferIndex = getBufferIndex(position);
 			int offset = getOffset(position, bufferIndex);
@@ -112,13 +243,17 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 		return positionBuffer.getLong(id) == 0;
 	}
 
-	protected void removeEntry(long position) {
+	protected synchronized void removeEntry(long position) {
+		checkWritable();
 		if (position > 0) {
+			freeList.invalidate();
 			int bufferIndex = getBufferIndex(position);
 			int offset = getOffset(position, bufferIndex);
 			AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
 			int length = atomicBuffer.getInt(offset);
 			atomicBuffer.putInt(offset, -1 * length, byteOrder);
+			markDirty(4);
+			deletedBytes += 4 + length;
 			Deque<Long> positions = deletedEntriesMap.computeIfAbsent(length, len -> new ArrayDeque<>());
 			if (positions.size() < maxDeletionListSize) {
 				positions.add(position);
@@ -127,15 +262,126 @@ public class AbstractBlockEntryAtomicStore extends AbstractResizingAtomicStore {
 	}
 
 	protected long getBlockPosition(int id) {
-		return positionBuffer.getLong(id);
+		long position = positionBuffer.getLong(id);
+		if (position > 0 && isReadOnly()) {
+			ensureMapped();
+		}
+		return position;
+	}
+
+	private void ensureMapped() {
+		//the writing process appends blocks up to its free space position, which may lie beyond the mapped files
+		AtomicBuffer header = positionBuffer.getFirstBuffer();
+		if (header.capacity() >= 8 && header.getLong(0, byteOrder) > getTotalCapacity()) {
+			refresh();
+		}
+	}
+
+	@Override
+	public synchronized boolean refresh() {
+		boolean changed = positionBuffer.refresh();
+		changed |= super.refresh();
+		if (isReadOnly()) {
+			init();
+		}
+		return changed;
 	}
 
 	protected void setBlockPosition(int id, long position) {
 		positionBuffer.setLong(id, position);
 	}
 
+	protected int getReadGeneration() {
+		int generation;
+		while (((generation = this.generation) & 1) != 0) {
+			Thread.onSpinWait();
+		}
+		return generation;
+	}
+
+	protected boolean isCurrentGeneration(int generation) {
+		//the block reads of the caller must not move after the generation check
+		VarHandle.acquireFence();
+		return this.generation == generation;
+	}
+
+	protected void startInPlaceWrite() {
+		//readers retry until the block is complete, as while the files are swapped by a compaction - the caller holds the store lock
+		generation++;
+		VarHandle.storeStoreFence();
+	}
+
+	protected void finishInPlaceWrite() {
+		generation++;
+	}
+
+	protected abstract AbstractBlockEntryAtomicStore createCompactionStore(File path, String name);
+
+	protected abstract void copyEntry(int id, AbstractBlockEntryAtomicStore store);
+
+	public synchronized void compact() {
+		//writers wait on the store lock until the files are swapped, readers retry while the files are swapped
+		checkWritable();
+		long time = System.currentTimeMillis();
+		long previousSize = getTotalCapacity();
+		long reclaimableBytes = deletedBytes;
+		freeList.invalidate();
+		String compactionName = getName() + COMPACTION_SUFFIX;
+		createCompactionStore(getPath(), compactionName).drop();
+		AbstractBlockEntryAtomicStore store = createCompactionStore(getPath(), compactionName);
+		int maxId = positionBuffer.getMaximumId(8);
+		for (int id = 1; id <= maxId; id++) {
+			if (getBlockPosition(id) != 0) {
+				copyEntry(id, store);
+			}
+		}
+		store.flush();
+		store.removeFromFlushQueue();
+		generation++;
+		try {
+			if (!isInMemory()) {
+				writeCompactionMarker(getPath(), getName(), getStoreFileCount(getPath(), compactionName), getStoreFileCount(getPath(), compactionName + "-pos"));
+			}
+			replaceStoreFiles(store);
+			positionBuffer.replaceStoreFiles(store.positionBuffer);
+			getCompactionMarker(getPath(), getName()).delete();
+			init();
+			deletedEntriesMap = createDeletionEntriesMap();
+			deletedBytes = 0;
+		} finally {
+			generation++;
+		}
+		logger.info("Compacted block store:" + getName() + ", reclaimed bytes:" + reclaimableBytes + ", size:" + previousSize + " -> " + getTotalCapacity() + ", time:" + (System.currentTimeMillis() - time));
+	}
+
+	@Override
+	public long load() {
+		return positionBuffer.load() + super.load();
+	}
+
+	@Override
+	public void flush() {
+		positionBuffer.flush();
+		super.flush();
+	}
+
+	@Override
+	protected void removeFromFlushQueue() {
+		positionBuffer.removeFromFlushQueue();
+		super.removeFromFlushQueue();
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		if (!isInMemory() && !isReadOnly()) {
+			writeDeletedBlocks();
+		}
+	}
+
 	public void drop() {
 		positionBuffer.drop();
 		super.drop();
+		freeList.delete();
 	}
 }
@@ -23,14 +23,26 @@ import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AbstractResizingAtomicStore {
 	final static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -38,44 +50,92 @@ public class AbstractResizingAtomicStore {
 	protected static final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
 	protected static final int MIN_FILE_SIZE = 120_000;
 	protected static final int MAX_FILE_SIZE = 1966_080_000;
+	//chunks divide the file size and hold whole words of 64 long entries: 960_000 * 2^n
+	protected static final int MIN_CHUNK_SIZE = 960_000;
+
+	//0: files grow by doubling and are remapped, otherwise files grow in sparse chunks that are mapped once
+	private static volatile int defaultChunkSize;
+	//the file format has no limit on the number of files, positions are longs - 0: unbounded
+	private static volatile int maxFileCount = 8;
+	//capacity limits in bytes for all stores below a path, overriding the file count
+	private static final Map<File, Long> maxTotalSizeByPath = new ConcurrentHashMap<>();
 
 	private final File path;
 	private final String name;
 	private final long maxTotalSize;
-	private AtomicBuffer[] buffers;
+	private final boolean inMemory;
+	private final boolean readOnly;
+	private final int chunkSize;
+	private final int chunksPerFile;
+	//one buffer per chunk, the array has spare slots so that adding a chunk keeps the array
+	private volatile AtomicBuffer[] buffers;
+	private volatile int bufferCount;
+	private Object[] fileKeys;
 	private int lastBufferSize;
 	private long totalCapacity;
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private final AtomicBoolean queued = new AtomicBoolean();
+	private volatile StoreFlushScheduler flushScheduler;
+	private long dirtyBytes;
 
 	public AbstractResizingAtomicStore(File path, String name) {
+		this(path, name, 0);
+	}
+
+	protected AbstractResizingAtomicStore(File path, String name, int chunkSize) {
+		//chunk size 0: the configured default
 		this.path = path;
 		this.name = name;
-		this.maxTotalSize = MAX_FILE_SIZE * 8L;
+		this.maxTotalSize = getMaxTotalSize(path);
+		this.inMemory = MappedStoreUtil.isInMemory(path);
+		this.readOnly = MappedStoreUtil.isReadOnly(path);
+		this.chunkSize = chunkSize > 0 ? chunkSize : defaultChunkSize > 0 ? defaultChunkSize : MAX_FILE_SIZE;
+		this.chunksPerFile = MAX_FILE_SIZE / this.chunkSize;
 		init();
 	}
 
 	private void init() {
-		int index = 0;
 		buffers = new AtomicBuffer[1];
-		if (!getStoreFile(0).exists()) {
-			updateBufferSize(0, MIN_FILE_SIZE);
-		} else {
-			while (index == 0 || getStoreFile(index).exists()) {
-				File storeFile = getStoreFile(index);
-				updateBufferSize(index, (int) storeFile.length());
-				index++;
+		bufferCount = 0;
+		if (readOnly) {
+			fileKeys = new Object[0];
+			mapReadOnlyFiles();
+			return;
+		}
+		if (inMemory || !getStoreFile(0).exists()) {
+			updateBufferSize(0, isChunked() ? chunkSize : MIN_FILE_SIZE);
+			return;
+		}
+		int fileIndex = 0;
+		while (fileIndex == 0 || getStoreFile(fileIndex).exists()) {
+			long fileSize = Math.min(getStoreFile(fileIndex).length(), MAX_FILE_SIZE);
+			if (!isChunked()) {
+				updateBufferSize(fileIndex, (int) Math.max(fileSize, MIN_FILE_SIZE));
+			} else {
+				//a file of the doubling policy is extended to whole chunks
+				int chunks = (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+				for (int chunk = 0; chunk < chunks; chunk++) {
+					updateBufferSize(fileIndex * chunksPerFile + chunk, chunkSize);
+				}
 			}
+			fileIndex++;
 		}
 	}
 
+	protected boolean isChunked() {
+		return chunkSize < MAX_FILE_SIZE;
+	}
+
 	protected void ensureCapacity(int id, int byteLength) {
 		ensureCapacity((id + 1L) * byteLength);
 	}
 
 	protected long findNextBlockPosition(long position, int blockSize) {
+		//a block must not cross the end of a store file, the rest of the file stays unused
 		int bufferIndex = getBufferIndex(position);
 		int offset = getOffset(position, bufferIndex);
-		if (blockSize > (lastBufferSize - offset) && lastBufferSize == MAX_FILE_SIZE) {
-			return (long) buffers.length * MAX_FILE_SIZE + blockSize;
+		if (blockSize > chunkSize - offset) {
+			return (long) (bufferIndex + 1) * chunkSize;
 		}
 		return position;
 	}
@@ -85,68 +145,168 @@ public class AbstractResizingAtomicStore {
 	}
 
 	protected AtomicBuffer[] getBuffers() {
-		return buffers;
+		return Arrays.copyOf(buffers, bufferCount);
 	}
 
 	protected int getBufferIndex(long position) {
-		return (int) (position / MAX_FILE_SIZE);
+		//most stores have a single chunk, skip the division for it
+		return position < chunkSize ? 0 : (int) (position / chunkSize);
 	}
 
 	protected int getOffset(long position, int bufferIndex) {
-		return (int) (position - ((long) bufferIndex * MAX_FILE_SIZE));
+		return bufferIndex == 0 ? (int) position : (int) (position - ((long) bufferIndex * chunkSize));
 	}
 
-	protected int getOffset(int id, int bufferIndex, int entriesPerFile, int byteLength) {
-		return (id - (bufferIndex * entriesPerFile)) * byteLength;
+	protected long getPosition(int bufferIndex, int offset) {
+		return (long) bufferIndex * chunkSize + offset;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
 	}
 
 	protected int getMaximumId(int byteLength) {
-		return (int) (totalCapacity / byteLength) - 1;
+		//ids stay int based, the capacity of unbounded stores can exceed the id space
+		return (int) Math.min(totalCapacity / byteLength - 1, Integer.MAX_VALUE);
 	}
 
 	protected void ensureCapacity(long size) {
+		checkWritable();
 		if (size > totalCapacity) {
 			if (size > maxTotalSize) {
-				throw new RuntimeException("Index size exceeding maximum, requested size: " + size + ", index:" + toString());
+				throw new RuntimeException("Index size exceeding maximum, requested size: " + size + ", maximum size: " + maxTotalSize + ", index:" + toString());
 			}
 			while (size > totalCapacity) {
-				if (lastBufferSize < MAX_FILE_SIZE) {
-					updateBufferSize(buffers.length - 1, lastBufferSize * 2);
+				int lastBufferIndex = bufferCount - 1;
+				if (lastBufferSize < chunkSize) {
+					//doubling policy: the last file is remapped with the doubled size
+					updateBufferSize(lastBufferIndex, (int) Math.min(lastBufferSize * 2L, MAX_FILE_SIZE));
+				} else if (isChunked()) {
+					//existing chunks stay mapped, only the new chunk is mapped
+					updateBufferSize(lastBufferIndex + 1, chunkSize);
 				} else {
-					updateBufferSize(buffers.length, MAX_FILE_SIZE / 4);
+					updateBufferSize(lastBufferIndex + 1, MAX_FILE_SIZE / 4);
 				}
 			}
 		}
 	}
 
+	public static void setChunkSize(int size) {
+		//applies to primitive stores opened afterwards, rounded up to 960_000 * 2^n, 0: doubling files - block stores are never chunked
+		if (size <= 0) {
+			defaultChunkSize = 0;
+			return;
+		}
+		int chunk = MIN_CHUNK_SIZE;
+		while (chunk < size && chunk < MAX_FILE_SIZE) {
+			chunk *= 2;
+		}
+		defaultChunkSize = chunk;
+	}
+
+	public static int getDefaultChunkSize() {
+		return defaultChunkSize;
+	}
+
+	public static void setMaxFileCount(int count) {
+		//applies to stores opened afterwards
+		maxFileCount = Math.max(0, count);
+	}
+
+	public static int getMaxFileCount() {
+		return maxFileCount;
+	}
+
+	public static void setMaxTotalSize(long bytes) {
+		//rounded up to whole files, 0: unbounded
+		setMaxFileCount(getFileCount(bytes));
+	}
+
+	public static void setMaxTotalSize(File path, long bytes) {
+		//limit for all stores below this path, 0: unbounded, negative: back to the global limit
+		if (bytes < 0) {
+			maxTotalSizeByPath.remove(path.getAbsoluteFile());
+		} else {
+			maxTotalSizeByPath.put(path.getAbsoluteFile(), bytes);
+		}
+	}
+
+	public static int getFileCount(long bytes) {
+		if (bytes <= 0) {
+			return 0;
+		}
+		long count = (bytes + MAX_FILE_SIZE - 1) / MAX_FILE_SIZE;
+		return (int) Math.min(count, Integer.MAX_VALUE);
+	}
+
+	private static long getMaxTotalSize(File path) {
+		if (!maxTotalSizeByPath.isEmpty() && path != null) {
+			File parent = path.getAbsoluteFile();
+			while (parent != null) {
+				Long bytes = maxTotalSizeByPath.get(parent);
+				if (bytes != null) {
+					return getTotalSize(getFileCount(bytes));
+				}
+				parent = parent.getParentFile();
+			}
+		}
+		return getTotalSize(maxFileCount);
+	}
+
+	private static long getTotalSize(int fileCount) {
+		return fileCount == 0 ? Long.MAX_VALUE : (long) MAX_FILE_SIZE * fileCount;
+	}
+
+	public long getMaxTotalSize() {
+		return maxTotalSize;
+	}
+
 	private void updateBufferSize(int bufferIndex, int bufferSize) {
-		File file = getStoreFile(bufferIndex);
+		AtomicBuffer buffer = inMemory ? createMemoryBuffer(bufferIndex, bufferSize) : createMappedBuffer(bufferIndex, bufferSize);
+		AtomicBuffer[] currentBuffers = buffers;
+		if (bufferIndex >= currentBuffers.length) {
+			currentBuffers = Arrays.copyOf(currentBuffers, Math.max(bufferIndex + 1, currentBuffers.length * 2));
+		}
+		currentBuffers[bufferIndex] = buffer;
+		lastBufferSize = bufferSize;
+		totalCapacity = ((long) chunkSize * bufferIndex) + bufferSize;
+		bufferCount = bufferIndex + 1;
+		//the volatile write publishes the new chunk to readers
+		buffers = currentBuffers;
+	}
+
+	private AtomicBuffer createMappedBuffer(int bufferIndex, int bufferSize) {
+		File file = getStoreFile(bufferIndex / chunksPerFile);
+		long fileOffset = (long) (bufferIndex % chunksPerFile) * chunkSize;
 		try {
 			RandomAccessFile ras = new RandomAccessFile(file, "rw");
-			if (!file.exists() || file.length() < bufferSize) {
-				ras.seek(bufferSize - 4);
+			if (!file.exists() || file.length() < fileOffset + bufferSize) {
+				//sparse: the skipped range takes no disk space until it is written
+				ras.seek(fileOffset + bufferSize - 4);
 				ras.write(new byte[4]);
 			}
-			MappedByteBuffer mappedByteBuffer = ras.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bufferSize);
+			MappedByteBuffer mappedByteBuffer = ras.getChannel().map(FileChannel.MapMode.READ_WRITE, fileOffset, bufferSize);
 			try {
 				ras.close();
 			} catch (Throwable t) {
 				logger.warn("Error releasing RAS file on buffer creation:" + t.getMessage() + ", file:" + file);
 			}
-			if (buffers.length >= bufferIndex) {
-				AtomicBuffer[] newBuffers = new AtomicBuffer[bufferIndex + 1];
-				System.arraycopy(buffers, 0, newBuffers, 0, buffers.length);
-				buffers = newBuffers;
-			}
-			AtomicBuffer buffer = new UnsafeBuffer(mappedByteBuffer);
-			buffers[bufferIndex] = buffer;
-			lastBufferSize = bufferSize;
-			totalCapacity = ((long) MAX_FILE_SIZE * bufferIndex) + bufferSize;
+			return new UnsafeBuffer(mappedByteBuffer);
 		} catch (IOException e) {
 			throw new RuntimeException("ERROR: updating buffer size of buffer:" + file.getPath(), e);
 		}
 	}
 
+	private AtomicBuffer createMemoryBuffer(int bufferIndex, int bufferSize) {
+		//a resize copies the content - unlike a remapped file, older buffer instances do not see later writes
+		AtomicBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(bufferSize));
+		AtomicBuffer previousBuffer = bufferIndex < bufferCount ? buffers[bufferIndex] : null;
+		if (previousBuffer != null) {
+			buffer.putBytes(0, previousBuffer, 0, Math.min(previousBuffer.capacity(), bufferSize));
+		}
+		return buffer;
+	}
+
 	public File getPath() {
 		return path;
 	}
@@ -159,24 +319,223 @@ public class AbstractResizingAtomicStore {
 		return totalCapacity;
 	}
 
+	public boolean isInMemory() {
+		return inMemory;
+	}
+
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	protected void checkWritable() {
+		if (readOnly) {
+			throw new RuntimeException("Cannot write to read only store:" + this);
+		}
+	}
+
+	public synchronized boolean refresh() {
+		//read only stores: maps the files the writing process has added, grown or replaced since the last refresh
+		return readOnly && mapReadOnlyFiles();
+	}
+
+	private boolean mapReadOnlyFiles() {
+		AtomicBuffer[] currentBuffers = buffers;
+		int currentCount = bufferCount;
+		Object[] currentKeys = fileKeys;
+		List<AtomicBuffer> mappedBuffers = new ArrayList<>();
+		List<Object> mappedKeys = new ArrayList<>();
+		boolean changed = false;
+		int fileIndex = 0;
+		BasicFileAttributes attributes;
+		while ((attributes = readFileAttributes(getStoreFile(fileIndex))) != null) {
+			long fileSize = Math.min(attributes.size(), MAX_FILE_SIZE);
+			for (long fileOffset = 0; fileOffset < fileSize; fileOffset += chunkSize) {
+				int index = mappedBuffers.size();
+				int size = (int) Math.min(fileSize - fileOffset, chunkSize);
+				AtomicBuffer buffer = index < currentCount ? currentBuffers[index] : null;
+				//compaction replaces the files, the previous mapping still shows the old file
+				if (buffer == null || buffer.capacity() < size || !Objects.equals(attributes.fileKey(), currentKeys[index])) {
+					buffer = new UnsafeBuffer(MappedStoreUtil.mapReadOnly(getStoreFile(fileIndex), fileOffset, size));
+					changed = true;
+				}
+				mappedBuffers.add(buffer);
+				mappedKeys.add(attributes.fileKey());
+			}
+			//only the last file can be shorter, the chunks of a file keep their index
+			while (mappedBuffers.size() < (fileIndex + 1) * chunksPerFile && readFileAttributes(getStoreFile(fileIndex + 1)) != null) {
+				mappedBuffers.add(new UnsafeBuffer(new byte[0]));
+				mappedKeys.add(null);
+			}
+			fileIndex++;
+		}
+		if (mappedBuffers.isEmpty()) {
+			//nothing written yet, all entries read as empty
+			mappedBuffers.add(new UnsafeBuffer(new byte[0]));
+			mappedKeys.add(null);
+		}
+		if (!changed && mappedBuffers.size() == currentCount) {
+			return false;
+		}
+		int lastBufferIndex = mappedBuffers.size() - 1;
+		AtomicBuffer[] newBuffers = mappedBuffers.toArray(new AtomicBuffer[0]);
+		fileKeys = mappedKeys.toArray();
+		lastBufferSize = newBuffers[lastBufferIndex].capacity();
+		totalCapacity = ((long) chunkSize * lastBufferIndex) + lastBufferSize;
+		bufferCount = newBuffers.length;
+		buffers = newBuffers;
+		return true;
+	}
+
+	private static BasicFileAttributes readFileAttributes(File file) {
+		try {
+			return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	private File getStoreFile(int index) {
 		return new File(getPath(), getName() + "-" + index + ".idx");
 	}
 
+	protected void replaceStoreFiles(AbstractResizingAtomicStore store) {
+		if (inMemory) {
+			buffers = store.buffers;
+			bufferCount = store.bufferCount;
+			lastBufferSize = store.lastBufferSize;
+			totalCapacity = store.totalCapacity;
+			store.buffers = null;
+			return;
+		}
+		moveStoreFiles(store.getPath(), store.getName(), getPath(), getName(), getStoreFileCount(store.getPath(), store.getName()));
+		init();
+	}
+
+	protected static int getStoreFileCount(File path, String name) {
+		int count = 0;
+		while (new File(path, name + "-" + count + ".idx").exists()) {
+			count++;
+		}
+		return count;
+	}
+
+	protected static void moveStoreFiles(File sourcePath, String sourceName, File targetPath, String targetName, int fileCount) {
+		//can be repeated after a crash: source files already moved are skipped, target files beyond the file count are deleted
+		try {
+			for (int index = 0; index < fileCount; index++) {
+				File sourceFile = new File(sourcePath, sourceName + "-" + index + ".idx");
+				if (sourceFile.exists()) {
+					File targetFile = new File(targetPath, targetName + "-" + index + ".idx");
+					Files.move(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+			}
+			int index = fileCount;
+			File remainingFile;
+			while ((remainingFile = new File(targetPath, targetName + "-" + index + ".idx")).exists()) {
+				Files.delete(remainingFile.toPath());
+				index++;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("ERROR: moving store files from:" + sourceName + " to:" + targetName, e);
+		}
+	}
+
+	protected void markDirty(int writtenBytes) {
+		if (inMemory) {
+			return;
+		}
+		//estimate of the written bytes since the last flush, used as I/O budget by the flush scheduler
+		dirtyBytes += writtenBytes;
+		if (!dirty.get() && dirty.compareAndSet(false, true)) {
+			//without a running scheduler for this path the store waits for a scheduler to start or is flushed on close
+			if (!queue(StoreFlushScheduler.getScheduler(path))) {
+				StoreFlushScheduler.addPendingStore(this);
+			}
+		} else if (!queued.get()) {
+			queue(StoreFlushScheduler.getScheduler(path));
+		}
+	}
+
+	boolean queue(StoreFlushScheduler scheduler) {
+		if (scheduler == null) {
+			return false;
+		}
+		if (queued.compareAndSet(false, true)) {
+			flushScheduler = scheduler;
+			scheduler.addDirtyStore(this);
+		}
+		return true;
+	}
+
+	void setQueued(boolean queued) {
+		this.queued.set(queued);
+	}
+
+	protected void removeFromFlushQueue() {
+		StoreFlushScheduler.removePendingStore(this);
+		StoreFlushScheduler scheduler = flushScheduler;
+		if (scheduler != null && queued.getAndSet(false)) {
+			scheduler.removeStore(this);
+		}
+	}
+
+	public boolean isDirty() {
+		return dirty.get();
+	}
+
+	public long getDirtyBytes() {
+		return dirtyBytes;
+	}
+
+	public long load() {
+		//touches all pages of the mapped files, returns the number of loaded bytes
+		AtomicBuffer[] buffers = this.buffers;
+		if (buffers == null) {
+			return 0;
+		}
+		long bytes = 0;
+		int count = Math.min(bufferCount, buffers.length);
+		for (int i = 0; i < count; i++) {
+			AtomicBuffer buffer = buffers[i];
+			if (!inMemory && buffer.byteBuffer() instanceof MappedByteBuffer) {
+				MappedByteBuffer byteBuffer = (MappedByteBuffer) buffer.byteBuffer();
+				byteBuffer.load();
+			}
+			bytes += buffer.capacity();
+		}
+		return bytes;
+	}
+
 	public void flush() {
-		for (AtomicBuffer buffer : buffers) {
-			MappedByteBuffer byteBuffer = (MappedByteBuffer) buffer.byteBuffer();
+		//writes after clearing the flag mark the store dirty again
+		if (!dirty.getAndSet(false)) {
+			return;
+		}
+		dirtyBytes = 0;
+		AtomicBuffer[] buffers = this.buffers;
+		if (buffers == null) {
+			return;
+		}
+		int count = Math.min(bufferCount, buffers.length);
+		for (int i = 0; i < count; i++) {
+			MappedByteBuffer byteBuffer = (MappedByteBuffer) buffers[i].byteBuffer();
 			byteBuffer.force();
 		}
 	}
 
 	public void close() {
 		flush();
+		removeFromFlushQueue();
 	}
 
 	public void drop() {
+		checkWritable();
+		removeFromFlushQueue();
 		try {
 			buffers = null;
+			if (inMemory) {
+				return;
+			}
 			int index = 0;
 			while (index == 0 || getStoreFile(index).exists()) {
 				File storeFile = getStoreFile(index);
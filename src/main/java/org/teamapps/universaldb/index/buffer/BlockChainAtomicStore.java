@@ -31,8 +31,20 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 	}
 
 	public int getEntryCount(int id) {
-		BlockChainEntry block = getBlock(getBlockPosition(id));
-		return block != null ? block.getTotalCount() : 0;
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				BlockChainEntry block = getBlock(getBlockPosition(id));
+				int count = block != null ? block.getTotalCount() : 0;
+				if (isCurrentGeneration(generation)) {
+					return count;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
 	}
 
 	public boolean isEmpty(int id) {
@@ -40,18 +52,34 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 	}
 
 	public List<Integer> getEntries(int id) {
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				List<Integer> entries = readEntries(id, generation);
+				if (isCurrentGeneration(generation)) {
+					return entries;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private List<Integer> readEntries(int id, int generation) {
 		long position = getBlockPosition(id);
 		BlockChainEntry startEntry = getBlock(position);
 		if (startEntry != null) {
 			List<Integer> list = new ArrayList<>();
 			startEntry.readBlockEntries(list);
 			BlockChainEntry chainEntry = startEntry;
-			while ((chainEntry = getNextBlock(chainEntry)) != null) {
+			while (isCurrentGeneration(generation) && (chainEntry = getNextBlock(chainEntry)) != null) {
 				chainEntry.readBlockEntries(list);
 			}
-			if (position != getBlockPosition(id)) {
+			if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
 				//chain has become invalid while reading - reloading entries
-				return getEntries(id);
+				return readEntries(id, generation);
 			}
 			return list;
 		}
@@ -59,61 +87,95 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 	}
 
 	public boolean containsEntry(int id, int entry) {
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				boolean contained = readContainsEntry(id, entry, generation);
+				if (isCurrentGeneration(generation)) {
+					return contained;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private boolean readContainsEntry(int id, int entry, int generation) {
 		long position = getBlockPosition(id);
 		BlockChainEntry startEntry = getBlock(position);
 		if (startEntry != null) {
 			if (startEntry.containsBlockEntry(entry)) {
-				if (position != getBlockPosition(id)) {
-					return containsEntry(id, entry);
+				if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+					return readContainsEntry(id, entry, generation);
 				}
 				return true;
 			}
 			BlockChainEntry chainEntry = startEntry;
-			while ((chainEntry = getNextBlock(chainEntry)) != null) {
+			while (isCurrentGeneration(generation) && (chainEntry = getNextBlock(chainEntry)) != null) {
 				if (chainEntry.containsBlockEntry(entry)) {
-					if (position != getBlockPosition(id)) {
-						return containsEntry(id, entry);
+					if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+						return readContainsEntry(id, entry, generation);
 					}
 					return true;
 				}
 			}
-			if (position != getBlockPosition(id)) {
-				return containsEntry(id, entry);
+			if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+				return readContainsEntry(id, entry, generation);
 			}
 		}
 		return false;
 	}
 
 	public boolean containsEntry(int id, BitSet bitSet) {
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				boolean contained = readContainsEntry(id, bitSet, generation);
+				if (isCurrentGeneration(generation)) {
+					return contained;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private boolean readContainsEntry(int id, BitSet bitSet, int generation) {
 		long position = getBlockPosition(id);
 		BlockChainEntry startEntry = getBlock(position);
 		if (startEntry != null) {
 			if (startEntry.containsBlockEntry(bitSet)) {
-				if (position != getBlockPosition(id)) {
-					return containsEntry(id, bitSet);
+				if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+					return readContainsEntry(id, bitSet, generation);
 				}
 				return true;
 			}
 			BlockChainEntry chainEntry = startEntry;
-			while ((chainEntry = getNextBlock(chainEntry)) != null) {
+			while (isCurrentGeneration(generation) && (chainEntry = getNextBlock(chainEntry)) != null) {
 				if (chainEntry.containsBlockEntry(bitSet)) {
-					if (position != getBlockPosition(id)) {
-						return containsEntry(id, bitSet);
+					if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+						return readContainsEntry(id, bitSet, generation);
 					}
 					return true;
 				}
 			}
-			if (position != getBlockPosition(id)) {
-				return containsEntry(id, bitSet);
+			if (position != getBlockPosition(id) && isCurrentGeneration(generation)) {
+				return readContainsEntry(id, bitSet, generation);
 			}
 		}
 		return false;
 	}
 
-	public int removeEntries(int id, List<Integer> entries) {
+	public synchronized int removeEntries(int id, List<Integer> entries) {
+		checkWritable();
 		if (entries == null || entries.isEmpty()) {
 			return 0;
 		}
+		markDirty(entries.size() * 4);
 		Set<Integer> removeSet = new HashSet<>(entries);
 		long position = getBlockPosition(id);
 		BlockChainEntry startEntry = getBlock(position);
@@ -138,10 +200,12 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 		setEntries(id, null);
 	}
 
-	public void addEntries(int id, List<Integer> entries) {
+	public synchronized void addEntries(int id, List<Integer> entries) {
+		checkWritable();
 		if (id <= 0 || entries == null || entries.isEmpty()) {
 			return;
 		}
+		markDirty(entries.size() * 4);
 		long position = getBlockPosition(id);
 		if (position > 0) {
 			BlockChainEntry startEntry = getBlock(position);
@@ -169,10 +233,11 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 				if (length > 0) {
 					writtenEntries += block.writeBlockEntries(writtenEntries, length, entries);
 				}
-				previousEntry.writeNextBlockPosition(block.getPosition());
+				//creating a block may have resized the store, entries read before hold the previous buffer
+				getBlock(previousEntry.getPosition()).writeNextBlockPosition(block.getPosition());
 				previousEntry = block;
 			}
-			startEntry.addTotalCount(entries.size());
+			getBlock(position).addTotalCount(entries.size());
 		} else {
 			setEntries(id, entries);
 		}
@@ -182,11 +247,13 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 		addEntries(id, Collections.singletonList(value));
 	}
 
-	public void setEntries(int id, List<Integer> entries) {
+	public synchronized void setEntries(int id, List<Integer> entries) {
+		checkWritable();
 		if (id <= 0) {
 			return;
 		}
 		long removePosition = getBlockPosition(id);
+		markDirty(entries != null ? entries.size() * 4 : 4);
 		if (entries != null && !entries.isEmpty()) {
 			BlockChainType chainType = BlockChainType.getTypeBySize(entries.size());
 			BlockChainEntry newEntry = createBlock(chainType);
@@ -197,10 +264,10 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 				BlockChainEntry chainEntry = createBlock(chainType);
 				length = Math.min(entries.size() - writtenEntries, chainType.getItems());
 				writtenEntries += chainEntry.writeBlockEntries(writtenEntries, length, entries);
-				previousEntry.writeNextBlockPosition(chainEntry.getPosition());
+				getBlock(previousEntry.getPosition()).writeNextBlockPosition(chainEntry.getPosition());
 				previousEntry = chainEntry;
 			}
-			newEntry.writeTotalCount(entries.size());
+			getBlock(newEntry.getPosition()).writeTotalCount(entries.size());
 			setBlockPosition(id, newEntry.getPosition());
 		} else {
 			setBlockPosition(id, 0);
@@ -216,6 +283,16 @@ public class BlockChainAtomicStore extends AbstractBlockEntryAtomicStore {
 		}
 	}
 
+	@Override
+	protected AbstractBlockEntryAtomicStore createCompactionStore(File path, String name) {
+		return new BlockChainAtomicStore(path, name);
+	}
+
+	@Override
+	protected void copyEntry(int id, AbstractBlockEntryAtomicStore store) {
+		((BlockChainAtomicStore) store).setEntries(id, getEntries(id));
+	}
+
 	private BlockChainEntry getBlock(long position) {
 		if (position <= 0) {
 			return null;
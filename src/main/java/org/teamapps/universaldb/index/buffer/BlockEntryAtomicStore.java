@@ -19,21 +19,126 @@
  */
 package org.teamapps.universaldb.index.buffer;
 
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
 import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class BlockEntryAtomicStore extends AbstractBlockEntryAtomicStore {
 
+	//the first bytes of the first buffer are not used by blocks and hold the block format
+	private static final int FORMAT_SIZE_CLASSES = 1;
+	private static final int MIN_BLOCK_CAPACITY = 16;
+	private static final int COMPRESSED_FLAG = 0x4000_0000;
+	private static final int COMPRESSION_THRESHOLD = 256;
+	private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+	//values up to 7 bytes are stored in the position slot: inline flag, length in the top byte, bytes in the lower 7 bytes
+	private static final long INLINE_FLAG = Long.MIN_VALUE;
+	private static final int MAX_INLINE_LENGTH = 7;
+	private static final int DEFAULT_WRITE_BUFFER_SIZE = 8_000_000;
+
+	private boolean compressContent;
+	private volatile BlockWriteBuffer writeBuffer;
+
 	public BlockEntryAtomicStore(File path, String name) {
 		super(path, name);
+		if (isReadOnly()) {
+			return;
+		}
+		if (getFreeSpacePosition() == 8 && getBuffer(0).getInt(0, byteOrder) == 0) {
+			getBuffer(0).putInt(0, FORMAT_SIZE_CLASSES, byteOrder);
+			markDirty(4);
+		}
+		if (!isInMemory()) {
+			BlockWriteBuffer.recover(this);
+		}
+	}
+
+	public static int getSizeClass(int size) {
+		if (size <= MIN_BLOCK_CAPACITY) {
+			return MIN_BLOCK_CAPACITY;
+		}
+		//four classes per power of two - at most 25% unused capacity
+		int step = Integer.highestOneBit(size - 1) >> 2;
+		long capacity = ((long) (size - 1) / step + 1) * step;
+		return (int) Math.min(capacity, Integer.MAX_VALUE);
+	}
+
+	public boolean isSizeClassFormat() {
+		return getBuffer(0).getInt(0, byteOrder) == FORMAT_SIZE_CLASSES;
+	}
+
+	public boolean isCompressContent() {
+		return compressContent;
+	}
+
+	public void setCompressContent(boolean compressContent) {
+		this.compressContent = compressContent;
+	}
+
+	private static byte[] compress(byte[] bytes) {
+		LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+		byte[] buffer = new byte[compressor.maxCompressedLength(bytes.length)];
+		int compressedLength = compressor.compress(bytes, 0, bytes.length, buffer, 0, buffer.length);
+		if (compressedLength + 4 >= bytes.length) {
+			return null;
+		}
+		return Arrays.copyOf(buffer, compressedLength);
+	}
+
+	public void enableWriteBuffer() {
+		enableWriteBuffer(DEFAULT_WRITE_BUFFER_SIZE);
+	}
+
+	public synchronized void enableWriteBuffer(int maxBufferedBytes) {
+		//values are appended to a log and kept in memory, merges write them to the blocks in batches
+		if (writeBuffer == null && !isReadOnly()) {
+			writeBuffer = new BlockWriteBuffer(this, maxBufferedBytes);
+		}
+	}
+
+	public boolean isWriteBuffer() {
+		return writeBuffer != null;
+	}
+
+	public int getBufferedCount() {
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		return writeBuffer != null ? writeBuffer.getBufferedCount() : 0;
+	}
+
+	public void mergeWriteBuffer() {
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		if (writeBuffer != null) {
+			writeBuffer.merge();
+		}
+	}
+
+	private byte[] getBufferedBytes(int id) {
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		return writeBuffer != null ? writeBuffer.get(id) : null;
 	}
 
 	public void setBytes(int id, byte[] bytes) {
+		checkWritable();
 		if (id == 0) {
 			return;
 		}
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		if (writeBuffer != null) {
+			writeBuffer.put(id, bytes);
+			markDirty(bytes != null ? bytes.length : 4);
+			return;
+		}
+		writeBytes(id, bytes);
+	}
+
+	synchronized void writeBytes(int id, byte[] bytes) {
+		checkWritable();
 		long lastPosition = getBlockPosition(id);
 		if (bytes == null || bytes.length == 0) {
 			setBlockPosition(id, 0);
@@ -41,54 +146,407 @@ public class BlockEntryAtomicStore extends AbstractBlockEntryAtomicStore {
 			return;
 		}
 		int length = bytes.length;
+		markDirty(length);
+		if (length <= MAX_INLINE_LENGTH) {
+			setBlockPosition(id, encodeInline(bytes));
+			removeEntry(lastPosition);
+			return;
+		}
+		if (isSizeClassFormat()) {
+			//block: capacity, used length, bytes - compressed: capacity, compressed length with flag, length, compressed bytes
+			byte[] data = bytes;
+			int lengthField = length;
+			if (compressContent && length >= COMPRESSION_THRESHOLD && length < COMPRESSED_FLAG) {
+				byte[] compressed = compress(bytes);
+				if (compressed != null) {
+					data = compressed;
+					lengthField = compressed.length | COMPRESSED_FLAG;
+				}
+			}
+			int capacity = getSizeClass(data.length + (data != bytes ? 8 : 4));
+			if (lastPosition > 0) {
+				int bufferIndex = getBufferIndex(lastPosition);
+				int offset = getOffset(lastPosition, bufferIndex);
+				AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
+				int lastCapacity = atomicBuffer.getInt(offset, byteOrder);
+				if (capacity <= lastCapacity && capacity * 2L > lastCapacity) {
+					//the block stays visible to readers, they retry while it is rewritten
+					startInPlaceWrite();
+					try {
+						writeBlockData(atomicBuffer, offset, data, lengthField, length);
+					} finally {
+						finishInPlaceWrite();
+					}
+					return;
+				}
+			}
+			long position = createBlock(id, capacity);
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			writeBlockData(getBuffer(bufferIndex), offset, data, lengthField, length);
+			setBlockPosition(id, position);
+		} else {
+			//legacy block: length, bytes
+			long position = createBlock(id, length);
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
+			atomicBuffer.putBytes(offset + 4, bytes);
+			setBlockPosition(id, position);
+		}
+		removeEntry(lastPosition);
+	}
+
+	private static long encodeInline(byte[] bytes) {
+		long value = INLINE_FLAG | ((long) bytes.length << 56);
+		for (int i = 0; i < bytes.length; i++) {
+			value |= (bytes[i] & 0xFFL) << (i * 8);
+		}
+		return value;
+	}
+
+	private static int getInlineLength(long position) {
+		return (int) (position >>> 56) & MAX_INLINE_LENGTH;
+	}
+
+	private static byte[] decodeInline(long position) {
+		byte[] bytes = new byte[getInlineLength(position)];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (position >>> (i * 8));
+		}
+		return bytes;
+	}
+
+	public boolean isInline(int id) {
+		return getBlockPosition(id) < 0;
+	}
+
+	private void writeBlockData(AtomicBuffer atomicBuffer, int offset, byte[] data, int lengthField, int length) {
+		if ((lengthField & COMPRESSED_FLAG) != 0) {
+			atomicBuffer.putInt(offset + 8, length, byteOrder);
+			atomicBuffer.putBytes(offset + 12, data);
+		} else {
+			atomicBuffer.putBytes(offset + 8, data);
+		}
+		atomicBuffer.putInt(offset + 4, lengthField, byteOrder);
+	}
+
+	private long createBlock(int id, int length) {
 		Long freeSlot = getFreeSlot(length);
+		long position;
 		if (freeSlot != null) {
-			long position = freeSlot;
+			position = freeSlot;
 			int bufferIndex = getBufferIndex(position);
 			int offset = getOffset(position, bufferIndex);
 			AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
 			if (atomicBuffer.getInt(offset) != (-1 * length)) {
 				throw new RuntimeException("Try to reuse deleted block entry that already exists, id:" + id + ", pos:" + position + ", index:" + this);
 			}
-			atomicBuffer.putInt(offset, length, byteOrder);
-			atomicBuffer.putBytes(offset + 4, bytes);
-			setBlockPosition(id, position);
 		} else {
-			long position = findNextBlockPosition(getFreeSpacePosition(), length + 4);
+			position = findNextBlockPosition(getFreeSpacePosition(), length + 4);
 			setFreeSpacePosition(position + length + 4);
 			ensureCapacity(position + length + 4);
-			int bufferIndex = getBufferIndex(position);
-			int offset = getOffset(position, bufferIndex);
-			AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
-			atomicBuffer.putInt(offset, length, byteOrder);
-			atomicBuffer.putBytes(offset + 4, bytes);
-			setBlockPosition(id, position);
 		}
-		removeEntry(lastPosition);
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
+		getBuffer(bufferIndex).putInt(offset, length, byteOrder);
+		return position;
 	}
 
 	public byte[] getBytes(int id) {
+		byte[] buffered = getBufferedBytes(id);
+		if (buffered != null) {
+			return buffered != BlockWriteBuffer.REMOVED ? buffered.clone() : null;
+		}
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				byte[] bytes = readBytes(id);
+				if (isCurrentGeneration(generation)) {
+					return bytes;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private byte[] readBytes(int id) {
 		long position = getBlockPosition(id);
-		if (position > 0) {
+		if (position < 0) {
+			return decodeInline(position);
+		} else if (position > 0) {
 			int bufferIndex = getBufferIndex(position);
 			int offset = getOffset(position, bufferIndex);
 			AtomicBuffer buffer = getBuffer(bufferIndex);
 			int len = buffer.getInt(offset);
+			int dataOffset = offset + 4;
+			if (isSizeClassFormat()) {
+				len = buffer.getInt(offset + 4);
+				dataOffset = offset + 8;
+				if ((len & COMPRESSED_FLAG) != 0) {
+					return readCompressedBytes(buffer, offset, len & ~COMPRESSED_FLAG, id, position);
+				}
+			}
+			if (len < 0 || len > buffer.capacity() - dataOffset) {
+				throw new RuntimeException("Invalid block length:" + len + ", id:" + id + ", pos:" + position + ", index:" + this);
+			}
 			byte[] bytes = new byte[len];
-			buffer.getBytes(offset + 4, bytes);
+			buffer.getBytes(dataOffset, bytes);
 			return bytes;
 		}
 		return null;
 	}
 
+	private byte[] readCompressedBytes(AtomicBuffer buffer, int offset, int compressedLength, int id, long position) {
+		int len = buffer.getInt(offset + 8);
+		if (compressedLength < 0 || compressedLength > buffer.capacity() - offset - 12 || len <= 0 || len > compressedLength * 255L + 16) {
+			throw new RuntimeException("Invalid compressed block length:" + compressedLength + ", id:" + id + ", pos:" + position + ", index:" + this);
+		}
+		byte[] compressed = new byte[compressedLength];
+		buffer.getBytes(offset + 12, compressed);
+		byte[] bytes = new byte[len];
+		//the safe decompressor checks the mapped input, a corrupt or torn block must not read out of bounds
+		int decompressedLength;
+		try {
+			decompressedLength = LZ4_FACTORY.safeDecompressor().decompress(compressed, 0, compressedLength, bytes, 0, len);
+		} catch (LZ4Exception e) {
+			throw new RuntimeException("Invalid compressed block, id:" + id + ", pos:" + position + ", index:" + this, e);
+		}
+		if (decompressedLength != len) {
+			throw new RuntimeException("Invalid compressed block length:" + decompressedLength + ", expected:" + len + ", id:" + id + ", pos:" + position + ", index:" + this);
+		}
+		return bytes;
+	}
+
+	interface EntryReader {
+		long read(AtomicBuffer buffer, int offset);
+	}
+
+	//reads an uncompressed entry in place without copying it, an empty entry reads as 0
+	long readEntry(int id, EntryReader reader) {
+		byte[] buffered = getBufferedBytes(id);
+		if (buffered != null) {
+			return buffered != BlockWriteBuffer.REMOVED ? reader.read(new UnsafeBuffer(buffered), 0) : 0;
+		}
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				long value = 0;
+				long position = getBlockPosition(id);
+				if (position > 0) {
+					int bufferIndex = getBufferIndex(position);
+					int offset = getOffset(position, bufferIndex);
+					value = reader.read(getBuffer(bufferIndex), isSizeClassFormat() ? offset + 8 : offset + 4);
+				}
+				if (isCurrentGeneration(generation)) {
+					return value;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	public boolean isEqual(int id, byte[] key) {
+		return compareBytes(id, key, false);
+	}
+
+	//the key must only contain ASCII characters, other values are compared as strings
+	public boolean isEqualIgnoreCase(int id, byte[] key) {
+		return compareBytes(id, key, true);
+	}
+
+	private boolean compareBytes(int id, byte[] key, boolean ignoreCase) {
+		byte[] buffered = getBufferedBytes(id);
+		if (buffered != null) {
+			return buffered != BlockWriteBuffer.REMOVED && compareBufferedBytes(buffered, key, ignoreCase);
+		}
+		while (true) {
+			int generation = getReadGeneration();
+			try {
+				boolean equal = readAndCompareBytes(id, key, ignoreCase);
+				if (isCurrentGeneration(generation)) {
+					return equal;
+				}
+			} catch (RuntimeException e) {
+				if (isCurrentGeneration(generation)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private boolean readAndCompareBytes(int id, byte[] key, boolean ignoreCase) {
+		long position = getBlockPosition(id);
+		if (position == 0) {
+			return false;
+		}
+		int len;
+		if (position < 0) {
+			len = getInlineLength(position);
+		} else {
+			len = readBlockLength(id);
+		}
+		if (len != key.length) {
+			//a value with non-ASCII characters can match an ASCII key ignoring case: each character takes up to 3 bytes
+			if (ignoreCase && len > key.length && len <= key.length * 3) {
+				byte[] bytes = readBytes(id);
+				return bytes != null && new String(bytes, StandardCharsets.UTF_8).equalsIgnoreCase(new String(key, StandardCharsets.US_ASCII));
+			}
+			return false;
+		}
+		if (position < 0) {
+			for (int i = 0; i < len; i++) {
+				if (!isByteEqual((byte) (position >>> (i * 8)), key[i], ignoreCase)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
+		AtomicBuffer buffer = getBuffer(bufferIndex);
+		int dataOffset = offset + 4;
+		if (isSizeClassFormat()) {
+			if ((buffer.getInt(offset + 4) & COMPRESSED_FLAG) != 0) {
+				byte[] bytes = readBytes(id);
+				for (int i = 0; i < len; i++) {
+					if (!isByteEqual(bytes[i], key[i], ignoreCase)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			dataOffset = offset + 8;
+		}
+		for (int i = 0; i < len; i++) {
+			if (!isByteEqual(buffer.getByte(dataOffset + i), key[i], ignoreCase)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean compareBufferedBytes(byte[] bytes, byte[] key, boolean ignoreCase) {
+		if (bytes.length != key.length) {
+			return ignoreCase && new String(bytes, StandardCharsets.UTF_8).equalsIgnoreCase(new String(key, StandardCharsets.US_ASCII));
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (!isByteEqual(bytes[i], key[i], ignoreCase)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isByteEqual(byte value, byte key, boolean ignoreCase) {
+		if (value == key) {
+			return true;
+		} else if (!ignoreCase) {
+			return false;
+		}
+		//ASCII case folding - a value of the same byte length as an ASCII key only matches if it is ASCII itself
+		return (value | 0x20) == (key | 0x20) && (key | 0x20) >= 'a' && (key | 0x20) <= 'z';
+	}
+
+	@Override
+	protected int readBlockLength(int id) {
+		byte[] buffered = getBufferedBytes(id);
+		if (buffered != null) {
+			return buffered.length;
+		}
+		long position = getBlockPosition(id);
+		if (position < 0) {
+			return getInlineLength(position);
+		} else if (position > 0) {
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer atomicBuffer = getBuffer(bufferIndex);
+			if (!isSizeClassFormat()) {
+				return atomicBuffer.getInt(offset);
+			}
+			int len = atomicBuffer.getInt(offset + 4);
+			return (len & COMPRESSED_FLAG) != 0 ? atomicBuffer.getInt(offset + 8) : len;
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean isEmpty(int id) {
+		byte[] buffered = getBufferedBytes(id);
+		if (buffered != null) {
+			return buffered == BlockWriteBuffer.REMOVED;
+		}
+		return super.isEmpty(id);
+	}
+
+	@Override
+	public void compact() {
+		//merges take the lock of the store, they must not wait for a compaction that waits for them
+		mergeWriteBuffer();
+		super.compact();
+	}
+
+	@Override
+	public void flush() {
+		mergeWriteBuffer();
+		super.flush();
+	}
+
+	void flushBlocks() {
+		super.flush();
+	}
+
+	@Override
+	public void close() {
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		if (writeBuffer != null) {
+			writeBuffer.close();
+		}
+		super.close();
+	}
+
+	@Override
+	public void drop() {
+		BlockWriteBuffer writeBuffer = this.writeBuffer;
+		if (writeBuffer != null) {
+			writeBuffer.drop();
+		}
+		super.drop();
+	}
+
+	@Override
+	protected AbstractBlockEntryAtomicStore createCompactionStore(File path, String name) {
+		BlockEntryAtomicStore store = new BlockEntryAtomicStore(path, name);
+		store.setCompressContent(compressContent);
+		return store;
+	}
+
+	@Override
+	protected void copyEntry(int id, AbstractBlockEntryAtomicStore store) {
+		((BlockEntryAtomicStore) store).setBytes(id, getBytes(id));
+	}
+
 	public void removeBytes(int id) {
+		checkWritable();
 		if (id == 0) {
 			return;
 		}
-		long position = getBlockPosition(id);
-		if (position > 0) {
-			removeEntry(position);
-			setBlockPosition(id, 0);
+		if (writeBuffer != null) {
+			setBytes(id, null);
+			return;
+		}
+		synchronized (this) {
+			long position = getBlockPosition(id);
+			if (position != 0) {
+				setBlockPosition(id, 0);
+				removeEntry(position);
+			}
 		}
 	}
 
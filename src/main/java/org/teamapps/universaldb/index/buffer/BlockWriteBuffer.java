@@ -0,0 +1,238 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class BlockWriteBuffer {
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String LOG_SUFFIX = "-log.idx";
+	private static final String MERGE_LOG_SUFFIX = "-log-merge.idx";
+	//marks a removed value, empty values are not stored
+	static final byte[] REMOVED = new byte[0];
+
+	private static final ExecutorService MERGE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "block-store-merge");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final BlockEntryAtomicStore store;
+	private final int maxBufferedBytes;
+	private final File logFile;
+	private final File mergeLogFile;
+	private final Object mergeLock = new Object();
+	private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+	private volatile Map<Integer, byte[]> memTable = new ConcurrentHashMap<>();
+	private volatile Map<Integer, byte[]> mergeTable;
+	private DataOutputStream logStream;
+	private long bufferedBytes;
+
+	BlockWriteBuffer(BlockEntryAtomicStore store, int maxBufferedBytes) {
+		this.store = store;
+		this.maxBufferedBytes = maxBufferedBytes;
+		this.logFile = store.isInMemory() ? null : new File(store.getPath(), store.getName() + LOG_SUFFIX);
+		this.mergeLogFile = store.isInMemory() ? null : new File(store.getPath(), store.getName() + MERGE_LOG_SUFFIX);
+	}
+
+	static void recover(BlockEntryAtomicStore store) {
+		//values of a crashed process that have not been merged are written to the store before it is used
+		File path = store.getPath();
+		boolean recovered = replayLog(store, new File(path, store.getName() + MERGE_LOG_SUFFIX));
+		recovered |= replayLog(store, new File(path, store.getName() + LOG_SUFFIX));
+		if (recovered) {
+			logger.warn("Recovered unmerged values of block store:" + store.getName());
+		}
+	}
+
+	private static boolean replayLog(BlockEntryAtomicStore store, File file) {
+		if (!file.exists()) {
+			return false;
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65_536))) {
+			while (true) {
+				int id = dis.readInt();
+				int length = dis.readInt();
+				byte[] bytes = null;
+				if (length > 0) {
+					bytes = new byte[length];
+					dis.readFully(bytes);
+				}
+				store.writeBytes(id, bytes);
+			}
+		} catch (EOFException ignore) {
+			//the last entry may be incomplete
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading write buffer log:" + file.getPath(), e);
+		}
+		store.flushBlocks();
+		file.delete();
+		return true;
+	}
+
+	byte[] get(int id) {
+		//null if the value is not buffered, REMOVED if it has been removed
+		byte[] bytes = memTable.get(id);
+		if (bytes == null) {
+			Map<Integer, byte[]> mergeTable = this.mergeTable;
+			if (mergeTable != null) {
+				bytes = mergeTable.get(id);
+			}
+		}
+		return bytes;
+	}
+
+	void put(int id, byte[] bytes) {
+		byte[] value = bytes != null && bytes.length > 0 ? bytes.clone() : REMOVED;
+		long buffered;
+		synchronized (this) {
+			writeLog(id, value);
+			memTable.put(id, value);
+			buffered = bufferedBytes += value.length + 8;
+		}
+		if (buffered >= maxBufferedBytes * 2L) {
+			//the background merge cannot keep up with the writer
+			merge();
+		} else if (buffered >= maxBufferedBytes) {
+			scheduleMerge();
+		}
+	}
+
+	private void writeLog(int id, byte[] value) {
+		if (logFile == null) {
+			return;
+		}
+		try {
+			if (logStream == null) {
+				logStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true), 65_536));
+			}
+			logStream.writeInt(id);
+			logStream.writeInt(value == REMOVED ? -1 : value.length);
+			logStream.write(value);
+			//one sequential write per value, it survives a crash of the process like the mapped stores
+			logStream.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing write buffer log:" + logFile.getPath(), e);
+		}
+	}
+
+	private void closeLog() {
+		if (logStream != null) {
+			try {
+				logStream.close();
+			} catch (IOException e) {
+				logger.error("Error closing write buffer log:" + logFile.getPath(), e);
+			}
+			logStream = null;
+		}
+	}
+
+	private void scheduleMerge() {
+		if (mergeScheduled.compareAndSet(false, true)) {
+			MERGE_EXECUTOR.execute(() -> {
+				mergeScheduled.set(false);
+				try {
+					merge();
+				} catch (Throwable e) {
+					logger.error("Error merging write buffer of block store:" + store.getName(), e);
+				}
+			});
+		}
+	}
+
+	int getBufferedCount() {
+		Map<Integer, byte[]> mergeTable = this.mergeTable;
+		return memTable.size() + (mergeTable != null ? mergeTable.size() : 0);
+	}
+
+	void merge() {
+		synchronized (mergeLock) {
+			Map<Integer, byte[]> table;
+			synchronized (this) {
+				if (memTable.isEmpty()) {
+					return;
+				}
+				//new values go to a new log while the current one is merged
+				closeLog();
+				if (logFile != null && !logFile.renameTo(mergeLogFile)) {
+					throw new RuntimeException("Error rotating write buffer log:" + logFile.getPath());
+				}
+				table = memTable;
+				mergeTable = table;
+				memTable = new ConcurrentHashMap<>();
+				bufferedBytes = 0;
+			}
+			synchronized (store) {
+				//in place updates in the order of their blocks, new values in the order of their ids
+				List<Integer> ids = new ArrayList<>(table.keySet());
+				ids.sort(Comparator.comparingLong((Integer id) -> {
+					long position = store.getBlockPosition(id);
+					return position > 0 ? position : Long.MAX_VALUE;
+				}).thenComparingInt(id -> id));
+				for (Integer id : ids) {
+					byte[] value = table.get(id);
+					store.writeBytes(id, value == REMOVED ? null : value);
+				}
+				store.flushBlocks();
+			}
+			mergeTable = null;
+			if (mergeLogFile != null) {
+				mergeLogFile.delete();
+			}
+		}
+	}
+
+	void close() {
+		merge();
+		synchronized (this) {
+			closeLog();
+			if (logFile != null) {
+				logFile.delete();
+			}
+		}
+	}
+
+	void drop() {
+		synchronized (mergeLock) {
+			synchronized (this) {
+				closeLog();
+				memTable = new ConcurrentHashMap<>();
+				mergeTable = null;
+				bufferedBytes = 0;
+				if (logFile != null) {
+					logFile.delete();
+					mergeLogFile.delete();
+				}
+			}
+		}
+	}
+}
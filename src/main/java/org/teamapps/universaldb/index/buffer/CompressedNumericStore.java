@@ -0,0 +1,337 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.function.IntToLongFunction;
+
+public class CompressedNumericStore {
+
+	public static final int BLOCK_SHIFT = 7;
+	public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	public static final int FRAME_OF_REFERENCE = 0;
+	public static final int DELTA = 1;
+	public static final int DELTA_OF_DELTA = 2;
+
+	/**
+	 * Block format, one block entry per 128 ids:
+	 * encoding: 1b
+	 * bit width: 1b
+	 * base: 8b - the minimum for frame of reference, the first value otherwise
+	 * minimum: 8b - the minimum delta or delta of delta
+	 * first delta: 8b
+	 * packed values: frame of reference 128, delta 127, delta of delta 126 values
+	 * padding: 8b
+	 */
+	private static final int ENCODING_OFFSET = 0;
+	private static final int BIT_WIDTH_OFFSET = 1;
+	private static final int BASE_OFFSET = 2;
+	private static final int MIN_OFFSET = 10;
+	private static final int FIRST_DELTA_OFFSET = 18;
+	private static final int HEADER_SIZE = 26;
+	private static final int PADDING = 8;
+	private static final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+
+	private final BlockEntryAtomicStore blockStore;
+
+	public CompressedNumericStore(File path, String name) {
+		blockStore = new BlockEntryAtomicStore(path, name + "-packed");
+	}
+
+	public long getValue(int id) {
+		if (id <= 0) {
+			return 0;
+		}
+		int index = id & (BLOCK_SIZE - 1);
+		return blockStore.readEntry(getBlockId(id >>> BLOCK_SHIFT), (buffer, offset) -> readValue(buffer, offset, index));
+	}
+
+	public void setValue(int id, long value) {
+		if (id <= 0) {
+			return;
+		}
+		int blockIndex = id >>> BLOCK_SHIFT;
+		long[] values = new long[BLOCK_SIZE];
+		boolean exists = readBlock(blockIndex, values);
+		int index = id & (BLOCK_SIZE - 1);
+		if (values[index] == value && (exists || value == 0)) {
+			return;
+		}
+		values[index] = value;
+		setBlock(blockIndex, values);
+	}
+
+	public boolean readBlock(int blockIndex, long[] values) {
+		//decodes all values of a block at once, returns false for a block without values
+		return blockStore.readEntry(getBlockId(blockIndex), (buffer, offset) -> {
+			decode(buffer, offset, values);
+			return 1;
+		}) != 0 || clear(values);
+	}
+
+	public void setBlock(int blockIndex, long[] values) {
+		boolean empty = true;
+		for (long value : values) {
+			if (value != 0) {
+				empty = false;
+				break;
+			}
+		}
+		blockStore.setBytes(getBlockId(blockIndex), empty ? null : encode(values));
+	}
+
+	public boolean copyValues(int maxId, IntToLongFunction valueFunction) {
+		//block wise copy of a full width column, returns false if all values are 0
+		boolean copied = false;
+		long[] values = new long[BLOCK_SIZE];
+		for (int blockIndex = 0; blockIndex <= maxId >>> BLOCK_SHIFT; blockIndex++) {
+			int firstId = blockIndex << BLOCK_SHIFT;
+			boolean empty = true;
+			for (int i = 0; i < BLOCK_SIZE; i++) {
+				int id = firstId + i;
+				values[i] = id > 0 && id <= maxId ? valueFunction.applyAsLong(id) : 0;
+				empty &= values[i] == 0;
+			}
+			if (!empty) {
+				setBlock(blockIndex, values);
+				copied = true;
+			}
+		}
+		return copied;
+	}
+
+	public int getBlockEncoding(int blockIndex) {
+		return (int) blockStore.readEntry(getBlockId(blockIndex), (buffer, offset) -> buffer.getByte(offset + ENCODING_OFFSET));
+	}
+
+	public int getBlockBitWidth(int blockIndex) {
+		return (int) blockStore.readEntry(getBlockId(blockIndex), (buffer, offset) -> buffer.getByte(offset + BIT_WIDTH_OFFSET));
+	}
+
+	public BlockScanner createScanner() {
+		return new BlockScanner();
+	}
+
+	public BlockEntryAtomicStore getBlockStore() {
+		return blockStore;
+	}
+
+	public void flush() {
+		blockStore.flush();
+	}
+
+	public void close() {
+		blockStore.close();
+	}
+
+	public void drop() {
+		blockStore.drop();
+	}
+
+	private static int getBlockId(int blockIndex) {
+		//id 0 is not a valid block store id
+		return blockIndex + 1;
+	}
+
+	private static boolean clear(long[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 0;
+		}
+		return false;
+	}
+
+	private static long readValue(AtomicBuffer buffer, int offset, int index) {
+		int encoding = buffer.getByte(offset + ENCODING_OFFSET);
+		int bitWidth = buffer.getByte(offset + BIT_WIDTH_OFFSET);
+		long base = buffer.getLong(offset + BASE_OFFSET, byteOrder);
+		int dataOffset = offset + HEADER_SIZE;
+		if (encoding == FRAME_OF_REFERENCE) {
+			return base + readBits(buffer, dataOffset, (long) index * bitWidth, bitWidth);
+		}
+		//delta encodings sum up the deltas before the index
+		long min = buffer.getLong(offset + MIN_OFFSET, byteOrder);
+		long value = base;
+		if (encoding == DELTA) {
+			for (int i = 1; i <= index; i++) {
+				value += min + readBits(buffer, dataOffset, (long) (i - 1) * bitWidth, bitWidth);
+			}
+		} else if (index > 0) {
+			long delta = buffer.getLong(offset + FIRST_DELTA_OFFSET, byteOrder);
+			value += delta;
+			for (int i = 2; i <= index; i++) {
+				delta += min + readBits(buffer, dataOffset, (long) (i - 2) * bitWidth, bitWidth);
+				value += delta;
+			}
+		}
+		return value;
+	}
+
+	private static void decode(AtomicBuffer buffer, int offset, long[] values) {
+		int encoding = buffer.getByte(offset + ENCODING_OFFSET);
+		int bitWidth = buffer.getByte(offset + BIT_WIDTH_OFFSET);
+		long base = buffer.getLong(offset + BASE_OFFSET, byteOrder);
+		long min = buffer.getLong(offset + MIN_OFFSET, byteOrder);
+		int dataOffset = offset + HEADER_SIZE;
+		if (encoding == FRAME_OF_REFERENCE) {
+			for (int i = 0; i < BLOCK_SIZE; i++) {
+				values[i] = base + readBits(buffer, dataOffset, (long) i * bitWidth, bitWidth);
+			}
+		} else if (encoding == DELTA) {
+			values[0] = base;
+			for (int i = 1; i < BLOCK_SIZE; i++) {
+				values[i] = values[i - 1] + min + readBits(buffer, dataOffset, (long) (i - 1) * bitWidth, bitWidth);
+			}
+		} else {
+			long delta = buffer.getLong(offset + FIRST_DELTA_OFFSET, byteOrder);
+			values[0] = base;
+			values[1] = base + delta;
+			for (int i = 2; i < BLOCK_SIZE; i++) {
+				delta += min + readBits(buffer, dataOffset, (long) (i - 2) * bitWidth, bitWidth);
+				values[i] = values[i - 1] + delta;
+			}
+		}
+	}
+
+	static byte[] encode(long[] values) {
+		//all differences wrap around, the offsets to the signed minimum are packed as unsigned numbers
+		long min = values[0];
+		long max = values[0];
+		long deltaMin = Long.MAX_VALUE;
+		long deltaMax = Long.MIN_VALUE;
+		long deltaOfDeltaMin = Long.MAX_VALUE;
+		long deltaOfDeltaMax = Long.MIN_VALUE;
+		for (int i = 1; i < BLOCK_SIZE; i++) {
+			long value = values[i];
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			long delta = value - values[i - 1];
+			deltaMin = Math.min(deltaMin, delta);
+			deltaMax = Math.max(deltaMax, delta);
+			if (i > 1) {
+				long deltaOfDelta = delta - (values[i - 1] - values[i - 2]);
+				deltaOfDeltaMin = Math.min(deltaOfDeltaMin, deltaOfDelta);
+				deltaOfDeltaMax = Math.max(deltaOfDeltaMax, deltaOfDelta);
+			}
+		}
+		int forWidth = getBitWidth(max - min);
+		int deltaWidth = getBitWidth(deltaMax - deltaMin);
+		int deltaOfDeltaWidth = getBitWidth(deltaOfDeltaMax - deltaOfDeltaMin);
+		long forBits = (long) forWidth * BLOCK_SIZE;
+		long deltaBits = (long) deltaWidth * (BLOCK_SIZE - 1);
+		long deltaOfDeltaBits = (long) deltaOfDeltaWidth * (BLOCK_SIZE - 2);
+
+		//frame of reference wins ties, it is the only encoding with constant time point reads
+		int encoding = FRAME_OF_REFERENCE;
+		long bits = forBits;
+		if (deltaBits < bits) {
+			encoding = DELTA;
+			bits = deltaBits;
+		}
+		if (deltaOfDeltaBits < bits) {
+			encoding = DELTA_OF_DELTA;
+			bits = deltaOfDeltaBits;
+		}
+		byte[] bytes = new byte[HEADER_SIZE + (int) ((bits + 7) >>> 3) + PADDING];
+		UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+		buffer.putByte(ENCODING_OFFSET, (byte) encoding);
+		if (encoding == FRAME_OF_REFERENCE) {
+			buffer.putByte(BIT_WIDTH_OFFSET, (byte) forWidth);
+			buffer.putLong(BASE_OFFSET, min, byteOrder);
+			for (int i = 0; i < BLOCK_SIZE; i++) {
+				writeBits(buffer, HEADER_SIZE, (long) i * forWidth, forWidth, values[i] - min);
+			}
+		} else if (encoding == DELTA) {
+			buffer.putByte(BIT_WIDTH_OFFSET, (byte) deltaWidth);
+			buffer.putLong(BASE_OFFSET, values[0], byteOrder);
+			buffer.putLong(MIN_OFFSET, deltaMin, byteOrder);
+			for (int i = 1; i < BLOCK_SIZE; i++) {
+				writeBits(buffer, HEADER_SIZE, (long) (i - 1) * deltaWidth, deltaWidth, values[i] - values[i - 1] - deltaMin);
+			}
+		} else {
+			buffer.putByte(BIT_WIDTH_OFFSET, (byte) deltaOfDeltaWidth);
+			buffer.putLong(BASE_OFFSET, values[0], byteOrder);
+			buffer.putLong(MIN_OFFSET, deltaOfDeltaMin, byteOrder);
+			buffer.putLong(FIRST_DELTA_OFFSET, values[1] - values[0], byteOrder);
+			for (int i = 2; i < BLOCK_SIZE; i++) {
+				long deltaOfDelta = (values[i] - values[i - 1]) - (values[i - 1] - values[i - 2]);
+				writeBits(buffer, HEADER_SIZE, (long) (i - 2) * deltaOfDeltaWidth, deltaOfDeltaWidth, deltaOfDelta - deltaOfDeltaMin);
+			}
+		}
+		return bytes;
+	}
+
+	private static int getBitWidth(long unsignedRange) {
+		return 64 - Long.numberOfLeadingZeros(unsignedRange);
+	}
+
+	private static long readBits(AtomicBuffer buffer, int offset, long bitPosition, int bitWidth) {
+		if (bitWidth == 0) {
+			return 0;
+		}
+		int byteOffset = offset + (int) (bitPosition >>> 3);
+		int shift = (int) (bitPosition & 7);
+		long value = buffer.getLong(byteOffset, byteOrder) >>> shift;
+		if (shift + bitWidth > 64) {
+			value |= (buffer.getByte(byteOffset + 8) & 0xFFL) << (64 - shift);
+		}
+		return bitWidth == 64 ? value : value & ((1L << bitWidth) - 1);
+	}
+
+	private static void writeBits(AtomicBuffer buffer, int offset, long bitPosition, int bitWidth, long value) {
+		if (bitWidth == 0) {
+			return;
+		}
+		int byteOffset = offset + (int) (bitPosition >>> 3);
+		int shift = (int) (bitPosition & 7);
+		buffer.putLong(byteOffset, buffer.getLong(byteOffset, byteOrder) | (value << shift), byteOrder);
+		if (shift + bitWidth > 64) {
+			buffer.putByte(byteOffset + 8, (byte) (buffer.getByte(byteOffset + 8) | (value >>> (64 - shift))));
+		}
+	}
+
+	public class BlockScanner {
+		private final long[] values = new long[BLOCK_SIZE];
+		private int blockIndex = -1;
+
+		//matches the 64 ids of a bitset word, each block is decoded once for both of its words
+		public long matchRange(int firstId, long min, long max) {
+			if (min > max) {
+				return 0;
+			}
+			int index = firstId >>> BLOCK_SHIFT;
+			if (index != blockIndex) {
+				readBlock(index, values);
+				blockIndex = index;
+			}
+			int start = firstId & (BLOCK_SIZE - 1);
+			long mask = 0;
+			for (int i = 0; i < 64; i++) {
+				long value = values[start + i];
+				mask |= (value >= min & value <= max ? 1L : 0L) << i;
+			}
+			return firstId == 0 ? (min <= 0 && max >= 0 ? mask | 1L : mask & ~1L) : mask;
+		}
+	}
+}
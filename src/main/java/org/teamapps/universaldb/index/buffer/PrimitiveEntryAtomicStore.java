@@ -25,10 +25,6 @@ import java.io.File;
 
 public class PrimitiveEntryAtomicStore extends AbstractResizingAtomicStore {
 
-	protected static final int BYTE_ENTRIES_PER_FILE = MAX_FILE_SIZE;
-	protected static final int SHORT_ENTRIES_PER_FILE = MAX_FILE_SIZE / 2;
-	protected static final int INTEGER_ENTRIES_PER_FILE = MAX_FILE_SIZE / 4;
-	protected static final int LONG_ENTRIES_PER_FILE = MAX_FILE_SIZE / 8;
 	private static final byte[] BIT_MASKS = new byte[8];
 
 	static {
@@ -47,19 +43,21 @@ public class PrimitiveEntryAtomicStore extends AbstractResizingAtomicStore {
 	}
 
 	public boolean getBoolean(int id) {
-		if (id > getTotalCapacity() * 8) {
+		if (id >= getTotalCapacity() * 8) {
 			return false;
 		}
-		AtomicBuffer buffer = getBuffer(0);
-		byte b = buffer.getByte(id / 8);
+		int bufferIndex = getBufferIndex(id / 8);
+		AtomicBuffer buffer = getBuffer(bufferIndex);
+		byte b = buffer.getByte(getOffset(id / 8, bufferIndex));
 		int bit = id % 8;
 		return (b & BIT_MASKS[bit]) == BIT_MASKS[bit];
 	}
 
 	public void setBoolean(int id, boolean value) {
 		ensureCapacity(id / 8 + 1);
-		AtomicBuffer buffer = getBuffer(0);
-		int pos = id / 8;
+		int bufferIndex = getBufferIndex(id / 8);
+		AtomicBuffer buffer = getBuffer(bufferIndex);
+		int pos = getOffset(id / 8, bufferIndex);
 		byte b = buffer.getByte(pos);
 		int bit = id % 8;
 		if (value) {
@@ -68,42 +66,166 @@ public class PrimitiveEntryAtomicStore extends AbstractResizingAtomicStore {
 			b = (byte) (b & ~BIT_MASKS[bit]);
 		}
 		buffer.putByte(pos, b);
+		markDirty(1);
+	}
+
+	public int getWordCount() {
+		long words = getTotalCapacity() / 8;
+		return (int) Math.min(words, (Integer.MAX_VALUE >> 6) + 1);
+	}
+
+	public int readWords(long[] target, int fromWord) {
+		int count = Math.min(target.length, getWordCount() - fromWord);
+		long position = fromWord * 8L;
+		int i = 0;
+		while (i < count) {
+			//chunks hold whole words, the words are read chunk by chunk
+			int bufferIndex = getBufferIndex(position);
+			AtomicBuffer buffer = getBuffer(bufferIndex);
+			int offset = getOffset(position, bufferIndex);
+			int end = Math.min(count, i + (buffer.capacity() - offset) / 8);
+			if (end <= i) {
+				//a read only store can end within a word
+				return i;
+			}
+			for (; i < end; i++) {
+				target[i] = buffer.getLong(offset, byteOrder);
+				offset += 8;
+			}
+			position = (fromWord + (long) i) * 8;
+		}
+		return Math.max(count, 0);
+	}
+
+	public long matchIntRange(int firstId, int min, int max) {
+		//matches the 64 ids of a bitset word (firstId is a multiple of 64) in one pass over contiguous memory
+		if (min > max) {
+			return 0;
+		}
+		int count = getScanCount(firstId, 4);
+		long mask = 0;
+		if (count > 0) {
+			long position = (long) firstId * 4;
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer buffer = getBuffer(bufferIndex);
+			//unsigned compare of the distance to min: a single branch free comparison per value
+			int limit = max - min + Integer.MIN_VALUE;
+			for (int i = 0; i < count; i++) {
+				int value = buffer.getInt(offset + (i << 2), byteOrder);
+				mask |= (value - min + Integer.MIN_VALUE <= limit ? 1L : 0L) << i;
+			}
+		}
+		return completeMask(mask, count, firstId, min <= 0 && max >= 0);
+	}
+
+	public long matchLongRange(int firstId, long min, long max) {
+		if (min > max) {
+			return 0;
+		}
+		int count = getScanCount(firstId, 8);
+		long mask = 0;
+		if (count > 0) {
+			long position = (long) firstId * 8;
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer buffer = getBuffer(bufferIndex);
+			long limit = max - min + Long.MIN_VALUE;
+			for (int i = 0; i < count; i++) {
+				long value = buffer.getLong(offset + (i << 3), byteOrder);
+				mask |= (value - min + Long.MIN_VALUE <= limit ? 1L : 0L) << i;
+			}
+		}
+		return completeMask(mask, count, firstId, min <= 0 && max >= 0);
+	}
+
+	public long matchFloatRange(int firstId, float min, float max) {
+		int count = getScanCount(firstId, 4);
+		long mask = 0;
+		if (count > 0) {
+			long position = (long) firstId * 4;
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer buffer = getBuffer(bufferIndex);
+			for (int i = 0; i < count; i++) {
+				float value = buffer.getFloat(offset + (i << 2), byteOrder);
+				mask |= (value >= min & value <= max ? 1L : 0L) << i;
+			}
+		}
+		return completeMask(mask, count, firstId, min <= 0 && max >= 0);
+	}
+
+	public long matchDoubleRange(int firstId, double min, double max) {
+		int count = getScanCount(firstId, 8);
+		long mask = 0;
+		if (count > 0) {
+			long position = (long) firstId * 8;
+			int bufferIndex = getBufferIndex(position);
+			int offset = getOffset(position, bufferIndex);
+			AtomicBuffer buffer = getBuffer(bufferIndex);
+			for (int i = 0; i < count; i++) {
+				double value = buffer.getDouble(offset + (i << 3), byteOrder);
+				mask |= (value >= min & value <= max ? 1L : 0L) << i;
+			}
+		}
+		return completeMask(mask, count, firstId, min <= 0 && max >= 0);
+	}
+
+	private int getScanCount(int firstId, int byteLength) {
+		return (int) Math.min(64, getMaximumId(byteLength) - (long) firstId + 1);
+	}
+
+	private static long completeMask(long mask, int count, int firstId, boolean zeroMatches) {
+		//id 0 and the ids above the capacity read as 0
+		if (zeroMatches) {
+			if (count < 64) {
+				mask |= -1L << Math.max(count, 0);
+			}
+			return firstId == 0 ? mask | 1L : mask;
+		}
+		return firstId == 0 ? mask & ~1L : mask;
 	}
 
 	public byte getByte(int id) {
 		if (id <= 0 || id > getMaximumId(1)) {
 			return 0;
 		}
-		int bufferIndex = id / BYTE_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, BYTE_ENTRIES_PER_FILE, 1);
+		long position = (long) id;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getByte(offset);
 	}
 
 	public void setByte(int id, byte value) {
 		ensureCapacity(id, 1);
-		int bufferIndex = id / BYTE_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, BYTE_ENTRIES_PER_FILE, 1);
+		long position = (long) id;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putByte(offset, value);
+		markDirty(1);
 	}
 
 	public short getShort(int id) {
 		if (id <= 0 || id > getMaximumId(2)) {
 			return 0;
 		}
-		int bufferIndex = id / SHORT_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, SHORT_ENTRIES_PER_FILE, 2);
+		long position = (long) id * 2;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getShort(offset, byteOrder);
 	}
 
 	public void setShort(int id, short value) {
 		ensureCapacity(id, 2);
-		int bufferIndex = id / SHORT_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, SHORT_ENTRIES_PER_FILE, 2);
+		long position = (long) id * 2;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putShort(offset, value, byteOrder);
+		markDirty(2);
 	}
 
 
@@ -111,72 +233,84 @@ public class PrimitiveEntryAtomicStore extends AbstractResizingAtomicStore {
 		if (id <= 0 || id > getMaximumId(4)) {
 			return 0;
 		}
-		int bufferIndex = id / INTEGER_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, INTEGER_ENTRIES_PER_FILE, 4);
+		long position = (long) id * 4;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getInt(offset, byteOrder);
 	}
 
 	public void setInt(int id, int value) {
 		ensureCapacity(id, 4);
-		int bufferIndex = id / INTEGER_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, INTEGER_ENTRIES_PER_FILE, 4);
+		long position = (long) id * 4;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putInt(offset, value, byteOrder);
+		markDirty(4);
 	}
 
 	public float getFloat(int id) {
 		if (id <= 0 || id > getMaximumId(4)) {
 			return 0;
 		}
-		int bufferIndex = id / INTEGER_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, INTEGER_ENTRIES_PER_FILE, 4);
+		long position = (long) id * 4;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getFloat(offset, byteOrder);
 	}
 
 	public void setFloat(int id, float value) {
 		ensureCapacity(id, 4);
-		int bufferIndex = id / INTEGER_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, INTEGER_ENTRIES_PER_FILE, 4);
+		long position = (long) id * 4;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putFloat(offset, value, byteOrder);
+		markDirty(4);
 	}
 
 	public long getLong(int id) {
 		if (id <= 0 || id > getMaximumId(8)) {
 			return 0;
 		}
-		int bufferIndex = id / LONG_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, LONG_ENTRIES_PER_FILE, 8);
+		long position = (long) id * 8;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getLong(offset, byteOrder);
 	}
 
 	public void setLong(int id, long value) {
 		ensureCapacity(id, 8);
-		int bufferIndex = id / LONG_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, LONG_ENTRIES_PER_FILE, 8);
+		long position = (long) id * 8;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putLong(offset, value, byteOrder);
+		markDirty(8);
 	}
 
 	public double getDouble(int id) {
 		if (id <= 0 || id > getMaximumId(8)) {
 			return 0;
 		}
-		int bufferIndex = id / LONG_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, LONG_ENTRIES_PER_FILE, 8);
+		long position = (long) id * 8;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		return buffer.getDouble(offset, byteOrder);
 	}
 
 	public void setDouble(int id, double value) {
 		ensureCapacity(id, 8);
-		int bufferIndex = id / LONG_ENTRIES_PER_FILE;
-		int offset = getOffset(id, bufferIndex, LONG_ENTRIES_PER_FILE, 8);
+		long position = (long) id * 8;
+		int bufferIndex = getBufferIndex(position);
+		int offset = getOffset(position, bufferIndex);
 		AtomicBuffer buffer = getBuffer(bufferIndex);
 		buffer.putDouble(offset, value, byteOrder);
+		markDirty(8);
 	}
 
 	protected AtomicBuffer getFirstBuffer() {
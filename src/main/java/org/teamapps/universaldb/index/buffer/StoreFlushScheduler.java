@@ -0,0 +1,190 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class StoreFlushScheduler {
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	//running schedulers by the path of their database, stores below a path are queued in its scheduler
+	private static final Map<File, StoreFlushScheduler> SCHEDULER_BY_PATH = new ConcurrentHashMap<>();
+	//stores that became dirty without a running scheduler, queued when a scheduler starts for their path
+	private static final Set<AbstractResizingAtomicStore> PENDING_STORES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	private final File path;
+	private final long intervalMillis;
+	private final long maxBytesPerRun;
+	//a store is queued once when it is written and stays queued until it has been flushed, closed or dropped
+	private final Queue<AbstractResizingAtomicStore> dirtyStores = new ConcurrentLinkedQueue<>();
+	private ScheduledExecutorService executor;
+
+	static StoreFlushScheduler getScheduler(File path) {
+		if (SCHEDULER_BY_PATH.isEmpty() || path == null) {
+			return null;
+		}
+		File parent = path.getAbsoluteFile();
+		while (parent != null) {
+			StoreFlushScheduler scheduler = SCHEDULER_BY_PATH.get(parent);
+			if (scheduler != null) {
+				return scheduler;
+			}
+			parent = parent.getParentFile();
+		}
+		return null;
+	}
+
+	static void addPendingStore(AbstractResizingAtomicStore store) {
+		PENDING_STORES.add(store);
+	}
+
+	static void removePendingStore(AbstractResizingAtomicStore store) {
+		PENDING_STORES.remove(store);
+	}
+
+	private void queuePendingStores() {
+		List<AbstractResizingAtomicStore> stores;
+		synchronized (PENDING_STORES) {
+			stores = new ArrayList<>(PENDING_STORES);
+		}
+		for (AbstractResizingAtomicStore store : stores) {
+			if (!store.isDirty()) {
+				PENDING_STORES.remove(store);
+			} else if (getScheduler(store.getPath()) == this) {
+				PENDING_STORES.remove(store);
+				store.queue(this);
+			}
+		}
+	}
+
+	void addDirtyStore(AbstractResizingAtomicStore store) {
+		dirtyStores.add(store);
+	}
+
+	void removeStore(AbstractResizingAtomicStore store) {
+		dirtyStores.remove(store);
+	}
+
+	public int getDirtyStoreCount() {
+		return dirtyStores.size();
+	}
+
+	public long flushDirtyStores(long maxBytes) {
+		//flushes at least one store, the written bytes of a store are the estimate for its I/O
+		long flushedBytes = 0;
+		int count = dirtyStores.size();
+		AbstractResizingAtomicStore store;
+		while (count-- > 0 && (store = dirtyStores.poll()) != null) {
+			//writes after this point queue the store again
+			store.setQueued(false);
+			long dirtyBytes = store.getDirtyBytes();
+			try {
+				store.flush();
+			} catch (RuntimeException e) {
+				logger.warn("Error flushing store:" + store + ", " + e.getMessage());
+			}
+			flushedBytes += dirtyBytes;
+			if (flushedBytes >= maxBytes) {
+				break;
+			}
+		}
+		return flushedBytes;
+	}
+
+	public StoreFlushScheduler(File path, long intervalMillis, long maxBytesPerRun) {
+		this.path = path.getAbsoluteFile();
+		this.intervalMillis = intervalMillis;
+		this.maxBytesPerRun = maxBytesPerRun;
+	}
+
+	public synchronized void start() {
+		if (executor != null) {
+			return;
+		}
+		if (SCHEDULER_BY_PATH.putIfAbsent(path, this) != null) {
+			throw new RuntimeException("Flush scheduler already running for path:" + path);
+		}
+		queuePendingStores();
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "store-flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> {
+			try {
+				flushDirtyStores(maxBytesPerRun);
+			} catch (Throwable e) {
+				logger.error("Error flushing dirty stores", e);
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (executor == null) {
+			return;
+		}
+		SCHEDULER_BY_PATH.remove(path, this);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(intervalMillis + 10_000, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+		//the remaining stores are flushed on close or queued again by the next scheduler
+		AbstractResizingAtomicStore store;
+		while ((store = dirtyStores.poll()) != null) {
+			store.setQueued(false);
+			addPendingStore(store);
+		}
+	}
+
+	public boolean isRunning() {
+		return executor != null;
+	}
+
+	public File getPath() {
+		return path;
+	}
+
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	public long getMaxBytesPerRun() {
+		return maxBytesPerRun;
+	}
+}
@@ -22,6 +22,7 @@ package org.teamapps.universaldb.index.file;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
 import org.teamapps.universaldb.index.binary.BinaryIndex;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.numeric.LongIndex;
 import org.teamapps.universaldb.index.text.CollectionTextSearchIndex;
 import org.teamapps.universaldb.index.text.TextIndex;
@@ -29,6 +30,7 @@ import org.teamapps.universaldb.transaction.DataType;
 import org.teamapps.universaldb.util.DataStreamUtil;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
@@ -236,6 +238,16 @@ public class FileIndex extends AbstractIndex<FileValue, FileFilter> {
 		}
 	}
 
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		List<AbstractResizingAtomicStore> stores = new ArrayList<>();
+		stores.addAll(uuidIndex.getStores());
+		stores.addAll(hashIndex.getStores());
+		stores.addAll(sizeIndex.getStores());
+		stores.addAll(metaDataIndex.getStores());
+		return stores;
+	}
+
 	@Override
 	public void close() {
 		if (fileDataIndex != null) {
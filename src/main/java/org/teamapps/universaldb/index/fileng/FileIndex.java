@@ -22,6 +22,7 @@ package org.teamapps.universaldb.index.fileng;
 import org.apache.commons.io.IOUtils;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.file.FileFilter;
 import org.teamapps.universaldb.index.numeric.LongIndex;
 import org.teamapps.universaldb.index.numeric.ShortIndex;
@@ -30,6 +31,7 @@ import org.teamapps.universaldb.index.text.TextIndex;
 import org.teamapps.universaldb.util.DataStreamUtil;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
@@ -319,6 +321,18 @@ public class FileIndex extends AbstractIndex<FileValue, FileFilter> implements F
 		return null;
 	}
 
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		List<AbstractResizingAtomicStore> stores = new ArrayList<>();
+		stores.addAll(hashIndex.getStores());
+		stores.addAll(nameIndex.getStores());
+		stores.addAll(sizeIndex.getStores());
+		if (versionIndex != null) {
+			stores.addAll(versionIndex.getStores());
+		}
+		return stores;
+	}
+
 	@Override
 	public void close() {
 		fullTextIndex.commit(true);
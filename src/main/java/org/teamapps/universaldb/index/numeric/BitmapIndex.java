@@ -0,0 +1,194 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.util.SnapshotFile;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+public class BitmapIndex {
+	private static final Logger log = LoggerFactory.getLogger(BitmapIndex.class);
+	private static final int VERSION = 1;
+
+	private final SnapshotFile snapshot;
+	private final Map<Short, BitSet> bitmapByValue = new HashMap<>();
+	private final BitSet indexedIds = new BitSet();
+
+	public BitmapIndex(File path, String name, TableIndex tableIndex, ShortIndex shortIndex) {
+		this.snapshot = new SnapshotFile(new File(path, name + "-bitmap.idx"), VERSION);
+		if (!snapshot.load(this::read)) {
+			bitmapByValue.clear();
+			indexedIds.clear();
+			long time = System.currentTimeMillis();
+			BitSet ids = tableIndex.getRecords();
+			BitSet deletedRecords = tableIndex.getDeletedRecords();
+			if (deletedRecords != null) {
+				ids.or(deletedRecords);
+			}
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				setValue(id, (short) 0, shortIndex.getValue(id));
+			}
+			log.info("Rebuilt bitmap index:" + snapshot.getFile().getName() + ", values:" + bitmapByValue.size() + ", time:" + (System.currentTimeMillis() - time));
+		}
+	}
+
+	//zero values are not indexed
+	public synchronized void setValue(int id, short previousValue, short value) {
+		if (previousValue != 0) {
+			BitSet bitmap = bitmapByValue.get(previousValue);
+			if (bitmap != null) {
+				bitmap.clear(id);
+				if (bitmap.isEmpty()) {
+					bitmapByValue.remove(previousValue);
+				}
+			}
+			indexedIds.clear(id);
+		}
+		if (value != 0) {
+			bitmapByValue.computeIfAbsent(value, v -> new BitSet()).set(id);
+			indexedIds.set(id);
+		}
+	}
+
+	public BitSet filter(BitSet records, NumericFilter filter) {
+		IntPredicate matcher = createMatcher(filter);
+		if (matcher == null) {
+			return null;
+		}
+		BitSet result = new BitSet();
+		synchronized (this) {
+			for (Map.Entry<Short, BitSet> entry : bitmapByValue.entrySet()) {
+				if (matcher.test(entry.getKey())) {
+					result.or(entry.getValue());
+				}
+			}
+			if (matcher.test(0)) {
+				BitSet empty = (BitSet) records.clone();
+				empty.andNot(indexedIds);
+				result.or(empty);
+			}
+		}
+		result.and(records);
+		return result;
+	}
+
+	private static IntPredicate createMatcher(NumericFilter filter) {
+		short value1 = filter.getValue1() != null ? filter.getValue1().shortValue() : 0;
+		short value2 = filter.getValue2() != null ? filter.getValue2().shortValue() : 0;
+		Set<Integer> set = getValueSet(filter);
+		switch (filter.getFilterType()) {
+			case EQUALS:
+				return value -> value == value1;
+			case NOT_EQUALS:
+				return value -> value != value1;
+			case GREATER:
+				return value -> value > value1;
+			case GREATER_EQUALS:
+				return value -> value >= value1;
+			case SMALLER:
+				return value -> value < value1;
+			case SMALLER_EQUALS:
+				return value -> value <= value1;
+			case BETWEEN:
+				return value -> value >= value1 && value <= value2;
+			case BETWEEN_EXCLUSIVE:
+				return value -> value > value1 && value < value2;
+			case CONTAINS:
+				return set::contains;
+			case CONTAINS_NOT:
+				return value -> !set.contains(value);
+		}
+		return null;
+	}
+
+	private static Set<Integer> getValueSet(NumericFilter filter) {
+		Set<Integer> set = new HashSet<>();
+		if (filter.getValues() != null) {
+			for (Number value : filter.getValues()) {
+				set.add((int) value.shortValue());
+			}
+		}
+		return set;
+	}
+
+	public synchronized Map<Short, Integer> getValueCounts(BitSet records) {
+		Map<Short, Integer> countByValue = new HashMap<>();
+		for (Map.Entry<Short, BitSet> entry : bitmapByValue.entrySet()) {
+			BitSet bitSet = (BitSet) entry.getValue().clone();
+			bitSet.and(records);
+			int count = bitSet.cardinality();
+			if (count > 0) {
+				countByValue.put(entry.getKey(), count);
+			}
+		}
+		BitSet empty = (BitSet) records.clone();
+		empty.andNot(indexedIds);
+		if (!empty.isEmpty()) {
+			countByValue.put((short) 0, empty.cardinality());
+		}
+		return countByValue;
+	}
+
+	public synchronized int getCount(short value) {
+		BitSet bitmap = bitmapByValue.get(value);
+		return bitmap != null ? bitmap.cardinality() : 0;
+	}
+
+	public synchronized void close() {
+		snapshot.write(dos -> {
+			dos.writeInt(bitmapByValue.size());
+			for (Map.Entry<Short, BitSet> entry : bitmapByValue.entrySet()) {
+				long[] words = entry.getValue().toLongArray();
+				dos.writeShort(entry.getKey());
+				dos.writeInt(words.length);
+				for (long word : words) {
+					dos.writeLong(word);
+				}
+			}
+			dos.writeInt(bitmapByValue.size());
+		});
+	}
+
+	public synchronized void drop() {
+		bitmapByValue.clear();
+		indexedIds.clear();
+		snapshot.delete();
+	}
+
+	private boolean read(DataInputStream dis) throws IOException {
+		int values = dis.readInt();
+		for (int i = 0; i < values; i++) {
+			short value = dis.readShort();
+			long[] words = new long[dis.readInt()];
+			for (int j = 0; j < words.length; j++) {
+				words[j] = dis.readLong();
+			}
+			BitSet bitmap = BitSet.valueOf(words);
+			bitmapByValue.put(value, bitmap);
+			indexedIds.or(bitmap);
+		}
+		return dis.readInt() == values;
+	}
+}
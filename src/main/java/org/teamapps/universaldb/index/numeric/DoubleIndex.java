@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.numeric;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -29,6 +30,7 @@ import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -36,10 +38,12 @@ import java.util.Set;
 public class DoubleIndex extends AbstractIndex<Double, NumericFilter> implements NumericIndex {
 
 	private PrimitiveEntryAtomicStore atomicStore;
+	private final NumericSecondaryIndexes secondaryIndexes;
 
 	public DoubleIndex(String name, TableIndex tableIndex, ColumnType columnType) {
 		super(name, tableIndex, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name);
+		secondaryIndexes = new NumericSecondaryIndexes(tableIndex.getDataPath(), name, tableIndex, id -> SortedNumericIndex.getSortableKey(getValue(id)), value -> SortedNumericIndex.getSortableKey(value.doubleValue()));
 	}
 
 	@Override
@@ -67,6 +71,7 @@ public class DoubleIndex extends AbstractIndex<Double, NumericFilter> implements
 	}
 
 	public void setValue(int id, double value) {
+		secondaryIndexes.setValue(id, SortedNumericIndex.getSortableKey(value));
 		atomicStore.setDouble(id, value);
 	}
 
@@ -99,18 +104,59 @@ public class DoubleIndex extends AbstractIndex<Double, NumericFilter> implements
 		}
 	}
 
+	@Override
+	public void enableSortedIndex() {
+		secondaryIndexes.enableSortedIndex();
+	}
+
+	@Override
+	public boolean isSortedIndex() {
+		return secondaryIndexes.isSortedIndex();
+	}
+
+	@Override
+	public void enableHashIndex() {
+		secondaryIndexes.enableHashIndex();
+	}
+
+	@Override
+	public boolean isHashIndex() {
+		return secondaryIndexes.isHashIndex();
+	}
+
+	@Override
+	public void enableZoneMap() {
+		secondaryIndexes.enableZoneMap();
+	}
+
+	@Override
+	public boolean isZoneMap() {
+		return secondaryIndexes.isZoneMap();
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		secondaryIndexes.close();
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		secondaryIndexes.drop();
 	}
 
 	@Override
 	public BitSet filter(BitSet records, NumericFilter numericFilter) {
+		return secondaryIndexes.filter(records, numericFilter, candidates -> filterRecords(candidates, numericFilter));
+	}
+
+	private BitSet filterRecords(BitSet records, NumericFilter numericFilter) {
 		Set<Double> set = new HashSet<>();
 		if (numericFilter.getValues() != null) {
 			for (Number value : numericFilter.getValues()) {
@@ -155,91 +201,52 @@ public class DoubleIndex extends AbstractIndex<Double, NumericFilter> implements
 	}
 
 	public BitSet filterEquals(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value == compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, compare);
 	}
 
 	public BitSet filterNotEquals(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value != compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return negateInput(bitSet, filterEquals(bitSet, compare));
 	}
 
 	public BitSet filterGreater(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value > compare) {
-				result.set(id);
-			}
+		if (compare == Double.POSITIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Math.nextUp(compare), Double.POSITIVE_INFINITY);
 	}
 
 	public BitSet filterGreaterOrEquals(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value >= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, Double.POSITIVE_INFINITY);
 	}
 
 	public BitSet filterSmaller(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value < compare) {
-				result.set(id);
-			}
+		if (compare == Double.NEGATIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Double.NEGATIVE_INFINITY, Math.nextDown(compare));
 	}
 
 	public BitSet filterSmallerOrEquals(BitSet bitSet, double compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value <= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, Double.NEGATIVE_INFINITY, compare);
 	}
 
 	public BitSet filterBetween(BitSet bitSet, double start, double end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value >= start && value <= end) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, start, end);
 	}
 
 	public BitSet filterBetweenExclusive(BitSet bitSet, double start, double end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			double value = getValue(id);
-			if (value > start && value < end) {
-				result.set(id);
-			}
+		if (start == Double.POSITIVE_INFINITY || end == Double.NEGATIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Math.nextUp(start), Math.nextDown(end));
+	}
+
+	private BitSet filterRange(BitSet bitSet, double min, double max) {
+		//a NaN bound matches nothing, like the comparison operators
+		return filterWords(bitSet, firstId -> atomicStore.matchDoubleRange(firstId, min, max), id -> {
+			double value = getValue(id);
+			return value >= min && value <= max;
+		});
 	}
 
 	public BitSet filterContains(BitSet bitSet, Set<Double> set) {
@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.numeric;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -33,10 +34,12 @@ import java.util.*;
 public class FloatIndex extends AbstractIndex<Float, NumericFilter> implements NumericIndex {
 
 	private PrimitiveEntryAtomicStore atomicStore;
+	private final NumericSecondaryIndexes secondaryIndexes;
 
 	public FloatIndex(String name, TableIndex table, ColumnType columnType) {
 		super(name, table, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(table.getDataPath(), name);
+		secondaryIndexes = new NumericSecondaryIndexes(table.getDataPath(), name, table, id -> SortedNumericIndex.getSortableKey(getValue(id)), value -> SortedNumericIndex.getSortableKey(value.floatValue()));
 	}
 
 	@Override
@@ -64,6 +67,7 @@ public class FloatIndex extends AbstractIndex<Float, NumericFilter> implements N
 	}
 
 	public void setValue(int id, float value) {
+		secondaryIndexes.setValue(id, SortedNumericIndex.getSortableKey(value));
 		atomicStore.setFloat(id, value);
 	}
 
@@ -108,18 +112,59 @@ public class FloatIndex extends AbstractIndex<Float, NumericFilter> implements N
 	}
 
 
+	@Override
+	public void enableSortedIndex() {
+		secondaryIndexes.enableSortedIndex();
+	}
+
+	@Override
+	public boolean isSortedIndex() {
+		return secondaryIndexes.isSortedIndex();
+	}
+
+	@Override
+	public void enableHashIndex() {
+		secondaryIndexes.enableHashIndex();
+	}
+
+	@Override
+	public boolean isHashIndex() {
+		return secondaryIndexes.isHashIndex();
+	}
+
+	@Override
+	public void enableZoneMap() {
+		secondaryIndexes.enableZoneMap();
+	}
+
+	@Override
+	public boolean isZoneMap() {
+		return secondaryIndexes.isZoneMap();
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		secondaryIndexes.close();
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		secondaryIndexes.drop();
 	}
 
 	@Override
 	public BitSet filter(BitSet records, NumericFilter numericFilter) {
+		return secondaryIndexes.filter(records, numericFilter, candidates -> filterRecords(candidates, numericFilter));
+	}
+
+	private BitSet filterRecords(BitSet records, NumericFilter numericFilter) {
 		Set<Float> set = new HashSet<>();
 		if (numericFilter.getValues() != null) {
 			for (Number value : numericFilter.getValues()) {
@@ -152,91 +197,52 @@ public class FloatIndex extends AbstractIndex<Float, NumericFilter> implements N
 	}
 	
 	public BitSet filterEquals(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value == compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, compare);
 	}
 
 	public BitSet filterNotEquals(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value != compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return negateInput(bitSet, filterEquals(bitSet, compare));
 	}
 
 	public BitSet filterGreater(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value > compare) {
-				result.set(id);
-			}
+		if (compare == Float.POSITIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Math.nextUp(compare), Float.POSITIVE_INFINITY);
 	}
 
 	public BitSet filterGreaterOrEquals(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value >= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, Float.POSITIVE_INFINITY);
 	}
 
 	public BitSet filterSmaller(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value < compare) {
-				result.set(id);
-			}
+		if (compare == Float.NEGATIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Float.NEGATIVE_INFINITY, Math.nextDown(compare));
 	}
 
 	public BitSet filterSmallerOrEquals(BitSet bitSet, float compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value <= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, Float.NEGATIVE_INFINITY, compare);
 	}
 
 	public BitSet filterBetween(BitSet bitSet, float start, float end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value >= start && value <= end) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, start, end);
 	}
 
 	public BitSet filterBetweenExclusive(BitSet bitSet, float start, float end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			float value = getValue(id);
-			if (value > start && value < end) {
-				result.set(id);
-			}
+		if (start == Float.POSITIVE_INFINITY || end == Float.NEGATIVE_INFINITY) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Math.nextUp(start), Math.nextDown(end));
+	}
+
+	private BitSet filterRange(BitSet bitSet, float min, float max) {
+		//a NaN bound matches nothing, like the comparison operators
+		return filterWords(bitSet, firstId -> atomicStore.matchFloatRange(firstId, min, max), id -> {
+			float value = getValue(id);
+			return value >= min && value <= max;
+		});
 	}
 
 	public BitSet filterContains(BitSet bitSet, Set<Float> set) {
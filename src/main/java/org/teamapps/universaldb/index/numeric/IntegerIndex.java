@@ -19,8 +19,12 @@
  */
 package org.teamapps.universaldb.index.numeric;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
+import org.teamapps.universaldb.index.buffer.CompressedNumericStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -29,11 +33,16 @@ import java.util.*;
 
 public class IntegerIndex extends AbstractIndex<Integer, NumericFilter> implements NumericIndex {
 
+	private static final Logger log = LoggerFactory.getLogger(IntegerIndex.class);
+
 	private PrimitiveEntryAtomicStore atomicStore;
+	private final NumericSecondaryIndexes secondaryIndexes;
+	private CompressedNumericStore compressedStore;
 
 	public IntegerIndex(String name, TableIndex tableIndex, ColumnType columnType) {
 		super(name, tableIndex, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name);
+		secondaryIndexes = new NumericSecondaryIndexes(tableIndex.getDataPath(), name, tableIndex, this::getValue, value -> value.intValue());
 	}
 
 	@Override
@@ -57,11 +66,19 @@ public class IntegerIndex extends AbstractIndex<Integer, NumericFilter> implemen
 	}
 
 	public int getValue(int id) {
+		if (compressedStore != null) {
+			return (int) compressedStore.getValue(id);
+		}
 		return atomicStore.getInt(id);
 	}
 
 	public void setValue(int id, int value) {
-		atomicStore.setInt(id, value);
+		secondaryIndexes.setValue(id, value);
+		if (compressedStore != null) {
+			compressedStore.setValue(id, value);
+		} else {
+			atomicStore.setInt(id, value);
+		}
 	}
 
 	public List<SortEntry> sortRecords(List<SortEntry> sortEntries, boolean ascending, UserContext userContext) {
@@ -105,18 +122,100 @@ public class IntegerIndex extends AbstractIndex<Integer, NumericFilter> implemen
 		} catch (EOFException ignore) {}
 	}
 
+	@Override
+	public void enableSortedIndex() {
+		secondaryIndexes.enableSortedIndex();
+	}
+
+	@Override
+	public boolean isSortedIndex() {
+		return secondaryIndexes.isSortedIndex();
+	}
+
+	@Override
+	public void enableHashIndex() {
+		secondaryIndexes.enableHashIndex();
+	}
+
+	@Override
+	public boolean isHashIndex() {
+		return secondaryIndexes.isHashIndex();
+	}
+
+	@Override
+	public void enableZoneMap() {
+		secondaryIndexes.enableZoneMap();
+	}
+
+	@Override
+	public boolean isZoneMap() {
+		return secondaryIndexes.isZoneMap();
+	}
+
+	public void enableCompression() {
+		if (compressedStore != null) {
+			return;
+		}
+		CompressedNumericStore compressedStore = new CompressedNumericStore(getDataPath(), getName());
+		if (atomicStore.isReadOnly()) {
+			//no migration, the blocks are used once the writing process has created them
+			if (compressedStore.getBlockStore().getTotalCapacity() > 0) {
+				this.compressedStore = compressedStore;
+			}
+			return;
+		}
+		BitSet ids = getTable().getRecords();
+		BitSet deletedRecords = getTable().getDeletedRecords();
+		if (deletedRecords != null) {
+			ids.or(deletedRecords);
+		}
+		//move the values of the full width store, an interrupted migration is repeated on the next start
+		long time = System.currentTimeMillis();
+		if (compressedStore.copyValues(ids.length() - 1, atomicStore::getInt)) {
+			compressedStore.flush();
+			atomicStore.drop();
+			atomicStore = new PrimitiveEntryAtomicStore(getDataPath(), getName());
+			log.info("Migrated numeric column to compressed blocks:" + getFQN() + ", time:" + (System.currentTimeMillis() - time));
+		}
+		this.compressedStore = compressedStore;
+	}
+
+	public boolean isCompressed() {
+		return compressedStore != null;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		if (compressedStore != null) {
+			return Arrays.asList(atomicStore, compressedStore.getBlockStore());
+		}
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		if (compressedStore != null) {
+			compressedStore.close();
+		}
+		secondaryIndexes.close();
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		if (compressedStore != null) {
+			compressedStore.drop();
+		}
+		secondaryIndexes.drop();
 	}
 
 	@Override
 	public BitSet filter(BitSet records, NumericFilter numericFilter) {
+		return secondaryIndexes.filter(records, numericFilter, candidates -> filterRecords(candidates, numericFilter));
+	}
+
+	private BitSet filterRecords(BitSet records, NumericFilter numericFilter) {
 		Set<Integer> set = new HashSet<>();
 		if (numericFilter.getValues() != null) {
 			for (Number value : numericFilter.getValues()) {
@@ -149,91 +248,58 @@ public class IntegerIndex extends AbstractIndex<Integer, NumericFilter> implemen
 	}
 
 	public BitSet filterEquals(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value == compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, compare);
 	}
 
 	public BitSet filterNotEquals(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value != compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return negateInput(bitSet, filterEquals(bitSet, compare));
 	}
 
 	public BitSet filterGreater(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value > compare) {
-				result.set(id);
-			}
+		if (compare == Integer.MAX_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, compare + 1, Integer.MAX_VALUE);
 	}
 
 	public BitSet filterGreaterOrEquals(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value >= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, Integer.MAX_VALUE);
 	}
 
 	public BitSet filterSmaller(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value < compare) {
-				result.set(id);
-			}
+		if (compare == Integer.MIN_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Integer.MIN_VALUE, compare - 1);
 	}
 
 	public BitSet filterSmallerOrEquals(BitSet bitSet, int compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value <= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, Integer.MIN_VALUE, compare);
 	}
 
 	public BitSet filterBetween(BitSet bitSet, int start, int end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value >= start && value <= end) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, start, end);
 	}
 
 	public BitSet filterBetweenExclusive(BitSet bitSet, int start, int end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int value = getValue(id);
-			if (value > start && value < end) {
-				result.set(id);
-			}
+		if (start == Integer.MAX_VALUE || end == Integer.MIN_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, start + 1, end - 1);
+	}
+
+	private BitSet filterRange(BitSet bitSet, int min, int max) {
+		if (compressedStore != null) {
+			CompressedNumericStore.BlockScanner scanner = compressedStore.createScanner();
+			return filterWords(bitSet, firstId -> scanner.matchRange(firstId, min, max), id -> {
+				int value = getValue(id);
+				return value >= min && value <= max;
+			});
+		}
+		return filterWords(bitSet, firstId -> atomicStore.matchIntRange(firstId, min, max), id -> {
+			int value = getValue(id);
+			return value >= min && value <= max;
+		});
 	}
 
 	public BitSet filterContains(BitSet bitSet, Set<Integer> set) {
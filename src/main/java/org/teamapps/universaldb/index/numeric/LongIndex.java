@@ -19,8 +19,12 @@
  */
 package org.teamapps.universaldb.index.numeric;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
+import org.teamapps.universaldb.index.buffer.CompressedNumericStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -28,18 +32,25 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class LongIndex extends AbstractIndex<Long, NumericFilter> implements NumericIndex {
 
+	private static final Logger log = LoggerFactory.getLogger(LongIndex.class);
+
 	private PrimitiveEntryAtomicStore atomicStore;
+	private final NumericSecondaryIndexes secondaryIndexes;
+	private CompressedNumericStore compressedStore;
 
 	public LongIndex(String name, TableIndex tableIndex, ColumnType columnType) {
 		super(name, tableIndex, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name);
+		secondaryIndexes = new NumericSecondaryIndexes(tableIndex.getDataPath(), name, tableIndex, this::getValue, value -> value.longValue());
 	}
 
 
@@ -64,11 +75,19 @@ public class LongIndex extends AbstractIndex<Long, NumericFilter> implements Num
 	}
 
 	public long getValue(int id) {
+		if (compressedStore != null) {
+			return compressedStore.getValue(id);
+		}
 		return atomicStore.getLong(id);
 	}
 
 	public void setValue(int id, long value) {
-		atomicStore.setLong(id, value);
+		secondaryIndexes.setValue(id, value);
+		if (compressedStore != null) {
+			compressedStore.setValue(id, value);
+		} else {
+			atomicStore.setLong(id, value);
+		}
 	}
 
 	@Override
@@ -112,18 +131,100 @@ public class LongIndex extends AbstractIndex<Long, NumericFilter> implements Num
 		}
 	}
 
+	@Override
+	public void enableSortedIndex() {
+		secondaryIndexes.enableSortedIndex();
+	}
+
+	@Override
+	public boolean isSortedIndex() {
+		return secondaryIndexes.isSortedIndex();
+	}
+
+	@Override
+	public void enableHashIndex() {
+		secondaryIndexes.enableHashIndex();
+	}
+
+	@Override
+	public boolean isHashIndex() {
+		return secondaryIndexes.isHashIndex();
+	}
+
+	@Override
+	public void enableZoneMap() {
+		secondaryIndexes.enableZoneMap();
+	}
+
+	@Override
+	public boolean isZoneMap() {
+		return secondaryIndexes.isZoneMap();
+	}
+
+	public void enableCompression() {
+		if (compressedStore != null) {
+			return;
+		}
+		CompressedNumericStore compressedStore = new CompressedNumericStore(getDataPath(), getName());
+		if (atomicStore.isReadOnly()) {
+			//no migration, the blocks are used once the writing process has created them
+			if (compressedStore.getBlockStore().getTotalCapacity() > 0) {
+				this.compressedStore = compressedStore;
+			}
+			return;
+		}
+		BitSet ids = getTable().getRecords();
+		BitSet deletedRecords = getTable().getDeletedRecords();
+		if (deletedRecords != null) {
+			ids.or(deletedRecords);
+		}
+		//move the values of the full width store, an interrupted migration is repeated on the next start
+		long time = System.currentTimeMillis();
+		if (compressedStore.copyValues(ids.length() - 1, atomicStore::getLong)) {
+			compressedStore.flush();
+			atomicStore.drop();
+			atomicStore = new PrimitiveEntryAtomicStore(getDataPath(), getName());
+			log.info("Migrated numeric column to compressed blocks:" + getFQN() + ", time:" + (System.currentTimeMillis() - time));
+		}
+		this.compressedStore = compressedStore;
+	}
+
+	public boolean isCompressed() {
+		return compressedStore != null;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		if (compressedStore != null) {
+			return Arrays.asList(atomicStore, compressedStore.getBlockStore());
+		}
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		if (compressedStore != null) {
+			compressedStore.close();
+		}
+		secondaryIndexes.close();
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		if (compressedStore != null) {
+			compressedStore.drop();
+		}
+		secondaryIndexes.drop();
 	}
 
 	@Override
 	public BitSet filter(BitSet records, NumericFilter numericFilter) {
+		return secondaryIndexes.filter(records, numericFilter, candidates -> filterRecords(candidates, numericFilter));
+	}
+
+	private BitSet filterRecords(BitSet records, NumericFilter numericFilter) {
 		Set<Long> set = new HashSet<>();
 		if (numericFilter.getValues() != null) {
 			for (Number value : numericFilter.getValues()) {
@@ -156,91 +257,58 @@ public class LongIndex extends AbstractIndex<Long, NumericFilter> implements Num
 	}
 
 	public BitSet filterEquals(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value == compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, compare);
 	}
 
 	public BitSet filterNotEquals(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value != compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return negateInput(bitSet, filterEquals(bitSet, compare));
 	}
 
 	public BitSet filterGreater(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value > compare) {
-				result.set(id);
-			}
+		if (compare == Long.MAX_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, compare + 1, Long.MAX_VALUE);
 	}
 
 	public BitSet filterGreaterOrEquals(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value >= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, compare, Long.MAX_VALUE);
 	}
 
 	public BitSet filterSmaller(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value < compare) {
-				result.set(id);
-			}
+		if (compare == Long.MIN_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, Long.MIN_VALUE, compare - 1);
 	}
 
 	public BitSet filterSmallerOrEquals(BitSet bitSet, long compare) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value <= compare) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, Long.MIN_VALUE, compare);
 	}
 
 	public BitSet filterBetween(BitSet bitSet, long start, long end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value >= start && value <= end) {
-				result.set(id);
-			}
-		}
-		return result;
+		return filterRange(bitSet, start, end);
 	}
 
 	public BitSet filterBetweenExclusive(BitSet bitSet, long start, long end) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			long value = getValue(id);
-			if (value > start && value < end) {
-				result.set(id);
-			}
+		if (start == Long.MAX_VALUE || end == Long.MIN_VALUE) {
+			return new BitSet();
 		}
-		return result;
+		return filterRange(bitSet, start + 1, end - 1);
+	}
+
+	private BitSet filterRange(BitSet bitSet, long min, long max) {
+		if (compressedStore != null) {
+			CompressedNumericStore.BlockScanner scanner = compressedStore.createScanner();
+			return filterWords(bitSet, firstId -> scanner.matchRange(firstId, min, max), id -> {
+				long value = getValue(id);
+				return value >= min && value <= max;
+			});
+		}
+		return filterWords(bitSet, firstId -> atomicStore.matchLongRange(firstId, min, max), id -> {
+			long value = getValue(id);
+			return value >= min && value <= max;
+		});
 	}
 
 	public BitSet filterContains(BitSet bitSet, Set<Long> set) {
@@ -0,0 +1,94 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import org.teamapps.universaldb.index.HashIndex;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+public class NumericHashIndex extends HashIndex<Long> {
+
+	public NumericHashIndex(File path, String name, TableIndex tableIndex, IntToLongFunction keyFunction) {
+		super(new File(path, name + "-hash.idx"));
+		open(tableIndex, id -> getKey(keyFunction.applyAsLong(id)));
+	}
+
+	private static Long getKey(long value) {
+		return value != 0 ? value : null;
+	}
+
+	public void setValue(int id, long previousKey, long key) {
+		updateKey(id, getKey(previousKey), getKey(key));
+	}
+
+	//returns null for filter types that cannot be resolved by key lookups
+	public BitSet filter(BitSet records, NumericFilter filter, ToLongFunction<Number> keyFunction) {
+		switch (filter.getFilterType()) {
+			case EQUALS:
+				return filterEquals(records, keyFunction.applyAsLong(filter.getValue1()));
+			case NOT_EQUALS:
+				return negate(records, filterEquals(records, keyFunction.applyAsLong(filter.getValue1())));
+			case CONTAINS:
+				return filterContains(records, filter.getValues(), keyFunction);
+			case CONTAINS_NOT:
+				return negate(records, filterContains(records, filter.getValues(), keyFunction));
+		}
+		return null;
+	}
+
+	public BitSet filterEquals(BitSet records, long key) {
+		//zero values are not indexed
+		return key != 0 ? getRecords(key, records) : getUnindexedRecords(records);
+	}
+
+	private BitSet filterContains(BitSet records, List<Number> values, ToLongFunction<Number> keyFunction) {
+		BitSet result = new BitSet();
+		if (values != null) {
+			for (Number value : values) {
+				result.or(filterEquals(records, keyFunction.applyAsLong(value)));
+			}
+		}
+		return result;
+	}
+
+	private BitSet negate(BitSet records, BitSet hits) {
+		BitSet result = (BitSet) records.clone();
+		result.andNot(hits);
+		return result;
+	}
+
+	@Override
+	protected void writeKey(DataOutputStream dataOutputStream, Long key) throws IOException {
+		dataOutputStream.writeLong(key);
+	}
+
+	@Override
+	protected Long readKey(DataInputStream dataInputStream) throws IOException {
+		return dataInputStream.readLong();
+	}
+}
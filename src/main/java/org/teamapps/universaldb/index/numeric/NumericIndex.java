@@ -24,4 +24,16 @@ import java.util.BitSet;
 public interface NumericIndex {
 
 	BitSet filter(BitSet records, NumericFilter numericFilter);
+
+	void enableSortedIndex();
+
+	boolean isSortedIndex();
+
+	void enableHashIndex();
+
+	boolean isHashIndex();
+
+	void enableZoneMap();
+
+	boolean isZoneMap();
 }
@@ -0,0 +1,135 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+//the optional indexes of a numeric column, all of them work on sortable long keys
+class NumericSecondaryIndexes {
+
+	private final File path;
+	private final String name;
+	private final TableIndex table;
+	private final IntToLongFunction keyFunction;
+	private final ToLongFunction<Number> valueKeyFunction;
+	private SortedNumericIndex sortedIndex;
+	private NumericHashIndex hashIndex;
+	private ZoneMap zoneMap;
+
+	NumericSecondaryIndexes(File path, String name, TableIndex table, IntToLongFunction keyFunction, ToLongFunction<Number> valueKeyFunction) {
+		this.path = path;
+		this.name = name;
+		this.table = table;
+		this.keyFunction = keyFunction;
+		this.valueKeyFunction = valueKeyFunction;
+	}
+
+	void enableSortedIndex() {
+		if (sortedIndex == null) {
+			sortedIndex = new SortedNumericIndex(path, name, table, keyFunction);
+		}
+	}
+
+	boolean isSortedIndex() {
+		return sortedIndex != null;
+	}
+
+	void enableHashIndex() {
+		if (hashIndex == null) {
+			hashIndex = new NumericHashIndex(path, name, table, keyFunction);
+		}
+	}
+
+	boolean isHashIndex() {
+		return hashIndex != null;
+	}
+
+	void enableZoneMap() {
+		if (zoneMap == null) {
+			zoneMap = new ZoneMap(path, name, table, keyFunction);
+		}
+	}
+
+	boolean isZoneMap() {
+		return zoneMap != null;
+	}
+
+	//must be called before the new value is stored
+	void setValue(int id, long key) {
+		if (sortedIndex != null || hashIndex != null) {
+			long previousKey = keyFunction.applyAsLong(id);
+			if (sortedIndex != null) {
+				sortedIndex.setValue(id, previousKey, key);
+			}
+			if (hashIndex != null) {
+				hashIndex.setValue(id, previousKey, key);
+			}
+		}
+		if (zoneMap != null) {
+			zoneMap.setValue(id, key);
+		}
+	}
+
+	BitSet filter(BitSet records, NumericFilter numericFilter, Function<BitSet, BitSet> scanFunction) {
+		if (hashIndex != null) {
+			BitSet result = hashIndex.filter(records, numericFilter, valueKeyFunction);
+			if (result != null) {
+				return result;
+			}
+		}
+		if (sortedIndex != null) {
+			return sortedIndex.filter(records, numericFilter, valueKeyFunction);
+		}
+		if (zoneMap != null) {
+			return zoneMap.filter(records, numericFilter, valueKeyFunction, scanFunction);
+		}
+		return scanFunction.apply(records);
+	}
+
+	void close() {
+		if (sortedIndex != null) {
+			sortedIndex.close();
+		}
+		if (hashIndex != null) {
+			hashIndex.close();
+		}
+		if (zoneMap != null) {
+			zoneMap.close();
+		}
+	}
+
+	void drop() {
+		if (sortedIndex != null) {
+			sortedIndex.drop();
+		}
+		if (hashIndex != null) {
+			hashIndex.drop();
+		}
+		if (zoneMap != null) {
+			zoneMap.drop();
+		}
+	}
+}
@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.numeric;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 
@@ -33,10 +34,13 @@ import java.util.*;
 public class ShortIndex extends AbstractIndex<Short, NumericFilter> implements NumericIndex {
 
 	private PrimitiveEntryAtomicStore atomicStore;
+	private final NumericSecondaryIndexes secondaryIndexes;
+	private BitmapIndex bitmapIndex;
 
 	public ShortIndex(String name, TableIndex tableIndex, ColumnType columnType) {
 		super(name, tableIndex, columnType, FullTextIndexingOptions.NOT_INDEXED);
 		atomicStore = new PrimitiveEntryAtomicStore(tableIndex.getDataPath(), name);
+		secondaryIndexes = new NumericSecondaryIndexes(tableIndex.getDataPath(), name, tableIndex, this::getValue, value -> value.shortValue());
 	}
 
 	@Override
@@ -64,6 +68,10 @@ public class ShortIndex extends AbstractIndex<Short, NumericFilter> implements N
 	}
 
 	public void setValue(int id, short value) {
+		if (bitmapIndex != null) {
+			bitmapIndex.setValue(id, getValue(id), value);
+		}
+		secondaryIndexes.setValue(id, value);
 		atomicStore.setShort(id, value);
 	}
 
@@ -107,18 +115,89 @@ public class ShortIndex extends AbstractIndex<Short, NumericFilter> implements N
 		} catch (EOFException ignore) {}
 	}
 
+	@Override
+	public void enableSortedIndex() {
+		secondaryIndexes.enableSortedIndex();
+	}
+
+	@Override
+	public boolean isSortedIndex() {
+		return secondaryIndexes.isSortedIndex();
+	}
+
+	@Override
+	public void enableHashIndex() {
+		secondaryIndexes.enableHashIndex();
+	}
+
+	@Override
+	public boolean isHashIndex() {
+		return secondaryIndexes.isHashIndex();
+	}
+
+	@Override
+	public void enableZoneMap() {
+		secondaryIndexes.enableZoneMap();
+	}
+
+	@Override
+	public boolean isZoneMap() {
+		return secondaryIndexes.isZoneMap();
+	}
+
+	public void enableBitmapIndex() {
+		if (bitmapIndex == null) {
+			bitmapIndex = new BitmapIndex(getDataPath(), getName(), getTable(), this);
+		}
+	}
+
+	public boolean isBitmapIndex() {
+		return bitmapIndex != null;
+	}
+
+	public Map<Short, Integer> getValueCounts(BitSet records) {
+		if (bitmapIndex != null) {
+			return bitmapIndex.getValueCounts(records);
+		}
+		Map<Short, Integer> countByValue = new HashMap<>();
+		for (int id = records.nextSetBit(0); id >= 0; id = records.nextSetBit(id + 1)) {
+			countByValue.merge(getValue(id), 1, Integer::sum);
+		}
+		return countByValue;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
+		secondaryIndexes.close();
+		if (bitmapIndex != null) {
+			bitmapIndex.close();
+		}
 	}
 
 	@Override
 	public void drop() {
 		atomicStore.drop();
+		secondaryIndexes.drop();
+		if (bitmapIndex != null) {
+			bitmapIndex.drop();
+		}
 	}
 
 	@Override
 	public BitSet filter(BitSet records, NumericFilter numericFilter) {
+		if (bitmapIndex != null) {
+			return bitmapIndex.filter(records, numericFilter);
+		}
+		return secondaryIndexes.filter(records, numericFilter, candidates -> filterRecords(candidates, numericFilter));
+	}
+
+	private BitSet filterRecords(BitSet records, NumericFilter numericFilter) {
 		Set<Short> set = new HashSet<>();
 		if (numericFilter.getValues() != null) {
 			for (Number value : numericFilter.getValues()) {
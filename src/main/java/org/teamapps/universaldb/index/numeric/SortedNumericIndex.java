@@ -0,0 +1,376 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.util.SnapshotFile;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+public class SortedNumericIndex {
+	private static final Logger log = LoggerFactory.getLogger(SortedNumericIndex.class);
+	private static final int CHUNK_SIZE = 2_048;
+	private static final int VERSION = 1;
+
+	private final SnapshotFile snapshot;
+	private final List<Chunk> chunks = new ArrayList<>();
+	private final BitSet indexedIds = new BitSet();
+
+	public static long getSortableKey(double value) {
+		long bits = Double.doubleToLongBits(value == 0 ? 0d : value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	public static long getSortableKey(float value) {
+		int bits = Float.floatToIntBits(value == 0 ? 0f : value);
+		return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+	}
+
+	public SortedNumericIndex(File path, String name, TableIndex tableIndex, IntToLongFunction keyFunction) {
+		this.snapshot = new SnapshotFile(new File(path, name + "-sorted.idx"), VERSION);
+		if (!snapshot.load(this::read)) {
+			BitSet ids = tableIndex.getRecords();
+			BitSet deletedRecords = tableIndex.getDeletedRecords();
+			if (deletedRecords != null) {
+				ids.or(deletedRecords);
+			}
+			rebuild(ids, keyFunction);
+		}
+	}
+
+	public synchronized void setValue(int id, long previousKey, long key) {
+		if (previousKey == key && indexedIds.get(id) == (key != 0)) {
+			return;
+		}
+		if (indexedIds.get(id)) {
+			remove(previousKey, id);
+			indexedIds.clear(id);
+		}
+		if (key != 0) {
+			insert(key, id);
+			indexedIds.set(id);
+		}
+	}
+
+	public BitSet filter(BitSet records, NumericFilter filter, ToLongFunction<Number> keyFunction) {
+		switch (filter.getFilterType()) {
+			case EQUALS:
+				long key = keyFunction.applyAsLong(filter.getValue1());
+				return filterRange(records, key, true, key, true);
+			case NOT_EQUALS:
+				key = keyFunction.applyAsLong(filter.getValue1());
+				return negate(records, filterRange(records, key, true, key, true));
+			case GREATER:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), false, Long.MAX_VALUE, true);
+			case GREATER_EQUALS:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), true, Long.MAX_VALUE, true);
+			case SMALLER:
+				return filterRange(records, Long.MIN_VALUE, true, keyFunction.applyAsLong(filter.getValue1()), false);
+			case SMALLER_EQUALS:
+				return filterRange(records, Long.MIN_VALUE, true, keyFunction.applyAsLong(filter.getValue1()), true);
+			case BETWEEN:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), true, keyFunction.applyAsLong(filter.getValue2()), true);
+			case BETWEEN_EXCLUSIVE:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), false, keyFunction.applyAsLong(filter.getValue2()), false);
+			case CONTAINS:
+				return filterContains(records, filter.getValues(), keyFunction);
+			case CONTAINS_NOT:
+				return negate(records, filterContains(records, filter.getValues(), keyFunction));
+		}
+		return null;
+	}
+
+	public BitSet filterRange(BitSet records, long from, boolean fromInclusive, long to, boolean toInclusive) {
+		BitSet result = new BitSet();
+		if (!fromInclusive) {
+			if (from == Long.MAX_VALUE) {
+				return result;
+			}
+			from++;
+		}
+		if (!toInclusive) {
+			if (to == Long.MIN_VALUE) {
+				return result;
+			}
+			to--;
+		}
+		if (from > to) {
+			return result;
+		}
+		synchronized (this) {
+			int chunkIndex = findChunk(from, Integer.MIN_VALUE);
+			int pos = chunkIndex < chunks.size() ? chunks.get(chunkIndex).find(from, Integer.MIN_VALUE) : 0;
+			for (; chunkIndex < chunks.size(); chunkIndex++, pos = 0) {
+				Chunk chunk = chunks.get(chunkIndex);
+				for (; pos < chunk.size; pos++) {
+					if (chunk.keys[pos] > to) {
+						break;
+					}
+					int id = chunk.ids[pos];
+					if (records.get(id)) {
+						result.set(id);
+					}
+				}
+				if (pos < chunk.size) {
+					break;
+				}
+			}
+			if (from <= 0 && to >= 0) {
+				//zero values are not indexed
+				BitSet empty = (BitSet) records.clone();
+				empty.andNot(indexedIds);
+				result.or(empty);
+			}
+		}
+		return result;
+	}
+
+	private BitSet filterContains(BitSet records, List<Number> values, ToLongFunction<Number> keyFunction) {
+		BitSet result = new BitSet();
+		if (values != null) {
+			for (Number value : values) {
+				long key = keyFunction.applyAsLong(value);
+				result.or(filterRange(records, key, true, key, true));
+			}
+		}
+		return result;
+	}
+
+	private BitSet negate(BitSet records, BitSet hits) {
+		BitSet result = (BitSet) records.clone();
+		result.andNot(hits);
+		return result;
+	}
+
+	public synchronized int getCount() {
+		return indexedIds.cardinality();
+	}
+
+	public synchronized void close() {
+		snapshot.write(dos -> {
+			int count = 0;
+			dos.writeInt(indexedIds.cardinality());
+			for (Chunk chunk : chunks) {
+				for (int i = 0; i < chunk.size; i++) {
+					dos.writeLong(chunk.keys[i]);
+					dos.writeInt(chunk.ids[i]);
+					count++;
+				}
+			}
+			dos.writeInt(count);
+		});
+	}
+
+	public synchronized void drop() {
+		chunks.clear();
+		indexedIds.clear();
+		snapshot.delete();
+	}
+
+	private boolean read(DataInputStream dis) throws IOException {
+		int count = dis.readInt();
+		long[] keys = new long[count];
+		int[] ids = new int[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = dis.readLong();
+			ids[i] = dis.readInt();
+		}
+		if (dis.readInt() != count) {
+			return false;
+		}
+		fill(keys, ids, count);
+		return true;
+	}
+
+	private synchronized void rebuild(BitSet ids, IntToLongFunction keyFunction) {
+		long time = System.currentTimeMillis();
+		int count = 0;
+		long[] keys = new long[ids.cardinality()];
+		int[] recordIds = new int[keys.length];
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			long key = keyFunction.applyAsLong(id);
+			if (key != 0) {
+				keys[count] = key;
+				recordIds[count] = id;
+				count++;
+			}
+		}
+		//stable sort: ids are already ascending
+		sort(keys, recordIds, count);
+		fill(keys, recordIds, count);
+		log.info("Rebuilt sorted index:" + snapshot.getFile().getName() + ", entries:" + count + ", time:" + (System.currentTimeMillis() - time));
+	}
+
+	private void fill(long[] keys, int[] ids, int count) {
+		chunks.clear();
+		indexedIds.clear();
+		int fillSize = CHUNK_SIZE * 3 / 4;
+		for (int offset = 0; offset < count; offset += fillSize) {
+			int length = Math.min(fillSize, count - offset);
+			Chunk chunk = new Chunk();
+			System.arraycopy(keys, offset, chunk.keys, 0, length);
+			System.arraycopy(ids, offset, chunk.ids, 0, length);
+			chunk.size = length;
+			chunks.add(chunk);
+		}
+		for (int i = 0; i < count; i++) {
+			indexedIds.set(ids[i]);
+		}
+	}
+
+	private void insert(long key, int id) {
+		if (chunks.isEmpty()) {
+			Chunk chunk = new Chunk();
+			chunk.insert(0, key, id);
+			chunks.add(chunk);
+			return;
+		}
+		int chunkIndex = Math.min(findChunk(key, id), chunks.size() - 1);
+		Chunk chunk = chunks.get(chunkIndex);
+		chunk.insert(chunk.find(key, id), key, id);
+		if (chunk.size == CHUNK_SIZE) {
+			chunks.add(chunkIndex + 1, chunk.split());
+		}
+	}
+
+	private void remove(long key, int id) {
+		int chunkIndex = findChunk(key, id);
+		if (chunkIndex == chunks.size()) {
+			return;
+		}
+		Chunk chunk = chunks.get(chunkIndex);
+		int pos = chunk.find(key, id);
+		if (pos < chunk.size && chunk.keys[pos] == key && chunk.ids[pos] == id) {
+			chunk.remove(pos);
+			if (chunk.size == 0) {
+				chunks.remove(chunkIndex);
+			}
+		}
+	}
+
+	//first chunk whose last entry is not smaller than (key, id)
+	private int findChunk(long key, int id) {
+		int low = 0;
+		int high = chunks.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			Chunk chunk = chunks.get(mid);
+			if (compare(chunk.keys[chunk.size - 1], chunk.ids[chunk.size - 1], key, id) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private static int compare(long key1, int id1, long key2, int id2) {
+		int result = Long.compare(key1, key2);
+		return result != 0 ? result : Integer.compare(id1, id2);
+	}
+
+	private static void sort(long[] keys, int[] ids, int count) {
+		long[] keyBuffer = new long[count];
+		int[] idBuffer = new int[count];
+		long[] srcKeys = keys;
+		int[] srcIds = ids;
+		long[] dstKeys = keyBuffer;
+		int[] dstIds = idBuffer;
+		for (int width = 1; width < count; width <<= 1) {
+			for (int low = 0; low < count; low += width << 1) {
+				int mid = Math.min(low + width, count);
+				int high = Math.min(low + (width << 1), count);
+				int left = low;
+				int right = mid;
+				for (int i = low; i < high; i++) {
+					if (left < mid && (right >= high || srcKeys[left] <= srcKeys[right])) {
+						dstKeys[i] = srcKeys[left];
+						dstIds[i] = srcIds[left++];
+					} else {
+						dstKeys[i] = srcKeys[right];
+						dstIds[i] = srcIds[right++];
+					}
+				}
+			}
+			long[] swapKeys = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = swapKeys;
+			int[] swapIds = srcIds;
+			srcIds = dstIds;
+			dstIds = swapIds;
+		}
+		if (srcKeys != keys) {
+			System.arraycopy(srcKeys, 0, keys, 0, count);
+			System.arraycopy(srcIds, 0, ids, 0, count);
+		}
+	}
+
+	private static class Chunk {
+		private final long[] keys = new long[CHUNK_SIZE];
+		private final int[] ids = new int[CHUNK_SIZE];
+		private int size;
+
+		//first position whose entry is not smaller than (key, id)
+		private int find(long key, int id) {
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (compare(keys[mid], ids[mid], key, id) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		private void insert(int pos, long key, int id) {
+			System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+			System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+			keys[pos] = key;
+			ids[pos] = id;
+			size++;
+		}
+
+		private void remove(int pos) {
+			System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+			System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+			size--;
+		}
+
+		private Chunk split() {
+			Chunk chunk = new Chunk();
+			int half = size / 2;
+			chunk.size = size - half;
+			System.arraycopy(keys, half, chunk.keys, 0, chunk.size);
+			System.arraycopy(ids, half, chunk.ids, 0, chunk.size);
+			size = half;
+			return chunk;
+		}
+	}
+}
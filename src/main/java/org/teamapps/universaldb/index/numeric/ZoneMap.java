@@ -0,0 +1,156 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+public class ZoneMap {
+	private static final Logger log = LoggerFactory.getLogger(ZoneMap.class);
+	private static final int BLOCK_SHIFT = 12;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int HEADER_STATE_ID = 1;
+	private static final long BUILT_MARKER = 0x5a4f_4e45_4d41_5031L;
+
+	//slot 1 holds the state, block b keeps its min key in slot 2 + 2b and its max key in slot 3 + 2b
+	private final PrimitiveEntryAtomicStore zoneStore;
+
+	public ZoneMap(File path, String name, TableIndex tableIndex, IntToLongFunction keyFunction) {
+		zoneStore = new PrimitiveEntryAtomicStore(path, name + "-zone");
+		if (zoneStore.getLong(HEADER_STATE_ID) != BUILT_MARKER) {
+			build(tableIndex, keyFunction);
+		}
+	}
+
+	private void build(TableIndex tableIndex, IntToLongFunction keyFunction) {
+		long time = System.currentTimeMillis();
+		BitSet ids = tableIndex.getRecords();
+		BitSet deletedRecords = tableIndex.getDeletedRecords();
+		if (deletedRecords != null) {
+			ids.or(deletedRecords);
+		}
+		int blocks = (ids.length() >> BLOCK_SHIFT) + 1;
+		for (int block = 0; block < blocks; block++) {
+			long min = 0;
+			long max = 0;
+			int start = block << BLOCK_SHIFT;
+			for (int id = ids.nextSetBit(start); id >= 0 && id < start + BLOCK_SIZE; id = ids.nextSetBit(id + 1)) {
+				long key = keyFunction.applyAsLong(id);
+				min = Math.min(min, key);
+				max = Math.max(max, key);
+			}
+			zoneStore.setLong(getMinId(block), min);
+			zoneStore.setLong(getMaxId(block), max);
+		}
+		zoneStore.setLong(HEADER_STATE_ID, BUILT_MARKER);
+		log.info("Built zone map:" + zoneStore.getName() + ", blocks:" + blocks + ", time:" + (System.currentTimeMillis() - time));
+	}
+
+	private static int getMinId(int block) {
+		return 2 + 2 * block;
+	}
+
+	private static int getMaxId(int block) {
+		return 3 + 2 * block;
+	}
+
+	//zones only ever widen - they must be updated before the value is written
+	public void setValue(int id, long key) {
+		int block = id >> BLOCK_SHIFT;
+		if (key < zoneStore.getLong(getMinId(block))) {
+			zoneStore.setLong(getMinId(block), key);
+		}
+		if (key > zoneStore.getLong(getMaxId(block))) {
+			zoneStore.setLong(getMaxId(block), key);
+		}
+	}
+
+	public BitSet filter(BitSet records, NumericFilter filter, ToLongFunction<Number> keyFunction, Function<BitSet, BitSet> scanFunction) {
+		switch (filter.getFilterType()) {
+			case EQUALS:
+				long key = keyFunction.applyAsLong(filter.getValue1());
+				return filterRange(records, key, key, scanFunction);
+			case GREATER:
+				key = keyFunction.applyAsLong(filter.getValue1());
+				return key == Long.MAX_VALUE ? new BitSet() : filterRange(records, key + 1, Long.MAX_VALUE, scanFunction);
+			case GREATER_EQUALS:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), Long.MAX_VALUE, scanFunction);
+			case SMALLER:
+				key = keyFunction.applyAsLong(filter.getValue1());
+				return key == Long.MIN_VALUE ? new BitSet() : filterRange(records, Long.MIN_VALUE, key - 1, scanFunction);
+			case SMALLER_EQUALS:
+				return filterRange(records, Long.MIN_VALUE, keyFunction.applyAsLong(filter.getValue1()), scanFunction);
+			case BETWEEN:
+				return filterRange(records, keyFunction.applyAsLong(filter.getValue1()), keyFunction.applyAsLong(filter.getValue2()), scanFunction);
+			case BETWEEN_EXCLUSIVE:
+				long from = keyFunction.applyAsLong(filter.getValue1());
+				long to = keyFunction.applyAsLong(filter.getValue2());
+				if (from == Long.MAX_VALUE || to == Long.MIN_VALUE) {
+					return new BitSet();
+				}
+				return filterRange(records, from + 1, to - 1, scanFunction);
+			default:
+				return scanFunction.apply(records);
+		}
+	}
+
+	//blocks outside of [from, to] are skipped, blocks inside are accepted without reading values and only the rest is scanned
+	private BitSet filterRange(BitSet records, long from, long to, Function<BitSet, BitSet> scanFunction) {
+		if (from > to) {
+			return new BitSet();
+		}
+		BitSet accepted = new BitSet();
+		BitSet candidates = new BitSet();
+		int id = records.nextSetBit(0);
+		while (id >= 0) {
+			int block = id >> BLOCK_SHIFT;
+			int end = (int) Math.min(((long) block + 1) << BLOCK_SHIFT, Integer.MAX_VALUE);
+			long min = zoneStore.getLong(getMinId(block));
+			long max = zoneStore.getLong(getMaxId(block));
+			if (min >= from && max <= to) {
+				accepted.set(id, end);
+			} else if (max >= from && min <= to) {
+				candidates.set(id, end);
+			}
+			id = end < Integer.MAX_VALUE ? records.nextSetBit(end) : -1;
+		}
+		candidates.and(records);
+		BitSet result = candidates.isEmpty() ? new BitSet() : scanFunction.apply(candidates);
+		accepted.and(records);
+		result.or(accepted);
+		return result;
+	}
+
+	public void close() {
+		zoneStore.close();
+	}
+
+	public void drop() {
+		zoneStore.drop();
+	}
+}
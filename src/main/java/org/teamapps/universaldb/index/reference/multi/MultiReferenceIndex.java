@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.reference.multi;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.BlockChainAtomicStore;
 import org.teamapps.universaldb.index.reference.ReferenceIndex;
 import org.teamapps.universaldb.index.reference.single.SingleReferenceIndex;
@@ -318,6 +319,15 @@ public class MultiReferenceIndex extends AbstractIndex<MultiReferenceValue, Mult
 		return null;
 	}
 
+	public BlockChainAtomicStore getReferenceStore() {
+		return referenceStore;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(referenceStore);
+	}
+
 	@Override
 	public void close() {
 		referenceStore.close();
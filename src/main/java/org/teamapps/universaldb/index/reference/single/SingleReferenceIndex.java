@@ -21,6 +21,7 @@ package org.teamapps.universaldb.index.reference.single;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
 import org.teamapps.universaldb.index.numeric.NumericFilter;
 import org.teamapps.universaldb.index.reference.ReferenceIndex;
@@ -199,6 +200,11 @@ public class SingleReferenceIndex extends AbstractIndex<RecordReference, Numeric
 		} catch (EOFException ignore) {}
 	}
 
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		atomicStore.close();
@@ -0,0 +1,210 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.text;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.context.UserContextImpl;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.buffer.BlockEntryAtomicStore;
+
+import java.io.File;
+import java.text.Collator;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CollationKeyIndex {
+	private static final Logger log = LoggerFactory.getLogger(CollationKeyIndex.class);
+	//without configured languages, the languages of sort requests get keys up to this limit
+	private static final int MAX_LANGUAGES = 8;
+	private static final int MAX_NORMALIZED_LANGUAGES = 1_000;
+	private static final Map<String, String> NORMALIZED_LANGUAGES = new ConcurrentHashMap<>();
+	private static final ExecutorService BUILD_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "collation-keys");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public interface ValueProvider {
+		String getValue(int id, String language);
+	}
+
+	private final File path;
+	private final String name;
+	private final TableIndex table;
+	private final ValueProvider valueProvider;
+	private final Set<String> languages = new HashSet<>();
+	private final BlockEntryAtomicStore languageStore;
+	private final Map<String, LanguageKeys> keysByLanguage = new ConcurrentHashMap<>();
+	private final Map<String, LanguageKeys> buildingKeysByLanguage = new HashMap<>();
+
+	private static class LanguageKeys {
+		private final int languageId;
+		private final String language;
+		private final Collator collator;
+		private final BlockEntryAtomicStore keyStore;
+
+		private LanguageKeys(int languageId, String language, BlockEntryAtomicStore keyStore) {
+			this.languageId = languageId;
+			this.language = language;
+			this.collator = UserContextImpl.createCollator(Locale.forLanguageTag(language));
+			this.keyStore = keyStore;
+		}
+
+		private void setKey(int id, String value) {
+			keyStore.setBytes(id, value == null || value.isEmpty() ? null : collator.getCollationKey(value).toByteArray());
+		}
+	}
+
+	public CollationKeyIndex(File path, String name, TableIndex table, ValueProvider valueProvider, Collection<String> languages) {
+		this.path = path;
+		this.name = name;
+		this.table = table;
+		this.valueProvider = valueProvider;
+		languages.forEach(language -> this.languages.add(normalizeLanguage(language)));
+		languageStore = new BlockEntryAtomicStore(path, name + "-sort-lang");
+		String language;
+		//languages are only added, the key stores of a language are complete once it is listed here
+		for (int id = 1; (language = languageStore.getText(id)) != null; id++) {
+			keysByLanguage.put(language, new LanguageKeys(id, language, createKeyStore(id)));
+		}
+		//configured languages are available right away
+		for (String configuredLanguage : this.languages) {
+			LanguageKeys keys = startBuild(configuredLanguage);
+			if (keys != null) {
+				buildKeys(keys);
+			}
+		}
+	}
+
+	static String normalizeLanguage(String language) {
+		//regional variants share the keys of their language unless the collation rules of the region differ
+		String normalized = NORMALIZED_LANGUAGES.get(language);
+		if (normalized == null) {
+			Locale locale = Locale.forLanguageTag(language.replace('_', '-'));
+			Locale languageLocale = new Locale(locale.getLanguage());
+			boolean regional = !locale.getCountry().isEmpty() && !UserContextImpl.createCollator(locale).equals(UserContextImpl.createCollator(languageLocale));
+			normalized = regional ? new Locale(locale.getLanguage(), locale.getCountry()).toLanguageTag() : languageLocale.toLanguageTag();
+			if (NORMALIZED_LANGUAGES.size() < MAX_NORMALIZED_LANGUAGES) {
+				NORMALIZED_LANGUAGES.put(language, normalized);
+			}
+		}
+		return normalized;
+	}
+
+	private BlockEntryAtomicStore createKeyStore(int languageId) {
+		return new BlockEntryAtomicStore(path, name + "-sort-" + languageId);
+	}
+
+	public boolean isAvailable(String language) {
+		//the keys of a new language are built in the background, callers compare the values until they are complete
+		String normalized = normalizeLanguage(language);
+		if (keysByLanguage.containsKey(normalized)) {
+			return true;
+		}
+		LanguageKeys keys = startBuild(normalized);
+		if (keys != null) {
+			BUILD_EXECUTOR.execute(() -> buildKeys(keys));
+		}
+		return false;
+	}
+
+	public byte[] getKey(int id, String language) {
+		LanguageKeys keys = keysByLanguage.get(normalizeLanguage(language));
+		return keys != null ? keys.keyStore.getBytes(id) : null;
+	}
+
+	public Set<String> getLanguages() {
+		return keysByLanguage.keySet();
+	}
+
+	private synchronized LanguageKeys startBuild(String language) {
+		if (keysByLanguage.containsKey(language) || buildingKeysByLanguage.containsKey(language)) {
+			return null;
+		}
+		int languageCount = keysByLanguage.size() + buildingKeysByLanguage.size();
+		if (languages.isEmpty() ? languageCount >= MAX_LANGUAGES : !languages.contains(language)) {
+			return null;
+		}
+		int languageId = languageCount + 1;
+		createKeyStore(languageId).drop();
+		LanguageKeys keys = new LanguageKeys(languageId, language, createKeyStore(languageId));
+		buildingKeysByLanguage.put(language, keys);
+		return keys;
+	}
+
+	private void buildKeys(LanguageKeys keys) {
+		long time = System.currentTimeMillis();
+		try {
+			BitSet ids = table.getRecords();
+			BitSet deletedRecords = table.getDeletedRecords();
+			if (deletedRecords != null) {
+				ids.or(deletedRecords);
+			}
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				//writers update the keys under the same lock, the key of a record is always computed from its latest value
+				synchronized (this) {
+					keys.setKey(id, valueProvider.getValue(id, keys.language));
+				}
+			}
+			keys.keyStore.flush();
+			synchronized (this) {
+				languageStore.setText(keys.languageId, keys.language);
+				buildingKeysByLanguage.remove(keys.language);
+				keysByLanguage.put(keys.language, keys);
+			}
+			log.info("Created collation keys for language:" + keys.language + ", column:" + name + ", time:" + (System.currentTimeMillis() - time));
+		} catch (RuntimeException e) {
+			log.error("Error creating collation keys for language:" + keys.language + ", column:" + name, e);
+			synchronized (this) {
+				buildingKeysByLanguage.remove(keys.language);
+			}
+		}
+	}
+
+	public synchronized void update(int id) {
+		for (LanguageKeys keys : keysByLanguage.values()) {
+			keys.setKey(id, valueProvider.getValue(id, keys.language));
+		}
+		for (LanguageKeys keys : buildingKeysByLanguage.values()) {
+			keys.setKey(id, valueProvider.getValue(id, keys.language));
+		}
+	}
+
+	public synchronized void close() {
+		languageStore.close();
+		keysByLanguage.values().forEach(keys -> keys.keyStore.close());
+		buildingKeysByLanguage.values().forEach(keys -> keys.keyStore.close());
+	}
+
+	public synchronized void drop() {
+		keysByLanguage.values().forEach(keys -> keys.keyStore.drop());
+		buildingKeysByLanguage.values().forEach(keys -> keys.keyStore.drop());
+		languageStore.drop();
+	}
+}
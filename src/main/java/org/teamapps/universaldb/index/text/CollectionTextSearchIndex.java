@@ -24,11 +24,13 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.teamapps.universaldb.index.file.FileUtil;
 import org.teamapps.universaldb.index.translation.TranslatableTextFieldFilter;
 import org.teamapps.universaldb.index.translation.TranslatableText;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -41,6 +43,8 @@ public class CollectionTextSearchIndex {
 	private String name;
 	private File dir;
 	private IndexWriter writer;
+	private Directory directory;
+	private SearcherManager searcherManager;
 	private Analyzer queryAnalyzer;
 	private StringField idSearchField;
 	private NumericDocValuesField idField;
@@ -50,10 +54,15 @@ public class CollectionTextSearchIndex {
 		try {
 			this.name = name;
 			dir = new File(path, name);
-			Directory directory = FSDirectory.open(dir.toPath());
+			boolean inMemory = MappedStoreUtil.isInMemory(dir);
+			directory = inMemory ? new ByteBuffersDirectory() : FSDirectory.open(dir.toPath());
+			queryAnalyzer = new StandardAnalyzer();
+			if (MappedStoreUtil.isReadOnly(dir)) {
+				//no index writer and no write lock, searches see the last commit of the writing process
+				return;
+			}
 
 			Analyzer analyzer = new StandardAnalyzer();
-			queryAnalyzer = new StandardAnalyzer();
 			IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
 			iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
 			iwc.setRAMBufferSizeMB(32);
@@ -63,7 +72,9 @@ public class CollectionTextSearchIndex {
 			idField = new NumericDocValuesField(ID, 0);
 			fieldType = SearchIndexUtil.createIndexFieldType();
 
-			Runtime.getRuntime().addShutdownHook(new Thread(() -> commit(true)));
+			if (!inMemory) {
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> commit(true)));
+			}
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -144,10 +155,6 @@ public class CollectionTextSearchIndex {
 			if (filters == null || filters.isEmpty()) {
 				return bitSet;
 			}
-			DirectoryReader reader = DirectoryReader.open(writer, false, false);
-			IndexSearcher searcher = new IndexSearcher(reader);
-			SearchCollector collector = new SearchCollector();
-
 			BooleanClause.Occur occur = andFilter ? BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD;
 
 			BooleanQuery.Builder fieldQueries = new BooleanQuery.Builder();
@@ -168,17 +175,46 @@ public class CollectionTextSearchIndex {
 			}
 
 			BooleanQuery query = fieldQueries.build();
-			searcher.search(query, collector);
-			BitSet resultIds = collector.getResultIds();
-			resultIds.and(bitSet);
-			reader.close();
-			return resultIds;
+			return search(query, bitSet);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return null;
 	}
 
+	private BitSet search(Query query, BitSet bitSet) throws IOException {
+		SearchCollector collector = new SearchCollector();
+		if (writer != null) {
+			DirectoryReader reader = DirectoryReader.open(writer, false, false);
+			IndexSearcher searcher = new IndexSearcher(reader);
+			searcher.search(query, collector);
+			reader.close();
+		} else {
+			SearcherManager searcherManager = getSearcherManager();
+			if (searcherManager == null) {
+				return new BitSet();
+			}
+			searcherManager.maybeRefresh();
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				searcher.search(query, collector);
+			} finally {
+				searcherManager.release(searcher);
+			}
+		}
+		BitSet resultIds = collector.getResultIds();
+		resultIds.and(bitSet);
+		return resultIds;
+	}
+
+	private synchronized SearcherManager getSearcherManager() throws IOException {
+		//read only: opened once the writing process has committed the index
+		if (searcherManager == null && DirectoryReader.indexExists(directory)) {
+			searcherManager = new SearcherManager(directory, null);
+		}
+		return searcherManager;
+	}
+
 
 	public synchronized void commit(boolean close) {
 		try {
@@ -189,6 +225,10 @@ public class CollectionTextSearchIndex {
 					writer = null;
 				}
 			}
+			if (close && searcherManager != null) {
+				searcherManager.close();
+				searcherManager = null;
+			}
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
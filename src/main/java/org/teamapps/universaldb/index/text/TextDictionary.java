@@ -0,0 +1,218 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.text;
+
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
+import org.teamapps.universaldb.index.buffer.BlockEntryAtomicStore;
+import org.teamapps.universaldb.index.buffer.PrimitiveEntryAtomicStore;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TextDictionary {
+
+	private final BlockEntryAtomicStore valueStore;
+	private final PrimitiveEntryAtomicStore codeStore;
+	private final Map<String, Integer> codeByValue = new ConcurrentHashMap<>();
+	private volatile Values values;
+	private volatile int[] sortRanks;
+
+	public TextDictionary(File path, String name) {
+		valueStore = new BlockEntryAtomicStore(path, name + "-dict");
+		codeStore = new PrimitiveEntryAtomicStore(path, name + "-code");
+		values = new Values(new String[16], 0);
+		loadValues();
+	}
+
+	private synchronized void loadValues() {
+		String[] values = this.values.values;
+		int code = this.values.count + 1;
+		String value;
+		//codes are never removed, so the dictionary values are stored without gaps
+		while ((value = valueStore.getText(code)) != null) {
+			if (code >= values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[code] = value;
+			codeByValue.put(value, code);
+			code++;
+		}
+		this.values = new Values(values, code - 1);
+	}
+
+	public void refresh() {
+		//read only: loads the codes the writing process has added since the last refresh
+		valueStore.refresh();
+		codeStore.refresh();
+		loadValues();
+	}
+
+	public String getValue(int id) {
+		int code = codeStore.getInt(id);
+		Values values = this.values;
+		return code > 0 && code <= values.count ? values.values[code] : null;
+	}
+
+	public void setValue(int id, String value) {
+		codeStore.setInt(id, getOrCreateCode(value));
+	}
+
+	public boolean isEmpty(int id) {
+		return codeStore.getInt(id) == 0;
+	}
+
+	public int getCode(int id) {
+		return codeStore.getInt(id);
+	}
+
+	public int getCode(String value) {
+		Integer code = value != null ? codeByValue.get(value) : null;
+		return code != null ? code : 0;
+	}
+
+	public int getValueCount() {
+		return values.count;
+	}
+
+	public int getByteLength(int id) {
+		String value = getValue(id);
+		return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+	}
+
+	private synchronized int getOrCreateCode(String value) {
+		if (value == null || value.isEmpty()) {
+			return 0;
+		}
+		Integer code = codeByValue.get(value);
+		if (code != null) {
+			return code;
+		}
+		int newCode = this.values.count + 1;
+		valueStore.setText(newCode, value);
+		String[] values = this.values.values;
+		if (newCode >= values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[newCode] = value;
+		this.values = new Values(values, newCode);
+		codeByValue.put(value, newCode);
+		return newCode;
+	}
+
+	//rank by code in case insensitive order, values equal when ignoring case share a rank, rank 0 is null
+	public int[] getSortRanks() {
+		int[] ranks = sortRanks;
+		Values snapshot = this.values;
+		if (ranks == null || ranks.length != snapshot.count + 1) {
+			String[] values = snapshot.values;
+			int count = snapshot.count;
+			Integer[] codes = new Integer[count];
+			for (int i = 0; i < count; i++) {
+				codes[i] = i + 1;
+			}
+			Arrays.sort(codes, (code1, code2) -> values[code1].compareToIgnoreCase(values[code2]));
+			ranks = new int[count + 1];
+			int rank = 0;
+			for (int i = 0; i < count; i++) {
+				if (i == 0 || values[codes[i - 1]].compareToIgnoreCase(values[codes[i]]) != 0) {
+					rank++;
+				}
+				ranks[codes[i]] = rank;
+			}
+			sortRanks = ranks;
+		}
+		return ranks;
+	}
+
+	//codes created after the ranks were computed are sorted last
+	public int getSortRank(int[] sortRanks, int id) {
+		int code = codeStore.getInt(id);
+		return code < sortRanks.length ? sortRanks[code] : Integer.MAX_VALUE;
+	}
+
+	public BitSet filterEquals(BitSet bitSet, String value) {
+		BitSet result = new BitSet();
+		if (value != null && value.isEmpty()) {
+			return result;
+		}
+		int code = getCode(value);
+		if (value != null && code == 0) {
+			return result;
+		}
+		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
+			if (codeStore.getInt(id) == code) {
+				result.set(id);
+			}
+		}
+		return result;
+	}
+
+	public BitSet filterEqualsIgnoreCase(BitSet bitSet, String value) {
+		BitSet result = new BitSet();
+		BitSet codes = new BitSet();
+		Values snapshot = this.values;
+		for (int code = 1; code <= snapshot.count; code++) {
+			if (snapshot.values[code].equalsIgnoreCase(value)) {
+				codes.set(code);
+			}
+		}
+		if (codes.isEmpty()) {
+			return result;
+		}
+		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
+			if (codes.get(codeStore.getInt(id))) {
+				result.set(id);
+			}
+		}
+		return result;
+	}
+
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Arrays.asList(valueStore, codeStore);
+	}
+
+	public void flush() {
+		valueStore.flush();
+		codeStore.flush();
+	}
+
+	public void close() {
+		valueStore.close();
+		codeStore.close();
+	}
+
+	public void drop() {
+		valueStore.drop();
+		codeStore.drop();
+	}
+
+	//values and count are published together, slots up to count are never changed
+	private static final class Values {
+		private final String[] values;
+		private final int count;
+
+		private Values(String[] values, int count) {
+			this.values = values;
+			this.count = count;
+		}
+	}
+}
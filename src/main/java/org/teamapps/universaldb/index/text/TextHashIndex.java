@@ -0,0 +1,85 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.text;
+
+import org.teamapps.universaldb.index.HashIndex;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+public class TextHashIndex extends HashIndex<String> {
+
+	private final boolean ignoreCase;
+
+	public TextHashIndex(File path, String name, TableIndex tableIndex, boolean ignoreCase, IntFunction<String> valueFunction) {
+		super(new File(path, name + (ignoreCase ? "-hash-ic.idx" : "-hash.idx")));
+		this.ignoreCase = ignoreCase;
+		open(tableIndex, id -> getKey(valueFunction.apply(id)));
+	}
+
+	//same per char folding as String.equalsIgnoreCase
+	public static String foldCase(String value) {
+		char[] chars = value.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	private String getKey(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		return ignoreCase ? foldCase(value) : value;
+	}
+
+	public void setValue(int id, String previousValue, String value) {
+		updateKey(id, getKey(previousValue), getKey(value));
+	}
+
+	public BitSet filterEquals(BitSet records, String value) {
+		String key = getKey(value);
+		return key != null ? getRecords(key, records) : new BitSet();
+	}
+
+	@Override
+	protected void writeKey(DataOutputStream dataOutputStream, String key) throws IOException {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		dataOutputStream.writeInt(bytes.length);
+		dataOutputStream.write(bytes);
+	}
+
+	@Override
+	protected String readKey(DataInputStream dataInputStream) throws IOException {
+		byte[] bytes = new byte[dataInputStream.readInt()];
+		dataInputStream.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -19,8 +19,11 @@
  */
 package org.teamapps.universaldb.index.text;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.BlockEntryAtomicStore;
 import org.teamapps.universaldb.transaction.DataType;
 import org.teamapps.universaldb.util.DataStreamUtil;
@@ -33,10 +36,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class TextIndex extends AbstractIndex<String, TextFilter> {
+	private static final Logger log = LoggerFactory.getLogger(TextIndex.class);
 
 	private BlockEntryAtomicStore atomicStore;
 	private final TextSearchIndex searchIndex;
 	private final CollectionTextSearchIndex collectionSearchIndex;
+	private TextHashIndex hashIndex;
+	private TextHashIndex ignoreCaseHashIndex;
+	private TextDictionary dictionary;
+	private CollationKeyIndex collationKeyIndex;
 
 	public TextIndex(String name, TableIndex table, ColumnType columnType, CollectionTextSearchIndex collectionSearchIndex) {
 		super(name, table, columnType, FullTextIndexingOptions.INDEXED);
@@ -61,7 +69,36 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	}
 
 	public boolean isFilteredByCollectionTextIndex(TextFilter filter) {
-		return collectionSearchIndex != null && filter.getFilterType().containsFullTextPart();
+		return collectionSearchIndex != null && filter.getFilterType().containsFullTextPart() && !isFilteredByHashIndex(filter) && !isFilteredByDictionary(filter);
+	}
+
+	public boolean isFilteredByHashIndex(TextFilter filter) {
+		if (filter.getValue() == null || filter.getValue().isEmpty()) {
+			return false;
+		}
+		switch (filter.getFilterType()) {
+			case TEXT_EQUALS:
+			case TEXT_NOT_EQUALS:
+				return hashIndex != null || ignoreCaseHashIndex != null;
+			case TEXT_EQUALS_IGNORE_CASE:
+				return ignoreCaseHashIndex != null;
+			default:
+				return false;
+		}
+	}
+
+	public boolean isFilteredByDictionary(TextFilter filter) {
+		if (dictionary == null || filter.getValue() == null || filter.getValue().isEmpty()) {
+			return false;
+		}
+		switch (filter.getFilterType()) {
+			case TEXT_EQUALS:
+			case TEXT_NOT_EQUALS:
+			case TEXT_EQUALS_IGNORE_CASE:
+				return true;
+			default:
+				return false;
+		}
 	}
 
 	public boolean isFilteredExclusivelyByCollectionTextIndex(TextFilter filter) {
@@ -89,12 +126,36 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	}
 
 	public String getValue(int id) {
-		return atomicStore.getText(id);
+		return dictionary != null ? dictionary.getValue(id) : atomicStore.getText(id);
+	}
+
+	private boolean isEmpty(int id) {
+		return dictionary != null ? dictionary.isEmpty(id) : atomicStore.isEmpty(id);
+	}
+
+	private int getByteLength(int id) {
+		return dictionary != null ? dictionary.getByteLength(id) : atomicStore.getBlockLength(id);
 	}
 
 	public void setValue(int id, String value) {
-		boolean update = !atomicStore.isEmpty(id);
-		atomicStore.setText(id, value);
+		boolean update = !isEmpty(id);
+		if (hashIndex != null || ignoreCaseHashIndex != null) {
+			String previousValue = update ? getValue(id) : null;
+			if (hashIndex != null) {
+				hashIndex.setValue(id, previousValue, value);
+			}
+			if (ignoreCaseHashIndex != null) {
+				ignoreCaseHashIndex.setValue(id, previousValue, value);
+			}
+		}
+		if (dictionary != null) {
+			dictionary.setValue(id, value);
+		} else {
+			atomicStore.setText(id, value);
+		}
+		if (collationKeyIndex != null) {
+			collationKeyIndex.update(id);
+		}
 		if (searchIndex != null) {
 			String textValue = value == null ? "" : value;
 			searchIndex.addValue(id, textValue, update);
@@ -141,12 +202,101 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 		return filter(records, textFilter, true);
 	}
 
+	public void enableHashIndex(boolean ignoreCase) {
+		if (ignoreCase && ignoreCaseHashIndex == null) {
+			ignoreCaseHashIndex = new TextHashIndex(getDataPath(), getName(), getTable(), true, this::getValue);
+		} else if (!ignoreCase && hashIndex == null) {
+			hashIndex = new TextHashIndex(getDataPath(), getName(), getTable(), false, this::getValue);
+		}
+	}
+
+	public boolean isHashIndex(boolean ignoreCase) {
+		return ignoreCase ? ignoreCaseHashIndex != null : hashIndex != null;
+	}
+
+	public void enableDictionary() {
+		if (dictionary != null) {
+			return;
+		}
+		if (atomicStore.isReadOnly() && atomicStore.getFreeSpacePosition() > 8) {
+			//the writing process has not migrated the values yet, they are read from the block store
+			return;
+		}
+		TextDictionary dictionary = new TextDictionary(getDataPath(), getName());
+		if (atomicStore.getFreeSpacePosition() > 8) {
+			//move the values of the block store into the dictionary, an interrupted migration is repeated on the next start
+			long time = System.currentTimeMillis();
+			BitSet ids = getTable().getRecords();
+			BitSet deletedRecords = getTable().getDeletedRecords();
+			if (deletedRecords != null) {
+				ids.or(deletedRecords);
+			}
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				dictionary.setValue(id, atomicStore.getText(id));
+			}
+			dictionary.flush();
+			atomicStore.drop();
+			atomicStore = new BlockEntryAtomicStore(getDataPath(), getName());
+			log.info("Migrated text column to dictionary:" + getFQN() + ", values:" + dictionary.getValueCount() + ", time:" + (System.currentTimeMillis() - time));
+		}
+		this.dictionary = dictionary;
+	}
+
+	public boolean isDictionary() {
+		return dictionary != null;
+	}
+
+	public void enableCollationKeys(String... languages) {
+		//no languages: keys are built in the background for the languages of sort requests
+		if (collationKeyIndex == null) {
+			collationKeyIndex = new CollationKeyIndex(getDataPath(), getName(), getTable(), (id, language) -> getValue(id), Arrays.asList(languages));
+		}
+	}
+
+	public boolean isCollationKeys() {
+		return collationKeyIndex != null;
+	}
+
+	public BlockEntryAtomicStore getAtomicStore() {
+		return atomicStore;
+	}
+
+	@Override
+	public void refresh() {
+		atomicStore.refresh();
+		if (dictionary != null) {
+			dictionary.refresh();
+		}
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		List<AbstractResizingAtomicStore> stores = new ArrayList<>();
+		stores.add(atomicStore);
+		if (dictionary != null) {
+			stores.addAll(dictionary.getStores());
+		}
+		return stores;
+	}
+
 	@Override
 	public void close() {
 		if (searchIndex != null) {
 			searchIndex.commit(true);
 		}
 		atomicStore.close();
+		if (dictionary != null) {
+			dictionary.close();
+		}
+		if (collationKeyIndex != null) {
+			collationKeyIndex.close();
+		}
+		if (hashIndex != null) {
+			hashIndex.close();
+		}
+		if (ignoreCaseHashIndex != null) {
+			ignoreCaseHashIndex.close();
+		}
 	}
 
 	@Override
@@ -155,30 +305,39 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 			searchIndex.drop();
 		}
 		atomicStore.drop();
+		if (dictionary != null) {
+			dictionary.drop();
+		}
+		if (collationKeyIndex != null) {
+			collationKeyIndex.drop();
+		}
+		if (hashIndex != null) {
+			hashIndex.drop();
+		}
+		if (ignoreCaseHashIndex != null) {
+			ignoreCaseHashIndex.drop();
+		}
 	}
 
 	public List<SortEntry> sortRecords(List<SortEntry> sortEntries, boolean ascending, UserContext userContext) {
-		int order = ascending ? 1 : -1;
-		sortEntries.sort((o1, o2) -> {
-			String value1 = getValue(o1.getLeafId());
-			String value2 = getValue(o2.getLeafId());
-			if (value1 == null || value2 == null) {
-				if (value1 == null && value2 == null) {
-					return 0;
-				} else if (value1 == null) {
-					return -1 * order;
-				} else {
-					return order;
-				}
-			}
-			return value1.compareToIgnoreCase(value2) * order;
-		});
-		return sortEntries;
+		String language = userContext.getLanguage();
+		if (collationKeyIndex != null && collationKeyIndex.isAvailable(language)) {
+			Comparator<byte[]> comparator = Comparator.nullsFirst(Arrays::compareUnsigned);
+			return sortByKeys(sortEntries, id -> collationKeyIndex.getKey(id, language), ascending ? comparator : comparator.reversed());
+		}
+		if (dictionary != null) {
+			//null values have rank 0 and are sorted first as below
+			int[] sortRanks = dictionary.getSortRanks();
+			Comparator<Integer> comparator = Comparator.naturalOrder();
+			return sortByKeys(sortEntries, id -> dictionary.getSortRank(sortRanks, id), ascending ? comparator : comparator.reversed());
+		}
+		Comparator<String> comparator = Comparator.nullsFirst(String::compareToIgnoreCase);
+		return sortByKeys(sortEntries, this::getValue, ascending ? comparator : comparator.reversed());
 	}
 
 	public BitSet filter(BitSet records, TextFilter textFilter, boolean performLocalFullTextSearch) {
 		BitSet fullTextResult = records;
-		if (performLocalFullTextSearch) {
+		if (performLocalFullTextSearch && !isFilteredByHashIndex(textFilter) && !isFilteredByDictionary(textFilter)) {
 			if (textFilter.getFilterType().containsFullTextPart()) {
 				if (searchIndex != null) {
 					fullTextResult = searchIndex.filter(records, textFilter);
@@ -219,7 +378,7 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	public BitSet filterEmpty(BitSet bitSet) {
 		BitSet result = new BitSet();
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			if (atomicStore.isEmpty(id)) {
+			if (isEmpty(id)) {
 				result.set(id);
 			}
 		}
@@ -229,7 +388,7 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	public BitSet filterNotEmpty(BitSet bitSet) {
 		BitSet result = new BitSet();
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			if (!atomicStore.isEmpty(id)) {
+			if (!isEmpty(id)) {
 				result.set(id);
 			}
 		}
@@ -239,7 +398,7 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	public BitSet filterLengthGreater(BitSet bitSet, int length) {
 		BitSet result = new BitSet();
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int blockLength = atomicStore.getBlockLength(id);
+			int blockLength = getByteLength(id);
 			if (blockLength > length) {
 				result.set(id);
 			}
@@ -250,7 +409,7 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	public BitSet filterLengthSmaller(BitSet bitSet, int length) {
 		BitSet result = new BitSet();
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			int blockLength = atomicStore.getBlockLength(id);
+			int blockLength = getByteLength(id);
 			if (blockLength < length) {
 				result.set(id);
 			}
@@ -260,10 +419,27 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 
 
 	private BitSet filterEquals(BitSet bitSet, String value) {
+		if (value != null && !value.isEmpty()) {
+			if (hashIndex != null) {
+				return hashIndex.filterEquals(bitSet, value);
+			} else if (ignoreCaseHashIndex != null) {
+				//case insensitive matches are candidates, the loop below removes the other spellings
+				bitSet = ignoreCaseHashIndex.filterEquals(bitSet, value);
+			}
+		}
+		if (dictionary != null) {
+			return dictionary.filterEquals(bitSet, value);
+		}
+		if (value == null) {
+			return filterEmpty(bitSet);
+		}
 		BitSet result = new BitSet();
+		if (value.isEmpty()) {
+			return result;
+		}
+		byte[] key = value.getBytes(StandardCharsets.UTF_8);
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			String text = getValue(id);
-			if (Objects.equals(text, value)) {
+			if (atomicStore.isEqual(id, key)) {
 				result.set(id);
 			}
 		}
@@ -275,6 +451,21 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 		if (value == null) {
 			return result;
 		}
+		if (ignoreCaseHashIndex != null) {
+			return ignoreCaseHashIndex.filterEquals(bitSet, value);
+		}
+		if (dictionary != null) {
+			return dictionary.filterEqualsIgnoreCase(bitSet, value);
+		}
+		if (isAscii(value)) {
+			byte[] key = value.getBytes(StandardCharsets.US_ASCII);
+			for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
+				if (atomicStore.isEqualIgnoreCase(id, key)) {
+					result.set(id);
+				}
+			}
+			return result;
+		}
 		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
 			String text = getValue(id);
 			if (value.equalsIgnoreCase(text)) {
@@ -285,13 +476,17 @@ public class TextIndex extends AbstractIndex<String, TextFilter> {
 	}
 
 	private BitSet filterNotEquals(BitSet bitSet, String value) {
-		BitSet result = new BitSet();
-		for (int id = bitSet.nextSetBit(0); id >= 0; id = bitSet.nextSetBit(id + 1)) {
-			String text = getValue(id);
-			if (!Objects.equals(text, value)) {
-				result.set(id);
+		BitSet result = (BitSet) bitSet.clone();
+		result.andNot(filterEquals(bitSet, value));
+		return result;
+	}
+
+	private static boolean isAscii(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) >= 0x80) {
+				return false;
 			}
 		}
-		return result;
+		return true;
 	}
 }
@@ -24,11 +24,13 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.teamapps.universaldb.index.file.FileUtil;
 import org.teamapps.universaldb.index.translation.TranslatableTextFilter;
 import org.teamapps.universaldb.index.translation.TranslatableText;
+import org.teamapps.universaldb.util.MappedStoreUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -45,15 +47,22 @@ public class TextSearchIndex {
 	private NumericDocValuesField idField;
 	private Field valueField;
 	private IndexWriter writer;
+	private Directory directory;
+	private SearcherManager searcherManager;
 	private Analyzer queryAnalyzer;
 	private FieldType fieldType;
 
 	public TextSearchIndex(File path, String name) {
 		try {
 			dir = new File(path, name);
-			Directory directory = FSDirectory.open(dir.toPath());
-			Analyzer analyzer = new StandardAnalyzer();
+			boolean inMemory = MappedStoreUtil.isInMemory(dir);
+			directory = inMemory ? new ByteBuffersDirectory() : FSDirectory.open(dir.toPath());
 			queryAnalyzer = new StandardAnalyzer();
+			if (MappedStoreUtil.isReadOnly(dir)) {
+				//no index writer and no write lock, searches see the last commit of the writing process
+				return;
+			}
+			Analyzer analyzer = new StandardAnalyzer();
 			IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
 			iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
 			iwc.setRAMBufferSizeMB(12);
@@ -64,16 +73,18 @@ public class TextSearchIndex {
 			fieldType = SearchIndexUtil.createIndexFieldType();
 			valueField = new Field(VALUE, "", fieldType);
 
-			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-				if (writer != null && writer.isOpen()) {
-					try {
-						writer.commit();
-						writer.close();
-					} catch (IOException e) {
-						e.printStackTrace();
+			if (!inMemory) {
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					if (writer != null && writer.isOpen()) {
+						try {
+							writer.commit();
+							writer.close();
+						} catch (IOException e) {
+							e.printStackTrace();
+						}
 					}
-				}
-			}));
+				}));
+			}
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -142,14 +153,8 @@ public class TextSearchIndex {
 			if (textFilter == null) {
 				return bitSet;
 			}
-			DirectoryReader reader = DirectoryReader.open(writer, false, false);
-			IndexSearcher searcher = new IndexSearcher(reader);
-			SearchCollector collector = new SearchCollector();
 			Query query = SearchIndexUtil.createQuery(textFilter.getFilterType(), VALUE, textFilter.getValue(), queryAnalyzer);
-			searcher.search(query, collector);
-			BitSet resultIds = collector.getResultIds();
-			resultIds.and(bitSet);
-			return resultIds;
+			return search(query, bitSet);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -161,10 +166,6 @@ public class TextSearchIndex {
 			if (textFilter == null) {
 				return bitSet;
 			}
-			DirectoryReader reader = DirectoryReader.open(writer, false, false);
-			IndexSearcher searcher = new IndexSearcher(reader);
-			SearchCollector collector = new SearchCollector();
-
 			BooleanQuery.Builder translatableQueries = new BooleanQuery.Builder();
 			Query originalLanguage = SearchIndexUtil.createQuery(textFilter.getFilterType(), VALUE, textFilter.getValue(), queryAnalyzer);
 			translatableQueries.add(originalLanguage, BooleanClause.Occur.SHOULD);
@@ -172,16 +173,45 @@ public class TextSearchIndex {
 				Query query = SearchIndexUtil.createQuery(textFilter.getFilterType(), VALUE + "_" + language, textFilter.getValue(), queryAnalyzer);
 				translatableQueries.add(query, BooleanClause.Occur.SHOULD);
 			}
-			searcher.search(translatableQueries.build(), collector);
-			BitSet resultIds = collector.getResultIds();
-			resultIds.and(bitSet);
-			return resultIds;
+			return search(translatableQueries.build(), bitSet);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return null;
 	}
 
+	private BitSet search(Query query, BitSet bitSet) throws IOException {
+		SearchCollector collector = new SearchCollector();
+		if (writer != null) {
+			DirectoryReader reader = DirectoryReader.open(writer, false, false);
+			IndexSearcher searcher = new IndexSearcher(reader);
+			searcher.search(query, collector);
+		} else {
+			SearcherManager searcherManager = getSearcherManager();
+			if (searcherManager == null) {
+				return new BitSet();
+			}
+			searcherManager.maybeRefresh();
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				searcher.search(query, collector);
+			} finally {
+				searcherManager.release(searcher);
+			}
+		}
+		BitSet resultIds = collector.getResultIds();
+		resultIds.and(bitSet);
+		return resultIds;
+	}
+
+	private synchronized SearcherManager getSearcherManager() throws IOException {
+		//read only: opened once the writing process has committed the index
+		if (searcherManager == null && DirectoryReader.indexExists(directory)) {
+			searcherManager = new SearcherManager(directory, null);
+		}
+		return searcherManager;
+	}
+
 	public void commit(boolean close) {
 		try {
 			if (writer != null && writer.isOpen()) {
@@ -190,12 +220,18 @@ public class TextSearchIndex {
 					writer.close();
 				}
 			}
+			if (close && searcherManager != null) {
+				searcherManager.close();
+			}
 		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 	}
 
 	public int getMaxDoc() {
+		if (writer == null) {
+			return -1;
+		}
 		return writer.getDocStats().maxDoc;
 	}
 
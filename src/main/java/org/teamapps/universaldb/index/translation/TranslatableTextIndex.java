@@ -21,7 +21,9 @@ package org.teamapps.universaldb.index.translation;
 
 import org.teamapps.universaldb.context.UserContext;
 import org.teamapps.universaldb.index.*;
+import org.teamapps.universaldb.index.buffer.AbstractResizingAtomicStore;
 import org.teamapps.universaldb.index.buffer.BlockEntryAtomicStore;
+import org.teamapps.universaldb.index.text.CollationKeyIndex;
 import org.teamapps.universaldb.index.text.CollectionTextSearchIndex;
 import org.teamapps.universaldb.index.text.TextFieldFilter;
 import org.teamapps.universaldb.index.text.TextFilter;
@@ -40,6 +42,7 @@ public class TranslatableTextIndex extends AbstractIndex<TranslatableText, TextF
 	private BlockEntryAtomicStore atomicStore;
 	private final TextSearchIndex searchIndex;
 	private final CollectionTextSearchIndex collectionSearchIndex;
+	private CollationKeyIndex collationKeyIndex;
 
 	public TranslatableTextIndex(String name, TableIndex table, ColumnType columnType, CollectionTextSearchIndex collectionSearchIndex) {
 		super(name, table, columnType, FullTextIndexingOptions.INDEXED);
@@ -110,6 +113,9 @@ public class TranslatableTextIndex extends AbstractIndex<TranslatableText, TextF
 		boolean update = !atomicStore.isEmpty(id);
 		String encodedValue = value != null ? value.getEncodedValue() : null;
 		atomicStore.setText(id, encodedValue);
+		if (collationKeyIndex != null) {
+			collationKeyIndex.update(id);
+		}
 		if (searchIndex != null) {
 			if (value != null) {
 				searchIndex.addValue(id, value, update);
@@ -155,12 +161,35 @@ public class TranslatableTextIndex extends AbstractIndex<TranslatableText, TextF
 		return filter(records, textFilter, true);
 	}
 
+	public void enableCollationKeys(String... languages) {
+		//no languages: keys are built in the background for the languages of sort requests
+		if (collationKeyIndex == null) {
+			collationKeyIndex = new CollationKeyIndex(getDataPath(), getName(), getTable(), this::getTranslatedValue, Arrays.asList(languages));
+		}
+	}
+
+	public boolean isCollationKeys() {
+		return collationKeyIndex != null;
+	}
+
+	public BlockEntryAtomicStore getAtomicStore() {
+		return atomicStore;
+	}
+
+	@Override
+	public List<AbstractResizingAtomicStore> getStores() {
+		return Collections.singletonList(atomicStore);
+	}
+
 	@Override
 	public void close() {
 		if (searchIndex != null) {
 			searchIndex.commit(true);
 		}
 		atomicStore.close();
+		if (collationKeyIndex != null) {
+			collationKeyIndex.close();
+		}
 	}
 
 	@Override
@@ -169,27 +198,19 @@ public class TranslatableTextIndex extends AbstractIndex<TranslatableText, TextF
 			searchIndex.drop();
 		}
 		atomicStore.drop();
+		if (collationKeyIndex != null) {
+			collationKeyIndex.drop();
+		}
 	}
 
 	public List<SortEntry> sortRecords(List<SortEntry> sortEntries, boolean ascending, UserContext userContext) {
-		int order = ascending ? 1 : -1;
 		String language = userContext.getLanguage();
-
-		sortEntries.sort((o1, o2) -> {
-			String value1 = getTranslatedValue(o1.getLeafId(), language);
-			String value2 = getTranslatedValue(o2.getLeafId(), language);
-			if (value1 == null || value2 == null) {
-				if (value1 == null && value2 == null) {
-					return 0;
-				} else if (value1 == null) {
-					return -1 * order;
-				} else {
-					return order;
-				}
-			}
-			return value1.compareToIgnoreCase(value2) * order;
-		});
-		return sortEntries;
+		if (collationKeyIndex != null && collationKeyIndex.isAvailable(language)) {
+			Comparator<byte[]> comparator = Comparator.nullsFirst(Arrays::compareUnsigned);
+			return sortByKeys(sortEntries, id -> collationKeyIndex.getKey(id, language), ascending ? comparator : comparator.reversed());
+		}
+		Comparator<String> comparator = Comparator.nullsFirst(String::compareToIgnoreCase);
+		return sortByKeys(sortEntries, id -> getTranslatedValue(id, language), ascending ? comparator : comparator.reversed());
 	}
 
 	public BitSet filter(BitSet records, TextFilter textFilter, boolean performLocalFullTextSearch) {
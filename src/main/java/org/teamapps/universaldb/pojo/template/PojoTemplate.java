@@ -188,6 +188,78 @@ public class PojoTemplate {
 		return true;
 	}
 
+	public boolean addInterfaceFindMethod(Column column, String type, String udbType, boolean ignoreCase) {
+		String valueType = getFindValueType(column);
+		if (valueType == null) {
+			return false;
+		}
+		String tpl = blocks.get("INTERFACE_FIND_METHOD");
+		tpl = TemplateUtil.setValue(tpl, "name", firstUpper(column.getName()) + (ignoreCase ? "IgnoreCase" : ""));
+		tpl = TemplateUtil.setValue(tpl, "type", type);
+		tpl = TemplateUtil.setValue(tpl, "udbType", udbType);
+		tpl = TemplateUtil.setValue(tpl, "valueType", valueType);
+		methods.add(tpl);
+		return true;
+	}
+
+	public boolean addUdbEntityFindMethod(Column column, String type, boolean ignoreCase) {
+		String valueType = getFindValueType(column);
+		if (valueType == null) {
+			return false;
+		}
+		String filter;
+		//the value is converted to the stored key as by the set methods
+		switch (column.getType()) {
+			case TEXT:
+				filter = ignoreCase ? "TextFilter.textEqualsIgnoreCaseFilter(value)" : "TextFilter.textEqualsFilter(value)";
+				break;
+			case ENUM:
+				filter = "NumericFilter.equalsFilter((short) (value != null ? value.ordinal() + 1 : 0))";
+				break;
+			case TIMESTAMP:
+				filter = "NumericFilter.equalsFilter(value != null ? (int) value.getEpochSecond() : 0)";
+				break;
+			case DATE:
+			case DATE_TIME:
+				filter = "NumericFilter.equalsFilter(value != null ? value.toEpochMilli() : 0L)";
+				break;
+			default:
+				filter = "NumericFilter.equalsFilter(value)";
+		}
+		String tpl = blocks.get("ENTITY_FIND_METHOD");
+		tpl = TemplateUtil.setValue(tpl, "name", firstUpper(column.getName()) + (ignoreCase ? "IgnoreCase" : ""));
+		tpl = TemplateUtil.setValue(tpl, "name2", column.getName());
+		tpl = TemplateUtil.setValue(tpl, "type", type);
+		tpl = TemplateUtil.setValue(tpl, "valueType", valueType);
+		tpl = TemplateUtil.setValue(tpl, "filter", filter);
+		methods.add(tpl);
+		return true;
+	}
+
+	private String getFindValueType(Column column) {
+		switch (column.getType()) {
+			case SHORT:
+				return "short";
+			case INT:
+				return "int";
+			case LONG:
+				return "long";
+			case FLOAT:
+				return "float";
+			case DOUBLE:
+				return "double";
+			case TEXT:
+				return "String";
+			case ENUM:
+				return firstUpper(column.getName());
+			case TIMESTAMP:
+			case DATE:
+			case DATE_TIME:
+				return "Instant";
+		}
+		return null;
+	}
+
 	public void addQueryInterfaceMethod(Column column, String query, boolean orQuery) {
 		String name = orQuery ? "or" + firstUpper(column.getName()) : column.getName();
 		if (column.getType() == ColumnType.ENUM) {
@@ -24,6 +24,7 @@ import org.teamapps.universaldb.index.IndexType;
 import org.teamapps.universaldb.index.MappedObject;
 import org.teamapps.universaldb.schema.Table;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,6 +40,7 @@ public class Column implements MappedObject {
 	private String backReference;
 	private List<String> enumValues;
 	private boolean cascadeDeleteReferences;
+	private final List<ColumnOption> options = new ArrayList<>();
 
 
 	public Column(Table table, String name, ColumnType type) {
@@ -109,6 +111,25 @@ public class Column implements MappedObject {
 		return indexType;
 	}
 
+	public List<ColumnOption> getOptions() {
+		return options;
+	}
+
+	public boolean hasOption(ColumnOption option) {
+		return options.contains(option);
+	}
+
+	public Column addOption(ColumnOption option) {
+		if (!options.contains(option)) {
+			options.add(option);
+		}
+		return this;
+	}
+
+	public void mergeOptions(Column column) {
+		column.getOptions().forEach(this::addOption);
+	}
+
 	public String createDefinition() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("\t\t").append(name).append(" as ").append(type.name());
@@ -132,6 +153,10 @@ public class Column implements MappedObject {
 				sb.append(enumValues.stream().collect(Collectors.joining(", "))).append(")");
 				break;
 		}
+		if (!options.isEmpty()) {
+			sb.append(" OPTIONS (");
+			sb.append(options.stream().map(Enum::name).collect(Collectors.joining(", "))).append(")");
+		}
 		sb.append("\n");
 		return sb.toString();
 	}
@@ -0,0 +1,57 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.schema;
+
+public enum ColumnOption {
+	SORTED_INDEX(1),
+	HASH_INDEX(2),
+	HASH_INDEX_IGNORE_CASE(3),
+	BITMAP_INDEX(4),
+	ZONE_MAP(5),
+	COMPRESSED(6),
+	DICTIONARY(7),
+	COLLATION_KEYS(8),
+	WRITE_BUFFER(9),
+
+	;
+	private final int id;
+
+	ColumnOption(int id) {
+		this.id = id;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public boolean isStorageFormat() {
+		//options that change how the values are stored, all other options only add indexes
+		return this == COMPRESSED || this == DICTIONARY;
+	}
+
+	public static ColumnOption getById(int id) {
+		for (ColumnOption value : values()) {
+			if (value.getId() == id) {
+				return value;
+			}
+		}
+		return null;
+	}
+}
@@ -71,6 +71,17 @@ public class Schema {
 		return Arrays.asList(parts);
 	}
 	
+	private static void parseColumnOptions(Column column, String line) {
+		int pos = line.indexOf(" OPTIONS (");
+		if (pos < 0) {
+			return;
+		}
+		String options = line.substring(pos + 10);
+		for (String option : options.substring(0, options.indexOf(')')).split(", ")) {
+			column.addOption(ColumnOption.valueOf(option.trim()));
+		}
+	}
+
 	public Schema() {
 	}
 
@@ -118,6 +129,12 @@ public class Schema {
 			if (type.equalsIgnoreCase("ENUM")) {
 				//enable separate enum definition...
 			}
+			if (columnTypes.contains(type.toUpperCase()) && Table.isReservedMetaName(name)) {
+				Column column = table != null ? table.getColumn(name) : null;
+				if (column != null) {
+					parseColumnOptions(column, line);
+				}
+			}
 			if (columnTypes.contains(type.toUpperCase()) && !Table.isReservedMetaName(name)) {
 				ColumnType columnType = ColumnType.valueOf(type);
 				if (table != null) {
@@ -131,9 +148,11 @@ public class Schema {
 						}
 					} else if (columnType == ColumnType.ENUM) {
 						line = line.trim();
-						String[] values = line.substring(line.indexOf("VALUES (") + 8).replace(")", "").split(", ");
+						String enumValues = line.substring(line.indexOf("VALUES (") + 8);
+						String[] values = enumValues.substring(0, enumValues.indexOf(')')).split(", ");
 						column.setEnumValues(Arrays.asList(values));
 					}
+					parseColumnOptions(column, line);
 				}
 			}
 		}
@@ -201,6 +201,17 @@ public class Table implements MappedObject {
 		return column;
 	}
 
+	public Table addColumnOptions(String name, ColumnOption... options) {
+		Column column = getColumn(name);
+		if (column == null) {
+			throw new RuntimeException("Error: unknown column:" + name);
+		}
+		for (ColumnOption option : options) {
+			column.addOption(option);
+		}
+		return this;
+	}
+
 	public Database getDatabase() {
 		return database;
 	}
@@ -295,6 +306,7 @@ public class Table implements MappedObject {
 				if (localColumn.getMappingId() == 0) {
 					localColumn.setMappingId(column.getMappingId());
 				}
+				localColumn.mergeOptions(column);
 			}
 		}
 	}
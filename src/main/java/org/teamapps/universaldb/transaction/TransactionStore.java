@@ -53,6 +53,8 @@ public class TransactionStore implements TransactionIdHandler {
 
     private final File path;
     private final boolean writeTransactionLog;
+    private final boolean inMemory;
+    private final boolean readOnly;
     private AtomicBuffer buffer;
     private static int storeSize =  200_000;
 
@@ -74,21 +76,21 @@ public class TransactionStore implements TransactionIdHandler {
 
     public TransactionStore(File path, boolean writeTransactionLog) throws IOException {
     	this.path = new File(path, "transaction-log");
-    	this.writeTransactionLog = writeTransactionLog;
+    	this.inMemory = MappedStoreUtil.isInMemory(this.path);
+    	this.readOnly = MappedStoreUtil.isReadOnly(this.path);
+    	this.writeTransactionLog = writeTransactionLog && !inMemory && !readOnly;
         File file = new File(this.path, "database.stat");
         buffer = MappedStoreUtil.createAtomicBuffer(file, storeSize);
         init();
     }
 
     private void init() throws IOException {
-        timestampFirstSystemStart = buffer.getLong(TIMESTAMP_FIRST_SYSTEM_START_POS);
-        timestampSystemStart = buffer.getLong(TIMESTAMP_SYSTEM_START_POS);
-        timestampShutdown = buffer.getLong(TIMESTAMP_SHUTDOWN_POS);
-        lastTransactionId = buffer.getLong(LAST_TRANSACTION_ID_POS);
-        currentTransactionId = buffer.getLong(CURRENT_TRANSACTION_ID_POS);
-        currentTransactionFileId = buffer.getInt(CURRENT_TRANSACTION_FILE_ID_POS);
-        currentTransactionFilePosition = buffer.getInt(CURRENT_TRANSACTION_FILE_POSITION_POS);
-        transactionCount = buffer.getLong(TRANSACTIONS_COUNT_POS);
+        readState();
+        if (readOnly) {
+            //another process owns the transaction log, the state is only read
+            schema = loadSchema();
+            return;
+        }
 
         timestampSystemStart = System.currentTimeMillis();
         buffer.putLong(TIMESTAMP_SYSTEM_START_POS, timestampSystemStart);
@@ -96,6 +98,15 @@ public class TransactionStore implements TransactionIdHandler {
         if (timestampFirstSystemStart == 0) {
             buffer.putLong(TIMESTAMP_FIRST_SYSTEM_START_POS, timestampSystemStart);
         }
+        if (inMemory) {
+            //no transaction log and no shutdown hook, the state is gone with the process
+            if (currentTransactionId == 0) {
+                currentTransactionId = 8;
+                currentTransactionFilePosition = 8;
+            }
+            schema = loadSchema();
+            return;
+        }
         currentTransactionFile = getTransactionFileByFileId(currentTransactionFileId, path, false);
         currentTransactionOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(currentTransactionFile, true)));
 
@@ -122,6 +133,28 @@ public class TransactionStore implements TransactionIdHandler {
         }));
     }
 
+    private void readState() {
+        timestampFirstSystemStart = buffer.getLong(TIMESTAMP_FIRST_SYSTEM_START_POS);
+        timestampSystemStart = buffer.getLong(TIMESTAMP_SYSTEM_START_POS);
+        timestampShutdown = buffer.getLong(TIMESTAMP_SHUTDOWN_POS);
+        lastTransactionId = buffer.getLong(LAST_TRANSACTION_ID_POS);
+        currentTransactionId = buffer.getLong(CURRENT_TRANSACTION_ID_POS);
+        currentTransactionFileId = buffer.getInt(CURRENT_TRANSACTION_FILE_ID_POS);
+        currentTransactionFilePosition = buffer.getInt(CURRENT_TRANSACTION_FILE_POSITION_POS);
+        transactionCount = buffer.getLong(TRANSACTIONS_COUNT_POS);
+    }
+
+    public synchronized void refresh() {
+        //read only: picks up the transaction state of the writing process
+        if (readOnly) {
+            readState();
+        }
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
     public Iterator<byte[]> getTransactions(long startTransaction, long lastTransaction) {
         try {
             return new ByteArrayTransactionReader(startTransaction, lastTransactionId, path);
@@ -147,6 +180,10 @@ public class TransactionStore implements TransactionIdHandler {
     }
 
     public void saveSchema(Schema schema) throws IOException {
+        if (readOnly) {
+            setSchema(schema);
+            return;
+        }
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         schema.writeSchema(new DataOutputStream(bos));
         byte[] bytes = bos.toByteArray();
@@ -160,6 +197,9 @@ public class TransactionStore implements TransactionIdHandler {
     }
 
     public synchronized void executeTransaction(TransactionRequest transactionRequest) throws IOException {
+        if (readOnly) {
+            throw new RuntimeException("Cannot execute transaction on read only database:" + path.getParentFile().getPath());
+        }
         if (transactionRequest.isExecuted()) {
             long transactionId = transactionRequest.getTransaction().getTransactionId();
             if (currentTransactionId != transactionId) {
@@ -294,8 +334,14 @@ public class TransactionStore implements TransactionIdHandler {
     }
 
     public void close() {
+        if (readOnly) {
+            return;
+        }
         timestampShutdown = System.currentTimeMillis();
         buffer.putLong(TIMESTAMP_SHUTDOWN_POS, timestampShutdown);
+        if (inMemory) {
+            return;
+        }
         MappedByteBuffer mappedByteBuffer = (MappedByteBuffer) buffer.byteBuffer();
         mappedByteBuffer.force();
     }
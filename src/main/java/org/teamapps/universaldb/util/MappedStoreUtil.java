@@ -51,15 +51,79 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MappedStoreUtil {
 	public static ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
 
 	private static Logger logger = LoggerFactory.getLogger(MappedStoreUtil.class);
 	private static Set<String> bufferPathSet = new HashSet<>();
+	private static final Set<File> inMemoryPaths = ConcurrentHashMap.newKeySet();
+	private static final Set<File> readOnlyPaths = ConcurrentHashMap.newKeySet();
 
+	public static void addInMemoryPath(File path) {
+		//all stores below this path are kept in direct memory without any files
+		inMemoryPaths.add(path.getAbsoluteFile());
+	}
+
+	public static void removeInMemoryPath(File path) {
+		inMemoryPaths.remove(path.getAbsoluteFile());
+	}
+
+	public static boolean isInMemory(File file) {
+		return containsPath(inMemoryPaths, file);
+	}
+
+	public static void addReadOnlyPath(File path) {
+		//all stores below this path are mapped read only, another process owns and writes the files
+		readOnlyPaths.add(path.getAbsoluteFile());
+	}
+
+	public static void removeReadOnlyPath(File path) {
+		readOnlyPaths.remove(path.getAbsoluteFile());
+	}
+
+	public static boolean isReadOnly(File file) {
+		return containsPath(readOnlyPaths, file);
+	}
+
+	private static boolean containsPath(Set<File> paths, File file) {
+		if (paths.isEmpty() || file == null) {
+			return false;
+		}
+		File parent = file.getAbsoluteFile();
+		while (parent != null) {
+			if (paths.contains(parent)) {
+				return true;
+			}
+			parent = parent.getParentFile();
+		}
+		return false;
+	}
+
+	public static MappedByteBuffer mapReadOnly(File file, int bufferSize) {
+		return mapReadOnly(file, 0, bufferSize);
+	}
+
+	public static MappedByteBuffer mapReadOnly(File file, long position, int bufferSize) {
+		//a write to a read only mapping crashes the jvm, callers must reject all writes before
+		try (RandomAccessFile ras = new RandomAccessFile(file, "r")) {
+			return ras.getChannel().map(FileChannel.MapMode.READ_ONLY, position, bufferSize);
+		} catch (IOException e) {
+			throw new RuntimeException("ERROR: mapping read only buffer:" + file.getPath(), e);
+		}
+	}
 
 	public static AtomicBuffer createAtomicBuffer(File file, int bufferSize) {
+		if (isInMemory(file)) {
+			return new UnsafeBuffer(ByteBuffer.allocateDirect(bufferSize));
+		}
+		if (isReadOnly(file)) {
+			if (!file.exists()) {
+				throw new RuntimeException("ERROR: missing file of read only store:" + file.getPath());
+			}
+			return new UnsafeBuffer(mapReadOnly(file, (int) Math.min(bufferSize, file.length())));
+		}
 		MappedByteBuffer mappedByteBuffer = createBuffer(file, bufferSize);
 		return new UnsafeBuffer(mappedByteBuffer);
 	}
@@ -108,6 +172,12 @@ public class MappedStoreUtil {
 	}
 
 	public static void deleteBufferAndData(File file, AtomicBuffer atomicBuffer) {
+		if (isInMemory(file)) {
+			return;
+		}
+		if (isReadOnly(file)) {
+			throw new RuntimeException("ERROR: cannot delete file of read only store:" + file.getPath());
+		}
 		MappedByteBuffer buffer = (MappedByteBuffer) atomicBuffer.byteBuffer();
 		deleteBufferAndData(file, buffer);
 	}
@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+
+//holds the in memory state of an index from close to the next start.
+//the snapshot is only valid until the next write: it is deleted once it has been loaded or
+//the state changes, so a missing file after a crash forces the owner to rebuild its state
+public class SnapshotFile {
+	private static final Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+
+	private final File file;
+	private final int version;
+	private boolean written;
+
+	public interface SnapshotReader {
+		boolean read(DataInputStream dataInputStream) throws IOException;
+	}
+
+	public interface SnapshotWriter {
+		void write(DataOutputStream dataOutputStream) throws IOException;
+	}
+
+	public SnapshotFile(File file, int version) {
+		this.file = file;
+		this.version = version;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	//returns false if there is no complete snapshot of the current version - the caller has to rebuild its state
+	public boolean load(SnapshotReader reader) {
+		try {
+			return read(reader);
+		} finally {
+			delete();
+		}
+	}
+
+	private boolean read(SnapshotReader reader) {
+		if (!file.exists()) {
+			return false;
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65_536))) {
+			return dis.readInt() == version && reader.read(dis);
+		} catch (IOException e) {
+			log.warn("Error reading snapshot:" + file.getPath() + ", rebuilding state");
+			return false;
+		}
+	}
+
+	public void write(SnapshotWriter writer) {
+		if (MappedStoreUtil.isInMemory(file)) {
+			return;
+		}
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65_536))) {
+			dos.writeInt(version);
+			writer.write(dos);
+			written = true;
+		} catch (IOException e) {
+			log.error("Error writing snapshot:" + file.getPath(), e);
+			delete();
+		}
+	}
+
+	//must be called before the state diverges from the file
+	public void invalidate() {
+		if (written) {
+			delete();
+		}
+	}
+
+	public void delete() {
+		written = false;
+		file.delete();
+	}
+}
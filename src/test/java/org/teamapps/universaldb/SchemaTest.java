@@ -20,6 +20,7 @@
 package org.teamapps.universaldb;
 
 import org.junit.Test;
+import org.teamapps.universaldb.schema.ColumnOption;
 import org.teamapps.universaldb.schema.Database;
 import org.teamapps.universaldb.schema.Schema;
 import org.teamapps.universaldb.schema.Table;
@@ -82,4 +83,24 @@ public class SchemaTest {
 		assertEquals("org.test", parsedSchema.getPojoNamespace());
 
 	}
+
+	@Test
+	public void testColumnOptions() {
+		Schema schema = Schema.create();
+		Database db = schema.addDatabase("db");
+		Table table = db.addTable("table", TableOption.TRACK_CREATION);
+		table
+				.addLong("longField")
+				.addEnum("enumField", "a", "b")
+				.addColumnOptions("longField", ColumnOption.SORTED_INDEX)
+				.addColumnOptions("enumField", ColumnOption.SORTED_INDEX)
+				.addColumnOptions(Table.FIELD_CREATION_DATE, ColumnOption.SORTED_INDEX);
+		String schemaDef = schema.getSchemaDefinition();
+		Schema parsedSchema = Schema.parse(schemaDef);
+		assertEquals(schemaDef, parsedSchema.getSchemaDefinition());
+		Table parsedTable = parsedSchema.getDatabases().get(0).getTables().get(0);
+		assertTrue(parsedTable.getColumn("longField").hasOption(ColumnOption.SORTED_INDEX));
+		assertTrue(parsedTable.getColumn(Table.FIELD_CREATION_DATE).hasOption(ColumnOption.SORTED_INDEX));
+		assertEquals(2, parsedTable.getColumn("enumField").getEnumValues().size());
+	}
 }
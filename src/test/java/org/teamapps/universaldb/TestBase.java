@@ -23,7 +23,13 @@ import com.google.common.io.Files;
 import org.apache.commons.io.IOUtils;
 import org.teamapps.datamodel.TestBaseSchema;
 import org.teamapps.datamodel.testdb1.FieldTest;
+import org.teamapps.universaldb.index.DatabaseIndex;
+import org.teamapps.universaldb.index.SchemaIndex;
+import org.teamapps.universaldb.index.TableIndex;
 import org.teamapps.universaldb.pojo.Entity;
+import org.teamapps.universaldb.schema.Database;
+import org.teamapps.universaldb.schema.Schema;
+import org.teamapps.universaldb.schema.Table;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -37,6 +43,7 @@ import java.util.Set;
 public class TestBase {
 
 	private static volatile boolean initialized;
+	private static UniversalDB universalDB;
 
 	public synchronized static void init() throws Exception {
 		if (initialized) {
@@ -48,7 +55,21 @@ public class TestBase {
 
 	private static void startDb() throws Exception {
 		File tempDir = Files.createTempDir();
-		UniversalDB universalDB = UniversalDB.createStandalone(tempDir, new TestBaseSchema(), true);
+		universalDB = UniversalDB.createStandalone(tempDir, new TestBaseSchema(), true);
+	}
+
+	public static UniversalDB getUniversalDB() {
+		return universalDB;
+	}
+
+	//a table index without a running database, for tests of single indexes and stores
+	public static TableIndex createTableIndex(File path) {
+		Schema schema = Schema.create();
+		Database database = schema.addDatabase("testDb");
+		Table table = database.addTable("testTable");
+		SchemaIndex schemaIndex = new SchemaIndex(schema, path);
+		DatabaseIndex databaseIndex = new DatabaseIndex(schemaIndex, database.getName());
+		return new TableIndex(databaseIndex, table, table.getTableConfig());
 	}
 
 	public static File createResourceFile() throws IOException {
@@ -19,10 +19,19 @@
  */
 package org.teamapps.universaldb;
 
+import com.google.common.io.Files;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.teamapps.datamodel.testdb1.FieldTest;
-import static org.junit.Assert.assertEquals;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.schema.Schema;
+import org.teamapps.universaldb.transaction.Transaction;
+import org.teamapps.universaldb.util.MappedStoreUtil;
+
+import java.io.File;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
 
 public class UniversalDBTest {
 
@@ -37,4 +46,66 @@ public class UniversalDBTest {
 		FieldTest fieldTest = FieldTest.create();
 	}
 
+	@Test
+	public void closeInMemory() throws Exception {
+		File tempDir = new File(System.getProperty("java.io.tmpdir"));
+		int fileStoreCount = countFileStores(tempDir);
+		Schema schema = Schema.parse("org.teamapps.datamodel.memory as SCHEMA\n" +
+				"memoryDb as DATABASE\n" +
+				"	document as TABLE\n" +
+				"		name as TEXT\n" +
+				"		file as FILE\n");
+		UniversalDB universalDB = UniversalDB.createInMemory(() -> schema);
+		try {
+			assertTrue(universalDB.isInMemory());
+			assertEquals(fileStoreCount, countFileStores(tempDir));
+
+			File file = File.createTempFile("temp", ".bin");
+			universalDB.getSchemaIndex().getFileStore().setFile("memoryDb/document/file", UUID.randomUUID().toString(), "hash", file);
+			assertEquals(fileStoreCount + 1, countFileStores(tempDir));
+
+			universalDB.close();
+			assertFalse(universalDB.isInMemory());
+			assertEquals(fileStoreCount, countFileStores(tempDir));
+		} finally {
+			Transaction.setDataBase(TestBase.getUniversalDB());
+		}
+	}
+
+	@Test
+	public void closeReadOnly() throws Exception {
+		File storagePath = Files.createTempDir();
+		Schema schema = Schema.parse("org.teamapps.datamodel.shared as SCHEMA\n" +
+				"sharedDb as DATABASE\n" +
+				"	document as TABLE\n" +
+				"		name as TEXT\n");
+		try {
+			UniversalDB writer = UniversalDB.createStandalone(storagePath, () -> schema, false);
+			TableIndex writerTable = writer.getSchemaIndex().getTableByPath("sharedDb.document");
+			int firstId = writerTable.createRecord(0, 0, false);
+			writer.close();
+
+			UniversalDB reader = UniversalDB.openReadOnly(storagePath, () -> schema);
+			TableIndex readerTable = reader.getSchemaIndex().getTableByPath("sharedDb.document");
+			assertTrue(reader.isReadOnly());
+			assertTrue(readerTable.isStored(firstId));
+
+			int secondId = writerTable.createRecord(0, 0, false);
+			writer.close();
+			reader.refresh();
+			assertTrue(readerTable.isStored(secondId));
+
+			reader.close();
+			assertFalse(reader.isReadOnly());
+			assertFalse(MappedStoreUtil.isReadOnly(new File(storagePath, "sharedDb")));
+		} finally {
+			Transaction.setDataBase(TestBase.getUniversalDB());
+		}
+	}
+
+	private static int countFileStores(File tempDir) {
+		File[] files = tempDir.listFiles((dir, name) -> name.startsWith("udb-file-store-"));
+		return files == null ? 0 : files.length;
+	}
+
 }
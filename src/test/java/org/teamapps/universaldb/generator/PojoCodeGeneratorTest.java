@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.generator;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.UniversalDB;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.schema.ColumnOption;
+import org.teamapps.universaldb.schema.Database;
+import org.teamapps.universaldb.schema.Schema;
+import org.teamapps.universaldb.schema.Table;
+import org.teamapps.universaldb.transaction.Transaction;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PojoCodeGeneratorTest {
+
+	@Test
+	public void testFindMethods() throws Exception {
+		Schema schema = Schema.create("org.test.model");
+		Database database = schema.addDatabase("db");
+		Table table = database.addTable("person");
+		table
+				.addText("email")
+				.addText("name")
+				.addInteger("legacyId")
+				.addColumnOptions("email", ColumnOption.HASH_INDEX, ColumnOption.HASH_INDEX_IGNORE_CASE)
+				.addColumnOptions("legacyId", ColumnOption.HASH_INDEX);
+		File path = Files.createTempDir();
+		new PojoCodeGenerator().generateCode(schema, path);
+		File dbPath = new File(path, "org/test/model/db");
+		String entityInterface = Files.asCharSource(new File(dbPath, "Person.java"), StandardCharsets.UTF_8).read();
+		String udbEntity = Files.asCharSource(new File(dbPath, "UdbPerson.java"), StandardCharsets.UTF_8).read();
+		assertTrue(entityInterface.contains("static List<Person> findByEmail(String value)"));
+		assertTrue(entityInterface.contains("static List<Person> findByEmailIgnoreCase(String value)"));
+		assertTrue(entityInterface.contains("static List<Person> findByLegacyId(int value)"));
+		assertFalse(entityInterface.contains("findByName"));
+		assertTrue(udbEntity.contains("legacyId.filter(table.getRecordBitSet(), NumericFilter.equalsFilter(value))"));
+		assertTrue(udbEntity.contains("email.filter(table.getRecordBitSet(), TextFilter.textEqualsIgnoreCaseFilter(value))"));
+	}
+
+	@Test
+	public void testConvertedFindMethods() throws Exception {
+		Schema schema = Schema.create("org.test.find");
+		Table table = schema.addDatabase("db").addTable("shipment");
+		table
+				.addEnum("status", "open", "closed")
+				.addTimestamp("created")
+				.addDate("due")
+				.addDateTime("shipped")
+				.addColumnOptions("status", ColumnOption.HASH_INDEX)
+				.addColumnOptions("created", ColumnOption.HASH_INDEX)
+				.addColumnOptions("due", ColumnOption.HASH_INDEX)
+				.addColumnOptions("shipped", ColumnOption.HASH_INDEX);
+		File path = Files.createTempDir();
+		File sourcePath = new File(path, "src");
+		File classPath = new File(path, "classes");
+		classPath.mkdir();
+		new PojoCodeGenerator().generateCode(schema, sourcePath);
+
+		//the generated find methods must compile against the entity api
+		List<String> arguments = new ArrayList<>(List.of("-d", classPath.getPath(), "-cp", System.getProperty("java.class.path")));
+		for (File file : Files.fileTraverser().depthFirstPreOrder(sourcePath)) {
+			if (file.getName().endsWith(".java")) {
+				arguments.add(file.getPath());
+			}
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+
+		UniversalDB universalDB = UniversalDB.createInMemory(() -> schema);
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classPath.toURI().toURL()}, getClass().getClassLoader())) {
+			Class<?> entityClass = classLoader.loadClass("org.test.find.db.Shipment");
+			Class<?> udbEntityClass = classLoader.loadClass("org.test.find.db.UdbShipment");
+			Class<?> statusClass = classLoader.loadClass("org.test.find.db.Status");
+			TableIndex tableIndex = universalDB.getSchemaIndex().getTableByPath("db.shipment");
+			Method setTableIndex = udbEntityClass.getDeclaredMethod("setTableIndex", TableIndex.class);
+			setTableIndex.setAccessible(true);
+			setTableIndex.invoke(null, tableIndex);
+
+			Object closed = statusClass.getEnumConstants()[1];
+			Instant time = Instant.parse("2021-03-04T05:06:07.890Z");
+			for (int i = 0; i < 3; i++) {
+				Object entity = entityClass.getMethod("create").invoke(null);
+				entityClass.getMethod("setStatus", statusClass).invoke(entity, statusClass.getEnumConstants()[i % 2]);
+				entityClass.getMethod("setCreated", Instant.class).invoke(entity, time.plusSeconds(i));
+				entityClass.getMethod("setDue", Instant.class).invoke(entity, time.plusSeconds(i));
+				entityClass.getMethod("setShipped", Instant.class).invoke(entity, time.plusSeconds(i));
+				entityClass.getMethod("save").invoke(entity);
+			}
+			assertEquals(1, ((List<?>) entityClass.getMethod("findByStatus", statusClass).invoke(null, closed)).size());
+			assertEquals(1, ((List<?>) entityClass.getMethod("findByCreated", Instant.class).invoke(null, time.plusSeconds(2))).size());
+			assertEquals(1, ((List<?>) entityClass.getMethod("findByDue", Instant.class).invoke(null, time.plusSeconds(1))).size());
+			assertEquals(1, ((List<?>) entityClass.getMethod("findByShipped", Instant.class).invoke(null, time)).size());
+			assertEquals(0, ((List<?>) entityClass.getMethod("findByShipped", Instant.class).invoke(null, time.plusSeconds(5))).size());
+		} finally {
+			universalDB.close();
+			Transaction.setDataBase(TestBase.getUniversalDB());
+		}
+	}
+}
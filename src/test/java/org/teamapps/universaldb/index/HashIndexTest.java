@@ -0,0 +1,119 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.NumericFilter;
+import org.teamapps.universaldb.index.text.TextFilter;
+import org.teamapps.universaldb.index.text.TextIndex;
+
+import java.io.File;
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashIndexTest {
+
+	private static void assertSameResult(TextIndex expected, TextIndex actual, BitSet records, TextFilter filter) {
+		if (!actual.isFilteredByHashIndex(filter)) {
+			return;
+		}
+		assertEquals(filter.toString(), expected.filter(records, filter, false), actual.filter(records, filter));
+	}
+
+	@Test
+	public void testTextHashIndex() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex scanIndex = new TextIndex("scan", tableIndex, ColumnType.TEXT, false);
+		TextIndex hashIndex = new TextIndex("hash", tableIndex, ColumnType.TEXT, false);
+		TextIndex ignoreCaseIndex = new TextIndex("ignoreCase", tableIndex, ColumnType.TEXT, false);
+		hashIndex.enableHashIndex(false);
+		ignoreCaseIndex.enableHashIndex(true);
+		BitSet records = new BitSet();
+		for (int id = 1; id < 5_000; id++) {
+			String value = id % 7 == 0 ? null : (id % 2 == 0 ? "User" : "user") + (id % 100) + "@example.com";
+			scanIndex.setValue(id, value);
+			hashIndex.setValue(id, value);
+			ignoreCaseIndex.setValue(id, value);
+			records.set(id);
+		}
+		scanIndex.setValue(10, "changed");
+		hashIndex.setValue(10, "changed");
+		ignoreCaseIndex.setValue(10, "changed");
+		scanIndex.removeValue(12);
+		hashIndex.removeValue(12);
+		ignoreCaseIndex.removeValue(12);
+
+		for (String value : new String[]{"user1@example.com", "User12@example.com", "USER13@EXAMPLE.COM", "changed", "missing", ""}) {
+			for (TextFilter filter : new TextFilter[]{TextFilter.textEqualsFilter(value), TextFilter.textEqualsIgnoreCaseFilter(value), TextFilter.textNotEqualsFilter(value)}) {
+				assertSameResult(scanIndex, hashIndex, records, filter);
+				assertSameResult(scanIndex, ignoreCaseIndex, records, filter);
+			}
+		}
+	}
+
+	@Test
+	public void testNumericHashIndex() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		IntegerIndex scanIndex = new IntegerIndex("scan", tableIndex, ColumnType.INT);
+		IntegerIndex hashIndex = new IntegerIndex("hash", tableIndex, ColumnType.INT);
+		hashIndex.enableHashIndex();
+		BitSet records = new BitSet();
+		for (int id = 1; id < 5_000; id++) {
+			scanIndex.setValue(id, id % 50);
+			hashIndex.setValue(id, id % 50);
+			records.set(id);
+		}
+		for (NumericFilter filter : new NumericFilter[]{NumericFilter.equalsFilter(7), NumericFilter.equalsFilter(0), NumericFilter.notEqualsFilter(7), NumericFilter.containsFilter(1, 0, 99), NumericFilter.greaterFilter(40)}) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), hashIndex.filter(records, filter));
+		}
+	}
+
+	@Test
+	public void testRestart() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("hash", tableIndex, ColumnType.TEXT, false);
+		index.enableHashIndex(true);
+		for (int i = 0; i < 1_000; i++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			index.setValue(id, "Value" + (i % 10));
+		}
+		BitSet records = tableIndex.getRecords();
+		TextFilter filter = TextFilter.textEqualsIgnoreCaseFilter("VALUE3");
+		BitSet expected = index.filter(records, filter);
+		assertEquals(100, expected.cardinality());
+		index.close();
+
+		TextIndex reopened = new TextIndex("hash", tableIndex, ColumnType.TEXT, false);
+		reopened.enableHashIndex(true);
+		assertEquals(expected, reopened.filter(records, filter));
+
+		//no snapshot without a clean shutdown - the index is rebuilt from the column values
+		TextIndex rebuilt = new TextIndex("hash", tableIndex, ColumnType.TEXT, false);
+		rebuilt.enableHashIndex(true);
+		assertEquals(expected, rebuilt.filter(records, filter));
+	}
+}
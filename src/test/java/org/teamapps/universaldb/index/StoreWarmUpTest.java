@@ -0,0 +1,67 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.text.TextIndex;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StoreWarmUpTest {
+
+	@Test
+	public void testWarmUp() throws InterruptedException {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		IntegerIndex integerIndex = new IntegerIndex("number", tableIndex, ColumnType.INT);
+		TextIndex textIndex = new TextIndex("text", tableIndex, ColumnType.TEXT, false);
+		for (int id = 1; id <= 10_000; id++) {
+			integerIndex.setValue(id, id);
+			textIndex.setValue(id, "value-" + id);
+		}
+		assertEquals(2, integerIndex.getStores().size() + textIndex.getStores().size());
+
+		StoreWarmUp warmUp = new StoreWarmUp(Arrays.asList(integerIndex, textIndex), 2);
+		assertFalse(warmUp.isWarmed());
+		assertEquals(0, warmUp.getProgress(), 0);
+		warmUp.start();
+		assertTrue(warmUp.awaitWarmed(10, TimeUnit.SECONDS));
+		assertTrue(warmUp.isWarmed());
+		assertEquals(2, warmUp.getWarmedColumns());
+		assertEquals(1, warmUp.getProgress(), 0);
+		assertTrue(warmUp.getLoadedBytes() >= 10_000 * 4);
+		assertEquals("value-5000", textIndex.getValue(5000));
+	}
+
+	@Test
+	public void testEmptyWarmUp() {
+		StoreWarmUp warmUp = new StoreWarmUp(Collections.emptyList(), 4).start();
+		assertTrue(warmUp.isWarmed());
+		assertEquals(1, warmUp.getProgress(), 0);
+	}
+}
@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.bool;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TableConfig;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class BooleanIndexTest {
+
+	@Test
+	public void testRestartWithHeader() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		BooleanIndex index = new BooleanIndex("boolTest", tableIndex, ColumnType.BOOLEAN);
+		BitSet expected = new BitSet();
+		for (int id = 1; id < 10_000; id++) {
+			if (id % 5 == 0) {
+				index.setValue(id, true);
+				expected.set(id);
+			}
+		}
+		index.setValue(9_995, false);
+		expected.clear(9_995);
+		assertEquals(9_990, index.getMaxId());
+		assertEquals(expected.cardinality(), index.getCount());
+		assertEquals(expected, index.getBitSet());
+		index.close();
+
+		BooleanIndex reopened = new BooleanIndex("boolTest", tableIndex, ColumnType.BOOLEAN);
+		assertEquals(9_990, reopened.getMaxId());
+		assertEquals(expected.cardinality(), reopened.getCount());
+		assertEquals(expected, reopened.getBitSet());
+	}
+
+	@Test
+	public void testRestartWithoutCleanShutdown() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		BooleanIndex index = new BooleanIndex("boolTest", tableIndex, ColumnType.BOOLEAN);
+		BitSet expected = new BitSet();
+		for (int id = 1; id < 200_000; id += 3) {
+			index.setValue(id, true);
+			expected.set(id);
+		}
+
+		BooleanIndex reopened = new BooleanIndex("boolTest", tableIndex, ColumnType.BOOLEAN);
+		assertEquals(expected.length() - 1, reopened.getMaxId());
+		assertEquals(expected.cardinality(), reopened.getCount());
+		assertEquals(expected, reopened.getBitSet());
+	}
+
+	@Test
+	public void testFilter() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		BooleanIndex index = new BooleanIndex("boolTest", tableIndex, ColumnType.BOOLEAN);
+		BitSet input = new BitSet();
+		for (int id = 1; id < 1_000; id++) {
+			index.setValue(id, id % 2 == 0);
+			input.set(id);
+		}
+		BitSet result = index.filterEquals(input, true);
+		assertEquals(499, result.cardinality());
+		assertEquals(500, index.filterNotEquals(input, true).cardinality());
+		assertEquals(999, input.cardinality());
+	}
+}
@@ -125,5 +125,58 @@ public class BlockChainAtomicStoreTest {
 		}
 	}
 
+	@Test
+	public void compact() {
+		File tempDir = Files.createTempDir();
+		BlockChainAtomicStore compactStore = new BlockChainAtomicStore(tempDir, "compactTest");
+		for (int id = 1; id <= 1_000; id++) {
+			List<Integer> entries = new ArrayList<>();
+			for (int i = 1; i <= id % 50; i++) {
+				entries.add(i);
+			}
+			compactStore.setEntries(id, entries);
+		}
+		for (int id = 1; id <= 1_000; id += 2) {
+			compactStore.removeAllEntries(id);
+		}
+		assertTrue(compactStore.getReclaimableBytes() > 0);
+		compactStore.compact();
+		assertEquals(0, compactStore.getReclaimableBytes());
+		for (int id = 1; id <= 1_000; id++) {
+			int count = id % 2 == 1 ? 0 : id % 50;
+			assertEquals(count, compactStore.getEntryCount(id));
+			List<Integer> entries = compactStore.getEntries(id);
+			assertEquals(count, entries.size());
+			for (int i = 1; i <= count; i++) {
+				assertTrue(entries.contains(i));
+			}
+			assertEquals(count > 0, compactStore.containsEntry(id, 1));
+		}
+		compactStore.addEntries(2, Arrays.asList(100, 101));
+		assertTrue(compactStore.getEntries(2).contains(101));
+		compactStore.drop();
+	}
 
+	@Test
+	public void compactWhileWriting() throws InterruptedException {
+		File tempDir = Files.createTempDir();
+		BlockChainAtomicStore compactStore = new BlockChainAtomicStore(tempDir, "compactWriteTest");
+		Thread writer = new Thread(() -> {
+			for (int i = 1; i <= 200; i++) {
+				for (int id = 1; id <= 200; id++) {
+					compactStore.addEntry(id, i);
+				}
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			compactStore.compact();
+		}
+		writer.join();
+		for (int id = 1; id <= 200; id++) {
+			assertEquals(200, compactStore.getEntryCount(id));
+			assertEquals(200, new HashSet<>(compactStore.getEntries(id)).size());
+		}
+		compactStore.drop();
+	}
 }
@@ -25,8 +25,14 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class BlockEntryAtomicStoreTest {
 
@@ -94,4 +100,474 @@ public class BlockEntryAtomicStoreTest {
 		store.removeText(1);
 		assertEquals(null, store.getText(1));
 	}
+
+	@Test
+	public void compact() throws InterruptedException {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore compactStore = new BlockEntryAtomicStore(tempDir, "compactTest");
+		for (int id = 1; id <= 20_000; id++) {
+			compactStore.setText(id, "value-" + id);
+		}
+		for (int id = 1; id <= 20_000; id++) {
+			if (id % 4 != 0) {
+				compactStore.setText(id, "changed-value-" + id);
+			}
+		}
+		assertTrue(compactStore.getReclaimableBytes() > 0);
+		assertTrue(compactStore.getFragmentationRatio() > 0.3);
+		long freeSpacePosition = compactStore.getFreeSpacePosition();
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicInteger errors = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while (running.get()) {
+				for (int id = 1; id <= 20_000; id += 7) {
+					String expected = (id % 4 != 0 ? "changed-value-" : "value-") + id;
+					if (!expected.equals(compactStore.getText(id))) {
+						errors.incrementAndGet();
+					}
+				}
+			}
+		});
+		reader.start();
+		compactStore.compact();
+		compactStore.compact();
+		running.set(false);
+		reader.join();
+
+		assertEquals(0, errors.get());
+		assertEquals(0, compactStore.getReclaimableBytes());
+		assertEquals(0, compactStore.getFragmentationRatio(), 0);
+		assertTrue(compactStore.getFreeSpacePosition() < freeSpacePosition);
+		for (int id = 1; id <= 20_000; id++) {
+			assertEquals((id % 4 != 0 ? "changed-value-" : "value-") + id, compactStore.getText(id));
+		}
+		compactStore.setText(1, "after-compaction");
+		compactStore.close();
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "compactTest");
+		assertEquals("after-compaction", reopenedStore.getText(1));
+		assertEquals("value-20000", reopenedStore.getText(20_000));
+		assertFalse(new File(tempDir, "compactTest-compact-0.idx").exists());
+		reopenedStore.drop();
+	}
+
+	@Test
+	public void compactWhileWriting() throws InterruptedException {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore compactStore = new BlockEntryAtomicStore(tempDir, "compactWriteTest");
+		for (int id = 1; id <= 5_000; id++) {
+			compactStore.setText(id, "initial-value-" + id);
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicInteger rounds = new AtomicInteger();
+		Thread writer = new Thread(() -> {
+			while (running.get()) {
+				int round = rounds.get();
+				for (int id = 1; id <= 5_000; id++) {
+					compactStore.setText(id, "round-" + round + "-" + id);
+				}
+				rounds.incrementAndGet();
+			}
+		});
+		writer.start();
+		for (int i = 0; i < 10; i++) {
+			compactStore.compact();
+		}
+		running.set(false);
+		writer.join();
+
+		int lastRound = rounds.get() - 1;
+		assertTrue(lastRound >= 0);
+		for (int id = 1; id <= 5_000; id++) {
+			assertEquals("round-" + lastRound + "-" + id, compactStore.getText(id));
+		}
+		compactStore.drop();
+	}
+
+	@Test
+	public void compactionRecovery() throws IOException {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore crashStore = new BlockEntryAtomicStore(tempDir, "crashTest");
+		BlockEntryAtomicStore compactedStore = new BlockEntryAtomicStore(tempDir, "crashTest-compact");
+		for (int id = 1; id <= 1_000; id++) {
+			crashStore.setText(id, "value-" + id);
+			compactedStore.setText(id, "compacted-" + id);
+		}
+		crashStore.close();
+		compactedStore.close();
+
+		//crash after the first data file has been moved: a stale tail file is left and the position files are not moved yet
+		File staleFile = new File(tempDir, "crashTest-1.idx");
+		Files.write(new byte[]{-16, -1, -1, -1, 0, 0, 0, 0}, staleFile);
+		AbstractBlockEntryAtomicStore.writeCompactionMarker(tempDir, "crashTest", 1, 1);
+		Files.move(new File(tempDir, "crashTest-compact-0.idx"), new File(tempDir, "crashTest-0.idx"));
+
+		BlockEntryAtomicStore recoveredStore = new BlockEntryAtomicStore(tempDir, "crashTest");
+		for (int id = 1; id <= 1_000; id++) {
+			assertEquals("compacted-" + id, recoveredStore.getText(id));
+		}
+		assertFalse(staleFile.exists());
+		assertFalse(new File(tempDir, "crashTest-compact-pos-0.idx").exists());
+		assertFalse(new File(tempDir, "crashTest-compact.marker").exists());
+		assertEquals(0, recoveredStore.getReclaimableBytes());
+		recoveredStore.drop();
+	}
+
+	@Test
+	public void readWhileUpdatingInPlace() throws InterruptedException {
+		File tempDir = Files.createTempDir();
+		for (boolean compress : new boolean[]{false, true}) {
+			BlockEntryAtomicStore inPlaceStore = new BlockEntryAtomicStore(tempDir, "inPlaceTest-" + compress);
+			inPlaceStore.setCompressContent(compress);
+			byte[][] values = new byte[2][];
+			values[0] = new byte[1_000];
+			values[1] = new byte[compress ? 1_000 : 1_010];
+			Arrays.fill(values[0], (byte) 'a');
+			Arrays.fill(values[1], (byte) 'b');
+			inPlaceStore.setBytes(1, values[0]);
+			long position = inPlaceStore.getBlockPosition(1);
+
+			AtomicBoolean running = new AtomicBoolean(true);
+			AtomicInteger errors = new AtomicInteger();
+			Thread reader = new Thread(() -> {
+				while (running.get()) {
+					byte[] bytes = inPlaceStore.getBytes(1);
+					if (!Arrays.equals(values[0], bytes) && !Arrays.equals(values[1], bytes)) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+			reader.start();
+			for (int i = 0; i < 100_000; i++) {
+				inPlaceStore.setBytes(1, values[i % 2]);
+			}
+			running.set(false);
+			reader.join();
+			assertEquals(position, inPlaceStore.getBlockPosition(1));
+			assertEquals(0, errors.get());
+			inPlaceStore.drop();
+		}
+	}
+
+	@Test
+	public void getSizeClass() {
+		assertEquals(16, BlockEntryAtomicStore.getSizeClass(1));
+		assertEquals(16, BlockEntryAtomicStore.getSizeClass(16));
+		assertEquals(20, BlockEntryAtomicStore.getSizeClass(17));
+		assertEquals(24, BlockEntryAtomicStore.getSizeClass(21));
+		assertEquals(1280, BlockEntryAtomicStore.getSizeClass(1025));
+		for (int size = 1; size < 100_000; size++) {
+			int sizeClass = BlockEntryAtomicStore.getSizeClass(size);
+			assertTrue(sizeClass >= size);
+			assertTrue(size <= 16 || sizeClass <= size * 1.25 + 1);
+		}
+	}
+
+	@Test
+	public void sizeClassReuse() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore sizeClassStore = new BlockEntryAtomicStore(tempDir, "sizeClassTest");
+		assertTrue(sizeClassStore.isSizeClassFormat());
+		sizeClassStore.setText(1, "description-100");
+		long freeSpacePosition = sizeClassStore.getFreeSpacePosition();
+		sizeClassStore.setText(1, "description-1001");
+		sizeClassStore.setText(1, "desc-1");
+		assertEquals("desc-1", sizeClassStore.getText(1));
+		assertEquals(6, sizeClassStore.getBlockLength(1));
+		assertEquals(freeSpacePosition, sizeClassStore.getFreeSpacePosition());
+
+		sizeClassStore.setText(2, "a value of thirty-five bytes length");
+		sizeClassStore.setText(2, "a value with thirty-nine bytes of length and more");
+		freeSpacePosition = sizeClassStore.getFreeSpacePosition();
+		sizeClassStore.setText(3, "another value of thirty-six bytes");
+		assertEquals(freeSpacePosition, sizeClassStore.getFreeSpacePosition());
+		assertEquals("another value of thirty-six bytes", sizeClassStore.getText(3));
+		assertEquals("a value with thirty-nine bytes of length and more", sizeClassStore.getText(2));
+		sizeClassStore.close();
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "sizeClassTest");
+		assertTrue(reopenedStore.isSizeClassFormat());
+		assertEquals("desc-1", reopenedStore.getText(1));
+		reopenedStore.drop();
+	}
+
+	@Test
+	public void legacyFormat() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore legacyStore = new BlockEntryAtomicStore(tempDir, "legacyTest");
+		legacyStore.getBuffer(0).putInt(0, 0);
+		assertFalse(legacyStore.isSizeClassFormat());
+		for (int id = 1; id <= 1_000; id++) {
+			legacyStore.setText(id, "value-" + id);
+		}
+		legacyStore.setText(5, "changed");
+		assertEquals(7, legacyStore.getBlockLength(5));
+		legacyStore.close();
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "legacyTest");
+		assertFalse(reopenedStore.isSizeClassFormat());
+		assertEquals("changed", reopenedStore.getText(5));
+		reopenedStore.compact();
+		assertTrue(reopenedStore.isSizeClassFormat());
+		for (int id = 1; id <= 1_000; id++) {
+			assertEquals(id == 5 ? "changed" : "value-" + id, reopenedStore.getText(id));
+		}
+		reopenedStore.drop();
+	}
+
+	@Test
+	public void persistedFreeList() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore freeListStore = new BlockEntryAtomicStore(tempDir, "freeListTest");
+		for (int id = 1; id <= 1_000; id++) {
+			freeListStore.setText(id, "value-" + id);
+		}
+		for (int id = 1; id <= 1_000; id += 2) {
+			freeListStore.removeText(id);
+		}
+		long reclaimableBytes = freeListStore.getReclaimableBytes();
+		freeListStore.close();
+		File freeListFile = new File(tempDir, "freeListTest-free.idx");
+		assertTrue(freeListFile.exists());
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "freeListTest");
+		assertFalse(freeListFile.exists());
+		assertEquals(reclaimableBytes, reopenedStore.getReclaimableBytes());
+		long freeSpacePosition = reopenedStore.getFreeSpacePosition();
+		for (int id = 1; id <= 1_000; id += 2) {
+			reopenedStore.setText(id, "value-" + id);
+		}
+		assertEquals(freeSpacePosition, reopenedStore.getFreeSpacePosition());
+		assertEquals(0, reopenedStore.getReclaimableBytes());
+		reopenedStore.removeText(1);
+		reopenedStore.flush();
+
+		//no clean shutdown - the deleted blocks are found by scanning the store
+		BlockEntryAtomicStore scannedStore = new BlockEntryAtomicStore(tempDir, "freeListTest");
+		assertEquals(reopenedStore.getReclaimableBytes(), scannedStore.getReclaimableBytes());
+		for (int id = 2; id <= 1_000; id++) {
+			assertEquals("value-" + id, scannedStore.getText(id));
+		}
+		scannedStore.drop();
+	}
+
+	@Test
+	public void inlineValues() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore inlineStore = new BlockEntryAtomicStore(tempDir, "inlineTest");
+		long freeSpacePosition = inlineStore.getFreeSpacePosition();
+		inlineStore.setText(1, "a");
+		inlineStore.setText(2, "seven-7");
+		inlineStore.setText(3, "\u00e4\u00f6\u00fc");
+		inlineStore.setBytes(4, new byte[]{0, -1, 0, -128});
+		assertEquals(freeSpacePosition, inlineStore.getFreeSpacePosition());
+		assertTrue(inlineStore.isInline(2));
+		assertEquals("seven-7", inlineStore.getText(2));
+		assertEquals(7, inlineStore.getBlockLength(2));
+		assertEquals("\u00e4\u00f6\u00fc", inlineStore.getText(3));
+		assertArrayEquals(new byte[]{0, -1, 0, -128}, inlineStore.getBytes(4));
+
+		inlineStore.setText(1, "eight-88");
+		assertFalse(inlineStore.isInline(1));
+		assertEquals("eight-88", inlineStore.getText(1));
+		long reclaimableBytes = inlineStore.getReclaimableBytes();
+		inlineStore.setText(1, "b");
+		assertTrue(inlineStore.isInline(1));
+		assertTrue(inlineStore.getReclaimableBytes() > reclaimableBytes);
+		inlineStore.removeText(2);
+		assertTrue(inlineStore.isEmpty(2));
+		assertNull(inlineStore.getText(2));
+		inlineStore.close();
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "inlineTest");
+		reopenedStore.compact();
+		assertEquals("b", reopenedStore.getText(1));
+		assertEquals("\u00e4\u00f6\u00fc", reopenedStore.getText(3));
+		assertArrayEquals(new byte[]{0, -1, 0, -128}, reopenedStore.getBytes(4));
+		reopenedStore.drop();
+	}
+
+	@Test
+	public void compareBytes() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore compareStore = new BlockEntryAtomicStore(tempDir, "compareTest");
+		compareStore.setCompressContent(true);
+		String longValue = "Long Value ".repeat(40);
+		compareStore.setText(1, "Short");
+		compareStore.setText(2, "A somewhat longer value");
+		compareStore.setText(3, longValue);
+		compareStore.setText(4, "\u212Aelvin");
+		compareStore.setText(5, "Gr\u00fc\u00dfe");
+
+		assertTrue(compareStore.isEqual(1, "Short".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(compareStore.isEqual(1, "short".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(compareStore.isEqual(1, "Shorts".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(compareStore.isEqualIgnoreCase(1, "sHORT".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(compareStore.isEqualIgnoreCase(1, "sHORt!".getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(compareStore.isEqual(2, "A somewhat longer value".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(compareStore.isEqualIgnoreCase(2, "a SOMEWHAT longer VALUE".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(compareStore.isEqualIgnoreCase(2, "a somewhat longer valuE?".getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(compareStore.isEqual(3, longValue.getBytes(StandardCharsets.UTF_8)));
+		assertTrue(compareStore.isEqualIgnoreCase(3, longValue.toUpperCase().getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(compareStore.isEqualIgnoreCase(4, "KELVIN".getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(compareStore.isEqual(5, "Gr\u00fc\u00dfe".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(compareStore.isEqualIgnoreCase(5, "Gr@@e@@".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(compareStore.isEqual(6, "Short".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(compareStore.isEqualIgnoreCase(6, "Short".getBytes(StandardCharsets.US_ASCII)));
+		compareStore.drop();
+	}
+
+	@Test
+	public void compressContent() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore compressedStore = new BlockEntryAtomicStore(tempDir, "compressionTest");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1_000; i++) {
+			sb.append("compressible text ").append(i % 10).append(' ');
+		}
+		String longText = sb.toString();
+		compressedStore.setText(1, longText);
+		compressedStore.setCompressContent(true);
+		long freeSpacePosition = compressedStore.getFreeSpacePosition();
+		compressedStore.setText(2, longText);
+		assertTrue(compressedStore.getFreeSpacePosition() - freeSpacePosition < longText.length() / 4);
+		assertEquals(longText, compressedStore.getText(1));
+		assertEquals(longText, compressedStore.getText(2));
+		assertEquals(longText.length(), compressedStore.getBlockLength(2));
+
+		byte[] randomBytes = new byte[5_000];
+		new Random(1).nextBytes(randomBytes);
+		compressedStore.setBytes(3, randomBytes);
+		assertArrayEquals(randomBytes, compressedStore.getBytes(3));
+		compressedStore.setText(4, "short text");
+		assertEquals("short text", compressedStore.getText(4));
+
+		compressedStore.setText(2, longText + "changed");
+		assertEquals(longText + "changed", compressedStore.getText(2));
+		compressedStore.compact();
+		assertTrue(compressedStore.isCompressContent());
+		assertEquals(longText, compressedStore.getText(1));
+		assertEquals(longText + "changed", compressedStore.getText(2));
+		assertArrayEquals(randomBytes, compressedStore.getBytes(3));
+
+		//corrupt compressed data is rejected by the decompressor
+		long position = compressedStore.getBlockPosition(1);
+		int bufferIndex = compressedStore.getBufferIndex(position);
+		int offset = compressedStore.getOffset(position, bufferIndex);
+		byte[] junk = new byte[64];
+		Arrays.fill(junk, (byte) 0xF0);
+		compressedStore.getBuffer(bufferIndex).putBytes(offset + 12, junk);
+		try {
+			compressedStore.getText(1);
+			fail("corrupt compressed block must be rejected");
+		} catch (RuntimeException ignore) {
+		}
+		compressedStore.drop();
+	}
+
+	@Test
+	public void writeBuffer() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore bufferedStore = new BlockEntryAtomicStore(tempDir, "writeBufferTest");
+		bufferedStore.setText(1, "stored value");
+		bufferedStore.enableWriteBuffer(1_000_000);
+		assertTrue(bufferedStore.isWriteBuffer());
+		long freeSpacePosition = bufferedStore.getFreeSpacePosition();
+		for (int id = 2; id <= 100; id++) {
+			bufferedStore.setText(id, "buffered value " + id);
+		}
+		bufferedStore.setText(1, "updated value");
+		bufferedStore.removeText(50);
+		assertEquals(freeSpacePosition, bufferedStore.getFreeSpacePosition());
+		assertEquals(100, bufferedStore.getBufferedCount());
+		assertEquals("updated value", bufferedStore.getText(1));
+		assertEquals("buffered value 2", bufferedStore.getText(2));
+		assertTrue(bufferedStore.isEqual(2, "buffered value 2".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(bufferedStore.isEqualIgnoreCase(2, "BUFFERED VALUE 2".getBytes(StandardCharsets.US_ASCII)));
+		assertEquals("buffered value 2".length(), bufferedStore.getBlockLength(2));
+		assertTrue(bufferedStore.isEmpty(50));
+		assertNull(bufferedStore.getText(50));
+
+		bufferedStore.mergeWriteBuffer();
+		assertEquals(0, bufferedStore.getBufferedCount());
+		assertTrue(bufferedStore.getFreeSpacePosition() > freeSpacePosition);
+		assertEquals("updated value", bufferedStore.getText(1));
+		assertEquals("buffered value 100", bufferedStore.getText(100));
+		assertTrue(bufferedStore.isEmpty(50));
+
+		//no clean shutdown - the log is merged when the store is opened again
+		bufferedStore.setText(2, "logged value");
+		bufferedStore.removeText(3);
+		assertTrue(new File(tempDir, "writeBufferTest-log.idx").exists());
+		BlockEntryAtomicStore recoveredStore = new BlockEntryAtomicStore(tempDir, "writeBufferTest");
+		assertFalse(new File(tempDir, "writeBufferTest-log.idx").exists());
+		assertFalse(recoveredStore.isWriteBuffer());
+		assertEquals("logged value", recoveredStore.getText(2));
+		assertNull(recoveredStore.getText(3));
+		assertEquals("buffered value 4", recoveredStore.getText(4));
+		recoveredStore.drop();
+	}
+
+	@Test
+	public void writeBufferMerges() {
+		File tempDir = Files.createTempDir();
+		BlockEntryAtomicStore bufferedStore = new BlockEntryAtomicStore(tempDir, "writeBufferMergeTest");
+		bufferedStore.enableWriteBuffer(10_000);
+		for (int round = 0; round < 5; round++) {
+			for (int id = 1; id <= 2_000; id++) {
+				bufferedStore.setText(id, "value " + id + " of round " + round);
+				assertEquals("value " + id + " of round " + round, bufferedStore.getText(id));
+			}
+		}
+		assertTrue(bufferedStore.getBufferedCount() < 2_000);
+		bufferedStore.close();
+		assertFalse(new File(tempDir, "writeBufferMergeTest-log.idx").exists());
+
+		BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "writeBufferMergeTest");
+		for (int id = 1; id <= 2_000; id++) {
+			assertEquals("value " + id + " of round 4", reopenedStore.getText(id));
+		}
+		reopenedStore.drop();
+	}
+
+	@Test
+	public void largeBlocksWithChunkSize() {
+		File tempDir = Files.createTempDir();
+		AbstractResizingAtomicStore.setChunkSize(960_000);
+		try {
+			//block stores ignore the chunk size, a block can be larger than a chunk
+			BlockEntryAtomicStore largeStore = new BlockEntryAtomicStore(tempDir, "largeTest");
+			assertEquals(AbstractResizingAtomicStore.MAX_FILE_SIZE, largeStore.getChunkSize());
+			byte[] largeValue = new byte[2_000_000];
+			new Random(1).nextBytes(largeValue);
+			byte[] value = new byte[1_000];
+			for (int id = 1; id <= 3_000; id++) {
+				value[0] = (byte) id;
+				largeStore.setBytes(id, id % 1_000 == 0 ? largeValue : value);
+			}
+			for (int id = 1; id <= 3_000; id++) {
+				byte[] bytes = largeStore.getBytes(id);
+				if (id % 1_000 == 0) {
+					assertArrayEquals(largeValue, bytes);
+				} else {
+					assertEquals(1_000, bytes.length);
+					assertEquals((byte) id, bytes[0]);
+				}
+			}
+			for (int id = 1; id <= 3_000; id += 2) {
+				largeStore.removeBytes(id);
+			}
+			largeStore.compact();
+			largeStore.close();
+
+			BlockEntryAtomicStore reopenedStore = new BlockEntryAtomicStore(tempDir, "largeTest");
+			assertNull(reopenedStore.getBytes(1));
+			assertArrayEquals(largeValue, reopenedStore.getBytes(2_000));
+			assertEquals((byte) 2_998, reopenedStore.getBytes(2_998)[0]);
+			reopenedStore.drop();
+		} finally {
+			AbstractResizingAtomicStore.setChunkSize(0);
+		}
+	}
 }
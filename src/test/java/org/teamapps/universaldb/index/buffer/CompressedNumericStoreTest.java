@@ -0,0 +1,108 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedNumericStoreTest {
+
+	@Test
+	public void encodings() {
+		CompressedNumericStore store = new CompressedNumericStore(Files.createTempDir(), "encodings");
+		long time = 1_600_000_000_000L;
+		Random random = new Random(7);
+		//block 1: small values, block 2: timestamps a few seconds apart, block 3: growing intervals
+		for (int i = 0; i < CompressedNumericStore.BLOCK_SIZE; i++) {
+			store.setValue(128 + i, random.nextInt(100));
+			store.setValue(256 + i, time + i * 5_000L + random.nextInt(4));
+			store.setValue(384 + i, time + i * i * 1_000L);
+		}
+		assertEquals(CompressedNumericStore.FRAME_OF_REFERENCE, store.getBlockEncoding(1));
+		assertTrue(store.getBlockBitWidth(1) <= 7);
+		assertEquals(CompressedNumericStore.DELTA, store.getBlockEncoding(2));
+		assertTrue(store.getBlockBitWidth(2) <= 3);
+		assertEquals(CompressedNumericStore.DELTA_OF_DELTA, store.getBlockEncoding(3));
+		assertEquals(0, store.getBlockBitWidth(3));
+		random = new Random(7);
+		for (int i = 0; i < CompressedNumericStore.BLOCK_SIZE; i++) {
+			assertEquals(random.nextInt(100), store.getValue(128 + i));
+			assertEquals(time + i * 5_000L + random.nextInt(4), store.getValue(256 + i));
+			assertEquals(time + i * i * 1_000L, store.getValue(384 + i));
+		}
+		store.drop();
+	}
+
+	@Test
+	public void randomValues() {
+		CompressedNumericStore store = new CompressedNumericStore(Files.createTempDir(), "random");
+		Random random = new Random(11);
+		long[] expected = new long[20_000];
+		for (int n = 0; n < 60_000; n++) {
+			int id = 1 + random.nextInt(expected.length - 1);
+			long value;
+			switch (random.nextInt(4)) {
+				case 0:
+					value = random.nextLong();
+					break;
+				case 1:
+					value = random.nextBoolean() ? Long.MAX_VALUE : Long.MIN_VALUE;
+					break;
+				case 2:
+					value = 0;
+					break;
+				default:
+					value = id * 1_000L + random.nextInt(10);
+			}
+			expected[id] = value;
+			store.setValue(id, value);
+		}
+		for (int id = 0; id < expected.length; id++) {
+			assertEquals(expected[id], store.getValue(id));
+		}
+		long[] values = new long[CompressedNumericStore.BLOCK_SIZE];
+		for (int blockIndex = 0; blockIndex < expected.length / CompressedNumericStore.BLOCK_SIZE; blockIndex++) {
+			store.readBlock(blockIndex, values);
+			for (int i = 0; i < values.length; i++) {
+				assertEquals(expected[blockIndex * CompressedNumericStore.BLOCK_SIZE + i], values[i]);
+			}
+		}
+		store.drop();
+	}
+
+	@Test
+	public void emptyBlocks() {
+		CompressedNumericStore store = new CompressedNumericStore(Files.createTempDir(), "empty");
+		long[] values = new long[CompressedNumericStore.BLOCK_SIZE];
+		assertFalse(store.readBlock(3, values));
+		store.setValue(400, 17);
+		assertTrue(store.readBlock(3, values));
+		assertEquals(17, values[400 - 384]);
+		store.setValue(400, 0);
+		assertFalse(store.readBlock(3, values));
+		assertEquals(0, store.getValue(400));
+		assertEquals(0, store.getValue(0));
+		store.drop();
+	}
+}
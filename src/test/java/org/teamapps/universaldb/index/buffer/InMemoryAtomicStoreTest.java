@@ -0,0 +1,109 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import com.google.common.io.Files;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.teamapps.universaldb.util.MappedStoreUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InMemoryAtomicStoreTest {
+
+	private static File path;
+
+	@BeforeClass
+	public static void setup() {
+		path = new File(Files.createTempDir(), "memory");
+		MappedStoreUtil.addInMemoryPath(path);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		MappedStoreUtil.removeInMemoryPath(path);
+	}
+
+	@Test
+	public void primitiveStore() {
+		PrimitiveEntryAtomicStore store = new PrimitiveEntryAtomicStore(path, "primitive");
+		assertTrue(store.isInMemory());
+		for (int id = 1; id < 500_000; id++) {
+			store.setInt(id, id * 3);
+		}
+		for (int id = 1; id < 500_000; id++) {
+			assertEquals(id * 3, store.getInt(id));
+		}
+		assertTrue(store.getTotalCapacity() >= 500_000 * 4);
+		assertFalse(store.isDirty());
+		store.flush();
+		store.close();
+		assertFalse(path.exists());
+		store.drop();
+	}
+
+	@Test
+	public void blockEntryStore() {
+		BlockEntryAtomicStore store = new BlockEntryAtomicStore(path, "block");
+		for (int id = 1; id < 20_000; id++) {
+			store.setText(id, "value-" + id + "-" + "x".repeat(id % 100));
+		}
+		for (int id = 1; id < 20_000; id += 2) {
+			store.removeText(id);
+		}
+		store.compact();
+		for (int id = 1; id < 20_000; id++) {
+			assertEquals(id % 2 == 0 ? "value-" + id + "-" + "x".repeat(id % 100) : null, store.getText(id));
+		}
+		assertTrue(store.load() > 0);
+		store.close();
+		assertFalse(path.exists());
+		store.drop();
+	}
+
+	@Test
+	public void blockChainStore() {
+		BlockChainAtomicStore store = new BlockChainAtomicStore(path, "chain");
+		List<Integer> list = new ArrayList<>();
+		for (int i = 1; i <= 200_000; i++) {
+			list.add(i);
+		}
+		store.setEntries(1, list);
+		for (int id = 2; id < 50; id++) {
+			for (int i = 1; i <= 5_000; i++) {
+				store.addEntries(id, Collections.singletonList(i));
+			}
+		}
+		assertEquals(list, store.getEntries(1));
+		for (int id = 2; id < 50; id++) {
+			assertEquals(5_000, store.getEntryCount(id));
+			assertEquals(list.subList(0, 5_000), store.getEntries(id));
+		}
+		store.close();
+		assertFalse(path.exists());
+		store.drop();
+	}
+}
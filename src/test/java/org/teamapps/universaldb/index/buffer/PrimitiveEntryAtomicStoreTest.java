@@ -20,11 +20,13 @@
 package org.teamapps.universaldb.index.buffer;
 
 import com.google.common.io.Files;
+import org.agrona.concurrent.AtomicBuffer;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.BitSet;
 
 import static org.junit.Assert.*;
 
@@ -63,6 +65,28 @@ public class PrimitiveEntryAtomicStoreTest {
 		}
 	}
 
+	@Test
+	public void readWords() {
+		BitSet expected = new BitSet();
+		for (int id = 1; id < 100_000; id++) {
+			boolean value = id % 7 == 0 || id % 64 == 63;
+			store.setBoolean(id, value);
+			if (value) {
+				expected.set(id);
+			}
+		}
+		long[] words = new long[100_000 / 64 + 1];
+		assertEquals(words.length, store.readWords(words, 0));
+		BitSet bitSet = BitSet.valueOf(words);
+		assertEquals(expected, bitSet);
+
+		long[] partialWords = new long[10];
+		store.readWords(partialWords, 5);
+		for (int i = 0; i < partialWords.length; i++) {
+			assertEquals(words[i + 5], partialWords[i]);
+		}
+	}
+
 	@Test
 	public void getByte() {
 		store.setByte(1, (byte) 1);
@@ -165,4 +189,127 @@ public class PrimitiveEntryAtomicStoreTest {
 			assertEquals(id, store.getDouble(id), 0.1d);
 		}
 	}
+
+	@Test
+	public void chunkGrowth() {
+		File tempDir = Files.createTempDir();
+		AbstractResizingAtomicStore.setChunkSize(1_000_000);
+		try {
+			int chunkSize = AbstractResizingAtomicStore.getDefaultChunkSize();
+			assertEquals(1_920_000, chunkSize);
+			PrimitiveEntryAtomicStore chunkStore = new PrimitiveEntryAtomicStore(tempDir, "chunkTest");
+			assertEquals(chunkSize, chunkStore.getTotalCapacity());
+			chunkStore.setLong(200_000, 1);
+			assertEquals(chunkSize, chunkStore.getTotalCapacity());
+			chunkStore.setLong(300_000, 2);
+			assertEquals(2 * chunkSize, chunkStore.getTotalCapacity());
+			AtomicBuffer firstChunk = chunkStore.getBuffer(0);
+			AtomicBuffer secondChunk = chunkStore.getBuffer(1);
+
+			//growing maps the new chunks only, the mapped chunks are never replaced
+			chunkStore.setInt(2_000_000, 3);
+			assertEquals(5 * chunkSize, chunkStore.getTotalCapacity());
+			assertSame(firstChunk, chunkStore.getBuffer(0));
+			assertSame(secondChunk, chunkStore.getBuffer(1));
+			assertEquals(5L * chunkSize, new File(tempDir, "chunkTest-0.idx").length());
+			assertEquals(1, chunkStore.getLong(200_000));
+			assertEquals(2, chunkStore.getLong(300_000));
+
+			//bits and words on both sides of a chunk boundary
+			int boundaryId = chunkSize * 8;
+			chunkStore.setBoolean(boundaryId - 1, true);
+			chunkStore.setBoolean(boundaryId, true);
+			assertTrue(chunkStore.getBoolean(boundaryId - 1));
+			assertTrue(chunkStore.getBoolean(boundaryId));
+			assertFalse(chunkStore.getBoolean(boundaryId + 1));
+			long[] words = new long[2];
+			assertEquals(2, chunkStore.readWords(words, boundaryId / 64 - 1));
+			assertEquals(Long.MIN_VALUE, words[0]);
+			assertEquals(1L, words[1]);
+			chunkStore.close();
+
+			PrimitiveEntryAtomicStore reopenedStore = new PrimitiveEntryAtomicStore(tempDir, "chunkTest");
+			assertEquals(5 * chunkSize, reopenedStore.getTotalCapacity());
+			assertEquals(2, reopenedStore.getLong(300_000));
+			assertEquals(3, reopenedStore.getInt(2_000_000));
+			assertTrue(reopenedStore.getBoolean(boundaryId));
+			reopenedStore.drop();
+		} finally {
+			AbstractResizingAtomicStore.setChunkSize(0);
+		}
+
+		//a file of the doubling policy is extended to whole chunks
+		PrimitiveEntryAtomicStore doublingStore = new PrimitiveEntryAtomicStore(tempDir, "doublingTest");
+		doublingStore.setLong(100_000, 4);
+		doublingStore.close();
+		AbstractResizingAtomicStore.setChunkSize(960_000);
+		try {
+			PrimitiveEntryAtomicStore chunkStore = new PrimitiveEntryAtomicStore(tempDir, "doublingTest");
+			assertEquals(960_000, chunkStore.getTotalCapacity());
+			assertEquals(4, chunkStore.getLong(100_000));
+			chunkStore.setLong(200_000, 5);
+			assertEquals(4, chunkStore.getLong(100_000));
+			assertEquals(5, chunkStore.getLong(200_000));
+			chunkStore.drop();
+		} finally {
+			AbstractResizingAtomicStore.setChunkSize(0);
+		}
+	}
+
+	@Test
+	public void maxFileCount() {
+		File tempDir = Files.createTempDir();
+		assertEquals(8, AbstractResizingAtomicStore.getMaxFileCount());
+		AbstractResizingAtomicStore.setMaxFileCount(64);
+		try {
+			PrimitiveEntryAtomicStore largeStore = new PrimitiveEntryAtomicStore(tempDir, "maxFileCountTest");
+			assertEquals(64L * AbstractResizingAtomicStore.MAX_FILE_SIZE, largeStore.getMaxTotalSize());
+			largeStore.drop();
+		} finally {
+			AbstractResizingAtomicStore.setMaxFileCount(8);
+		}
+		PrimitiveEntryAtomicStore defaultStore = new PrimitiveEntryAtomicStore(tempDir, "defaultFileCountTest");
+		assertEquals(8L * AbstractResizingAtomicStore.MAX_FILE_SIZE, defaultStore.getMaxTotalSize());
+		defaultStore.drop();
+	}
+
+	@Test
+	public void maxTotalSize() {
+		File tempDir = Files.createTempDir();
+		File largeDir = new File(tempDir, "large");
+		File limitedDir = new File(tempDir, "limited");
+		largeDir.mkdir();
+		limitedDir.mkdir();
+		assertEquals(0, AbstractResizingAtomicStore.getFileCount(0));
+		assertEquals(1, AbstractResizingAtomicStore.getFileCount(1));
+		assertEquals(2, AbstractResizingAtomicStore.getFileCount(AbstractResizingAtomicStore.MAX_FILE_SIZE + 1L));
+		AbstractResizingAtomicStore.setMaxTotalSize(largeDir, 0);
+		AbstractResizingAtomicStore.setMaxTotalSize(limitedDir, 100_000);
+		try {
+			PrimitiveEntryAtomicStore unboundedStore = new PrimitiveEntryAtomicStore(largeDir, "unbounded");
+			assertEquals(Long.MAX_VALUE, unboundedStore.getMaxTotalSize());
+			unboundedStore.setLong(1000, 7);
+			assertEquals(7, unboundedStore.getLong(1000));
+			unboundedStore.drop();
+
+			PrimitiveEntryAtomicStore limitedStore = new PrimitiveEntryAtomicStore(limitedDir, "limited");
+			assertEquals(AbstractResizingAtomicStore.MAX_FILE_SIZE, limitedStore.getMaxTotalSize());
+			try {
+				limitedStore.setLong(AbstractResizingAtomicStore.MAX_FILE_SIZE / 8, 1);
+				fail("store limit not applied");
+			} catch (RuntimeException expected) {
+			}
+			limitedStore.drop();
+
+			AbstractResizingAtomicStore.setMaxTotalSize(3L * AbstractResizingAtomicStore.MAX_FILE_SIZE - 1);
+			assertEquals(3, AbstractResizingAtomicStore.getMaxFileCount());
+			PrimitiveEntryAtomicStore defaultStore = new PrimitiveEntryAtomicStore(tempDir, "default");
+			assertEquals(3L * AbstractResizingAtomicStore.MAX_FILE_SIZE, defaultStore.getMaxTotalSize());
+			defaultStore.drop();
+		} finally {
+			AbstractResizingAtomicStore.setMaxTotalSize(largeDir, -1);
+			AbstractResizingAtomicStore.setMaxTotalSize(limitedDir, -1);
+			AbstractResizingAtomicStore.setMaxFileCount(8);
+		}
+	}
 }
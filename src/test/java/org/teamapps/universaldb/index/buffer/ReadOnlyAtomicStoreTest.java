@@ -0,0 +1,253 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import com.google.common.io.Files;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.NumericFilter;
+import org.teamapps.universaldb.index.text.CollectionTextSearchIndex;
+import org.teamapps.universaldb.index.text.FullTextIndexValue;
+import org.teamapps.universaldb.index.text.TextFieldFilter;
+import org.teamapps.universaldb.index.text.TextFilter;
+import org.teamapps.universaldb.index.text.TextIndex;
+import org.teamapps.universaldb.schema.Schema;
+import org.teamapps.universaldb.transaction.TransactionStore;
+import org.teamapps.universaldb.util.MappedStoreUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReadOnlyAtomicStoreTest {
+
+	private static File path;
+	private static File readOnlyPath;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		//the reader maps the same files through a second path, like a second process would
+		File tempDir = Files.createTempDir();
+		path = new File(tempDir, "data");
+		path.mkdir();
+		readOnlyPath = new File(tempDir, "shared");
+		java.nio.file.Files.createSymbolicLink(readOnlyPath.toPath(), path.toPath());
+		MappedStoreUtil.addReadOnlyPath(readOnlyPath);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		MappedStoreUtil.removeReadOnlyPath(readOnlyPath);
+	}
+
+	@Test
+	public void primitiveStore() {
+		PrimitiveEntryAtomicStore writer = new PrimitiveEntryAtomicStore(path, "primitive");
+		for (int id = 1; id < 1_000; id++) {
+			writer.setLong(id, id * 7L);
+		}
+		PrimitiveEntryAtomicStore reader = new PrimitiveEntryAtomicStore(readOnlyPath, "primitive");
+		assertTrue(reader.isReadOnly());
+		assertFalse(writer.isReadOnly());
+		for (int id = 1; id < 1_000; id++) {
+			assertEquals(id * 7L, reader.getLong(id));
+		}
+		writer.setLong(5, 55);
+		assertEquals(55, reader.getLong(5));
+
+		writer.setLong(500_000, 9);
+		assertEquals(0, reader.getLong(500_000));
+		assertTrue(reader.refresh());
+		assertFalse(reader.refresh());
+		assertEquals(9, reader.getLong(500_000));
+
+		try {
+			reader.setLong(1, 1);
+			fail("write to read only store");
+		} catch (RuntimeException expected) {
+		}
+		try {
+			reader.drop();
+			fail("drop of read only store");
+		} catch (RuntimeException expected) {
+		}
+		assertEquals(7, writer.getLong(1));
+		reader.close();
+		writer.drop();
+	}
+
+	@Test
+	public void missingStore() {
+		PrimitiveEntryAtomicStore reader = new PrimitiveEntryAtomicStore(readOnlyPath, "missing");
+		assertEquals(0, reader.getTotalCapacity());
+		assertEquals(0, reader.getInt(3));
+		assertFalse(reader.getBoolean(0));
+		assertFalse(new File(path, "missing-0.idx").exists());
+
+		PrimitiveEntryAtomicStore writer = new PrimitiveEntryAtomicStore(path, "missing");
+		writer.setInt(3, 33);
+		assertTrue(reader.refresh());
+		assertEquals(33, reader.getInt(3));
+		writer.drop();
+	}
+
+	@Test
+	public void blockEntryStore() {
+		BlockEntryAtomicStore writer = new BlockEntryAtomicStore(path, "block");
+		for (int id = 1; id < 5_000; id++) {
+			writer.setText(id, "value-" + id + "-" + "x".repeat(id % 100));
+		}
+		BlockEntryAtomicStore reader = new BlockEntryAtomicStore(readOnlyPath, "block");
+		for (int id = 1; id < 5_000; id++) {
+			assertEquals("value-" + id + "-" + "x".repeat(id % 100), reader.getText(id));
+		}
+
+		//a block beyond the mapped files is mapped when it is read
+		String largeValue = "y".repeat(2_000_000);
+		writer.setText(7, largeValue);
+		assertEquals(largeValue, reader.getText(7));
+
+		try {
+			reader.setText(1, "changed");
+			fail("write to read only store");
+		} catch (RuntimeException expected) {
+		}
+		try {
+			reader.compact();
+			fail("compaction of read only store");
+		} catch (RuntimeException expected) {
+		}
+
+		//compaction replaces the files of the writer
+		for (int id = 1; id < 5_000; id += 2) {
+			writer.removeText(id);
+		}
+		writer.compact();
+		assertTrue(reader.refresh());
+		for (int id = 2; id < 5_000; id += 2) {
+			assertEquals("value-" + id + "-" + "x".repeat(id % 100), reader.getText(id));
+		}
+		assertNull(reader.getText(7));
+		reader.close();
+
+		//the free list belongs to the writer, a reader must not remove it
+		writer.close();
+		new BlockEntryAtomicStore(readOnlyPath, "block").close();
+		assertTrue(new File(path, "block-free.idx").exists());
+		writer.drop();
+	}
+
+	@Test
+	public void transactionStore() throws IOException {
+		TransactionStore writer = new TransactionStore(path, false);
+		Schema schema = Schema.create();
+		schema.addDatabase("sharedDb").addTable("sharedTable");
+		schema.mapSchema();
+		writer.saveSchema(schema);
+		TransactionStore reader = new TransactionStore(readOnlyPath, true);
+		assertTrue(reader.isReadOnly());
+		assertEquals("sharedTable", reader.getSchema().getDatabases().get(0).getTables().get(0).getName());
+		assertEquals(writer.getTimestampSystemStart(), reader.getTimestampSystemStart());
+		reader.close();
+		writer.close();
+	}
+
+	@Test
+	public void fullTextIndex() throws IOException {
+		CollectionTextSearchIndex writer = new CollectionTextSearchIndex(path, "text");
+		writer.setRecordValues(1, Collections.singletonList(new FullTextIndexValue("name", "alpha")), false);
+		writer.commit(false);
+		CollectionTextSearchIndex reader = new CollectionTextSearchIndex(readOnlyPath, "text");
+		BitSet records = new BitSet();
+		records.set(1, 10);
+		List<TextFieldFilter> filters = Collections.singletonList(TextFieldFilter.create(TextFilter.termEqualsFilter("alpha"), "name"));
+		assertEquals(1, reader.filter(records, filters, true).cardinality());
+
+		//the reader takes no write lock and sees each commit of the writer
+		writer.setRecordValues(2, Collections.singletonList(new FullTextIndexValue("name", "alpha")), false);
+		writer.commit(false);
+		assertEquals(2, reader.filter(records, filters, true).cardinality());
+		assertEquals(-1, reader.getMaxDoc());
+		reader.commit(true);
+		writer.commit(true);
+	}
+
+	@Test
+	public void tableIndex() {
+		TableIndex writer = TestBase.createTableIndex(path);
+		IntegerIndex writerValues = new IntegerIndex("value", writer, ColumnType.INT);
+		TextIndex writerNames = new TextIndex("name", writer, ColumnType.TEXT, false);
+		writer.addIndex(writerValues);
+		writer.addIndex(writerNames);
+		for (int i = 0; i < 100; i++) {
+			int id = writer.createRecord(0, 0, false);
+			writerValues.setValue(id, id % 10);
+			writerNames.setValue(id, "name-" + id);
+		}
+
+		TableIndex reader = TestBase.createTableIndex(readOnlyPath);
+		IntegerIndex readerValues = new IntegerIndex("value", reader, ColumnType.INT);
+		TextIndex readerNames = new TextIndex("name", reader, ColumnType.TEXT, false);
+		reader.addIndex(readerValues);
+		reader.addIndex(readerNames);
+		assertTrue(reader.isReadOnly());
+		assertEquals(100, reader.getCount());
+		assertEquals(10, readerValues.filter(reader.getRecords(), NumericFilter.equalsFilter(3)).cardinality());
+		assertEquals("name-42", readerNames.getValue(42));
+
+		for (int i = 0; i < 50_000; i++) {
+			int id = writer.createRecord(0, 0, false);
+			writerValues.setValue(id, id % 10);
+			writerNames.setValue(id, "name-" + id);
+		}
+		writer.deleteRecord(42);
+		assertEquals(100, reader.getCount());
+		reader.refresh();
+		assertEquals(50_099, reader.getCount());
+		BitSet records = reader.getRecords();
+		assertFalse(records.get(42));
+		assertEquals(writerValues.filter(writer.getRecords(), NumericFilter.equalsFilter(3)), readerValues.filter(records, NumericFilter.equalsFilter(3)));
+		assertEquals("name-50000", readerNames.getValue(50_000));
+
+		try {
+			reader.createRecord(0, 0, false);
+			fail("write to read only table");
+		} catch (RuntimeException expected) {
+		}
+		try {
+			reader.deleteRecord(1);
+			fail("delete in read only table");
+		} catch (RuntimeException expected) {
+		}
+		assertEquals(50_099, reader.getCount());
+		reader.close();
+		assertEquals(50_099, writer.getCount());
+		writer.close();
+	}
+}
@@ -0,0 +1,154 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.buffer;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class StoreFlushSchedulerTest {
+
+	@Test
+	public void flushDirtyStores() {
+		File tempDir = Files.createTempDir();
+		//the interval is too long to run, the stores are flushed by the test
+		StoreFlushScheduler scheduler = new StoreFlushScheduler(tempDir, 3_600_000, Long.MAX_VALUE);
+		scheduler.start();
+		PrimitiveEntryAtomicStore primitiveStore = new PrimitiveEntryAtomicStore(tempDir, "flushPrimitiveTest");
+		BlockEntryAtomicStore blockStore = new BlockEntryAtomicStore(tempDir, "flushBlockTest");
+		primitiveStore.flush();
+		blockStore.flush();
+		scheduler.flushDirtyStores(Long.MAX_VALUE);
+		assertFalse(primitiveStore.isDirty());
+		assertFalse(blockStore.isDirty());
+		assertEquals(0, scheduler.getDirtyStoreCount());
+
+		primitiveStore.setInt(1, 42);
+		primitiveStore.setLong(2, 42);
+		blockStore.setText(1, "a value longer than seven bytes");
+		assertTrue(primitiveStore.isDirty());
+		assertTrue(blockStore.isDirty());
+		assertEquals(12, primitiveStore.getDirtyBytes());
+		//the block store and its position store
+		assertEquals(3, scheduler.getDirtyStoreCount());
+
+		scheduler.flushDirtyStores(Long.MAX_VALUE);
+		assertEquals(0, scheduler.getDirtyStoreCount());
+		assertFalse(primitiveStore.isDirty());
+		assertFalse(blockStore.isDirty());
+		assertEquals(0, primitiveStore.getDirtyBytes());
+		assertEquals(42, primitiveStore.getInt(1));
+		assertEquals("a value longer than seven bytes", blockStore.getText(1));
+		scheduler.stop();
+		primitiveStore.drop();
+		blockStore.drop();
+	}
+
+	@Test
+	public void queuedOnce() {
+		File tempDir = Files.createTempDir();
+		StoreFlushScheduler scheduler = new StoreFlushScheduler(tempDir, 3_600_000, Long.MAX_VALUE);
+		scheduler.start();
+		PrimitiveEntryAtomicStore store = new PrimitiveEntryAtomicStore(tempDir, "queuedOnceTest");
+		for (int i = 0; i < 10; i++) {
+			store.setInt(1, i);
+			//flushed outside of the scheduler, the store keeps its single queue entry
+			store.flush();
+		}
+		store.setInt(1, 42);
+		assertEquals(1, scheduler.getDirtyStoreCount());
+		store.close();
+		assertEquals(0, scheduler.getDirtyStoreCount());
+
+		BlockEntryAtomicStore blockStore = new BlockEntryAtomicStore(tempDir, "queuedDropTest");
+		blockStore.setText(1, "a value longer than seven bytes");
+		assertEquals(2, scheduler.getDirtyStoreCount());
+		blockStore.drop();
+		assertEquals(0, scheduler.getDirtyStoreCount());
+		scheduler.stop();
+
+		//stores of paths without a running scheduler are not queued
+		File otherDir = Files.createTempDir();
+		StoreFlushScheduler otherScheduler = new StoreFlushScheduler(otherDir, 3_600_000, Long.MAX_VALUE);
+		otherScheduler.start();
+		PrimitiveEntryAtomicStore unscheduledStore = new PrimitiveEntryAtomicStore(tempDir, "unscheduledTest");
+		unscheduledStore.setInt(1, 42);
+		assertTrue(unscheduledStore.isDirty());
+		assertEquals(0, otherScheduler.getDirtyStoreCount());
+		otherScheduler.stop();
+		unscheduledStore.drop();
+	}
+
+	@Test
+	public void writtenBeforeStart() {
+		File tempDir = Files.createTempDir();
+		PrimitiveEntryAtomicStore store = new PrimitiveEntryAtomicStore(tempDir, "beforeStartTest");
+		store.setInt(1, 42);
+		//the format header is written by the constructor
+		BlockEntryAtomicStore blockStore = new BlockEntryAtomicStore(tempDir, "beforeStartBlockTest");
+		assertTrue(store.isDirty());
+		assertTrue(blockStore.isDirty());
+
+		StoreFlushScheduler scheduler = new StoreFlushScheduler(tempDir, 3_600_000, Long.MAX_VALUE);
+		scheduler.start();
+		assertTrue(scheduler.getDirtyStoreCount() >= 2);
+		store.setInt(2, 43);
+		scheduler.flushDirtyStores(Long.MAX_VALUE);
+		assertEquals(0, scheduler.getDirtyStoreCount());
+		assertFalse(store.isDirty());
+		assertFalse(blockStore.isDirty());
+
+		//stores still queued when a scheduler stops are queued by the next one
+		store.setInt(1, 44);
+		scheduler.stop();
+		assertTrue(store.isDirty());
+		StoreFlushScheduler nextScheduler = new StoreFlushScheduler(tempDir, 3_600_000, Long.MAX_VALUE);
+		nextScheduler.start();
+		assertEquals(1, nextScheduler.getDirtyStoreCount());
+		nextScheduler.flushDirtyStores(Long.MAX_VALUE);
+		assertFalse(store.isDirty());
+		nextScheduler.stop();
+		store.drop();
+		blockStore.drop();
+	}
+
+	@Test
+	public void scheduler() throws InterruptedException {
+		File tempDir = Files.createTempDir();
+		StoreFlushScheduler scheduler = new StoreFlushScheduler(tempDir, 10, 1_000_000);
+		scheduler.start();
+		assertTrue(scheduler.isRunning());
+		PrimitiveEntryAtomicStore store = new PrimitiveEntryAtomicStore(tempDir, "flushSchedulerTest");
+		for (int id = 1; id <= 1_000; id++) {
+			store.setInt(id, id);
+		}
+		assertTrue(store.isDirty());
+		for (int i = 0; i < 500 && store.isDirty(); i++) {
+			Thread.sleep(10);
+		}
+		assertFalse(store.isDirty());
+		scheduler.stop();
+		assertFalse(scheduler.isRunning());
+		store.drop();
+	}
+}
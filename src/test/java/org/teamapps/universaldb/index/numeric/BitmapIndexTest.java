@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.enumeration.EnumFilterType;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitmapIndexTest {
+
+	@Test
+	public void testFilters() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		ShortIndex scanIndex = new ShortIndex("scan", tableIndex, ColumnType.ENUM);
+		ShortIndex bitmapIndex = new ShortIndex("bitmap", tableIndex, ColumnType.ENUM);
+		bitmapIndex.enableBitmapIndex();
+		BitSet records = new BitSet();
+		for (int id = 1; id < 10_000; id++) {
+			short value = (short) (id % 6);
+			scanIndex.setValue(id, value);
+			bitmapIndex.setValue(id, value);
+			if (id % 3 != 0) {
+				records.set(id);
+			}
+		}
+		scanIndex.setValue(5, (short) 2);
+		bitmapIndex.setValue(5, (short) 2);
+		scanIndex.removeValue(7);
+		bitmapIndex.removeValue(7);
+
+		List<NumericFilter> filters = Arrays.asList(
+				NumericFilter.createEnumFilter(EnumFilterType.EQUALS, Arrays.asList((short) 2)),
+				NumericFilter.createEnumFilter(EnumFilterType.NOT_EQUALS, Arrays.asList((short) 2)),
+				NumericFilter.createEnumFilter(EnumFilterType.IS_EMPTY, Arrays.asList()),
+				NumericFilter.createEnumFilter(EnumFilterType.IS_NOT_EMPTY, Arrays.asList()),
+				NumericFilter.createEnumFilter(EnumFilterType.CONTAINS, Arrays.asList((short) 1, (short) 5)),
+				NumericFilter.createEnumFilter(EnumFilterType.CONTAINS_NOT, Arrays.asList((short) 1, (short) 5)),
+				NumericFilter.betweenFilter(2, 4),
+				NumericFilter.smallerFilter(3)
+		);
+		for (NumericFilter filter : filters) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), bitmapIndex.filter(records, filter));
+		}
+		assertEquals(scanIndex.getValueCounts(records), bitmapIndex.getValueCounts(records));
+	}
+
+	@Test
+	public void testRestart() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		ShortIndex index = new ShortIndex("bitmap", tableIndex, ColumnType.ENUM);
+		index.enableBitmapIndex();
+		for (int i = 0; i < 1_000; i++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			index.setValue(id, (short) (i % 4));
+		}
+		BitSet records = tableIndex.getRecords();
+		NumericFilter filter = NumericFilter.equalsFilter(3);
+		BitSet expected = index.filter(records, filter);
+		assertEquals(250, expected.cardinality());
+		index.close();
+
+		ShortIndex reopened = new ShortIndex("bitmap", tableIndex, ColumnType.ENUM);
+		reopened.enableBitmapIndex();
+		assertEquals(expected, reopened.filter(records, filter));
+
+		ShortIndex rebuilt = new ShortIndex("bitmap", tableIndex, ColumnType.ENUM);
+		rebuilt.enableBitmapIndex();
+		assertEquals(expected, rebuilt.filter(records, filter));
+		assertEquals(250, (int) rebuilt.getValueCounts(records).get((short) 3));
+	}
+}
@@ -0,0 +1,189 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+import static org.junit.Assert.assertEquals;
+
+public class NumericScanFilterTest {
+
+	private static BitSet createRecords() {
+		//dense words, sparse words and ids above the stored values
+		BitSet records = new BitSet();
+		records.set(0, 20_000);
+		for (int id = 20_000; id < 100_000; id += 37) {
+			records.set(id);
+		}
+		records.set(150_000, 150_100);
+		return records;
+	}
+
+	private static BitSet expected(BitSet records, IntPredicate predicate) {
+		BitSet result = new BitSet();
+		for (int id = records.nextSetBit(0); id >= 0; id = records.nextSetBit(id + 1)) {
+			if (predicate.test(id)) {
+				result.set(id);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void integerFilters() {
+		IntegerIndex index = new IntegerIndex("int", TestBase.createTableIndex(Files.createTempDir()), ColumnType.INT);
+		for (int id = 1; id < 40_000; id++) {
+			index.setValue(id, id % 3 == 0 ? -id : id % 500);
+		}
+		index.setValue(7, Integer.MAX_VALUE);
+		index.setValue(8, Integer.MIN_VALUE);
+		BitSet records = createRecords();
+		int[] values = {0, 1, 250, -3, 499, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		for (int value : values) {
+			assertEquals(expected(records, id -> index.getValue(id) == value), index.filterEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) != value), index.filterNotEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) > value), index.filterGreater(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) >= value), index.filterGreaterOrEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) < value), index.filterSmaller(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) <= value), index.filterSmallerOrEquals(records, value));
+			for (int end : values) {
+				assertEquals(expected(records, id -> index.getValue(id) >= value && index.getValue(id) <= end), index.filterBetween(records, value, end));
+				assertEquals(expected(records, id -> index.getValue(id) > value && index.getValue(id) < end), index.filterBetweenExclusive(records, value, end));
+			}
+		}
+	}
+
+	@Test
+	public void longFilters() {
+		LongIndex index = new LongIndex("long", TestBase.createTableIndex(Files.createTempDir()), ColumnType.LONG);
+		for (int id = 1; id < 40_000; id++) {
+			index.setValue(id, id % 3 == 0 ? -id * 1_000_000_000L : id % 500);
+		}
+		index.setValue(7, Long.MAX_VALUE);
+		index.setValue(8, Long.MIN_VALUE);
+		BitSet records = createRecords();
+		long[] values = {0, 1, 250, -3_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE};
+		for (long value : values) {
+			assertEquals(expected(records, id -> index.getValue(id) == value), index.filterEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) != value), index.filterNotEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) > value), index.filterGreater(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) < value), index.filterSmaller(records, value));
+			for (long end : values) {
+				assertEquals(expected(records, id -> index.getValue(id) >= value && index.getValue(id) <= end), index.filterBetween(records, value, end));
+				assertEquals(expected(records, id -> index.getValue(id) > value && index.getValue(id) < end), index.filterBetweenExclusive(records, value, end));
+			}
+		}
+	}
+
+	@Test
+	public void floatFilters() {
+		FloatIndex index = new FloatIndex("float", TestBase.createTableIndex(Files.createTempDir()), ColumnType.FLOAT);
+		for (int id = 1; id < 40_000; id++) {
+			index.setValue(id, id % 3 == 0 ? -id / 7f : id % 500);
+		}
+		index.setValue(7, Float.NaN);
+		index.setValue(8, Float.POSITIVE_INFINITY);
+		index.setValue(9, Float.NEGATIVE_INFINITY);
+		index.setValue(10, -0f);
+		BitSet records = createRecords();
+		float[] values = {0, -0f, 1, 250.5f, -3 / 7f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
+		for (float value : values) {
+			assertEquals(expected(records, id -> index.getValue(id) == value), index.filterEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) != value), index.filterNotEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) > value), index.filterGreater(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) >= value), index.filterGreaterOrEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) < value), index.filterSmaller(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) <= value), index.filterSmallerOrEquals(records, value));
+			for (float end : values) {
+				assertEquals(expected(records, id -> index.getValue(id) >= value && index.getValue(id) <= end), index.filterBetween(records, value, end));
+				assertEquals(expected(records, id -> index.getValue(id) > value && index.getValue(id) < end), index.filterBetweenExclusive(records, value, end));
+			}
+		}
+	}
+
+	@Test
+	public void doubleFilters() {
+		DoubleIndex index = new DoubleIndex("double", TestBase.createTableIndex(Files.createTempDir()), ColumnType.DOUBLE);
+		for (int id = 1; id < 40_000; id++) {
+			index.setValue(id, id % 3 == 0 ? -id / 7d : id % 500);
+		}
+		index.setValue(7, Double.NaN);
+		index.setValue(8, Double.POSITIVE_INFINITY);
+		index.setValue(9, Double.NEGATIVE_INFINITY);
+		index.setValue(10, -0d);
+		BitSet records = createRecords();
+		double[] values = {0, -0d, 1, 250.5, -3 / 7d, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for (double value : values) {
+			assertEquals(expected(records, id -> index.getValue(id) == value), index.filterEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) != value), index.filterNotEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) > value), index.filterGreater(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) >= value), index.filterGreaterOrEquals(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) < value), index.filterSmaller(records, value));
+			assertEquals(expected(records, id -> index.getValue(id) <= value), index.filterSmallerOrEquals(records, value));
+			for (double end : values) {
+				assertEquals(expected(records, id -> index.getValue(id) >= value && index.getValue(id) <= end), index.filterBetween(records, value, end));
+				assertEquals(expected(records, id -> index.getValue(id) > value && index.getValue(id) < end), index.filterBetweenExclusive(records, value, end));
+			}
+		}
+	}
+
+	@Test
+	public void compressedFilters() {
+		TableIndex tableIndex = TestBase.createTableIndex(Files.createTempDir());
+		LongIndex plainIndex = new LongIndex("plain", tableIndex, ColumnType.LONG);
+		LongIndex compressedIndex = new LongIndex("compressed", tableIndex, ColumnType.LONG);
+		IntegerIndex intIndex = new IntegerIndex("int", tableIndex, ColumnType.INT);
+		long time = 1_600_000_000_000L;
+		for (int n = 1; n < 40_000; n++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			long value = id % 1_000 == 0 ? -id : time + id * 3_000L;
+			plainIndex.setValue(id, value);
+			compressedIndex.setValue(id, value);
+			intIndex.setValue(id, id % 700);
+		}
+		BitSet records = createRecords();
+		//migrates the values of the full width store
+		compressedIndex.enableCompression();
+		intIndex.enableCompression();
+		assertEquals(time + 3_000L * 39_999, compressedIndex.getValue(39_999));
+		assertEquals(39_999 % 700, intIndex.getValue(39_999));
+		compressedIndex.setValue(20_001, 5);
+		plainIndex.setValue(20_001, 5);
+		long[] values = {0, 5, -3_000, time + 3_000L * 12_345, time + 3_000L * 30_000, Long.MAX_VALUE, Long.MIN_VALUE};
+		for (long value : values) {
+			assertEquals(plainIndex.filterEquals(records, value), compressedIndex.filterEquals(records, value));
+			assertEquals(plainIndex.filterNotEquals(records, value), compressedIndex.filterNotEquals(records, value));
+			assertEquals(plainIndex.filterGreater(records, value), compressedIndex.filterGreater(records, value));
+			assertEquals(plainIndex.filterSmallerOrEquals(records, value), compressedIndex.filterSmallerOrEquals(records, value));
+			for (long end : values) {
+				assertEquals(plainIndex.filterBetween(records, value, end), compressedIndex.filterBetween(records, value, end));
+			}
+		}
+		assertEquals(expected(records, id -> intIndex.getValue(id) > 650), intIndex.filterGreater(records, 650));
+	}
+}
@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortedNumericIndexTest {
+
+	private static List<NumericFilter> createFilters() {
+		return Arrays.asList(
+				NumericFilter.equalsFilter(7),
+				NumericFilter.equalsFilter(0),
+				NumericFilter.notEqualsFilter(7),
+				NumericFilter.greaterFilter(-3),
+				NumericFilter.greaterEqualsFilter(50),
+				NumericFilter.smallerFilter(2),
+				NumericFilter.smallerEqualsFilter(-50),
+				NumericFilter.betweenFilter(-10, 10),
+				NumericFilter.betweenExclusiveFilter(-10, 10),
+				NumericFilter.betweenFilter(20, 30),
+				NumericFilter.containsFilter(1, 0, 99),
+				NumericFilter.containsNotFilter(Arrays.asList(1, 2, 3))
+		);
+	}
+
+	@Test
+	public void testLongFilters() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		LongIndex scanIndex = new LongIndex("scan", tableIndex, ColumnType.LONG);
+		LongIndex sortedIndex = new LongIndex("sorted", tableIndex, ColumnType.LONG);
+		sortedIndex.enableSortedIndex();
+		Random random = new Random(1);
+		BitSet records = new BitSet();
+		for (int i = 0; i < 50_000; i++) {
+			int id = 1 + random.nextInt(20_000);
+			long value = random.nextInt(200) - 100;
+			scanIndex.setValue(id, value);
+			sortedIndex.setValue(id, value);
+			records.set(id);
+		}
+		for (NumericFilter filter : createFilters()) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), sortedIndex.filter(records, filter));
+		}
+	}
+
+	@Test
+	public void testDoubleFilters() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		DoubleIndex scanIndex = new DoubleIndex("scan", tableIndex, ColumnType.DOUBLE);
+		DoubleIndex sortedIndex = new DoubleIndex("sorted", tableIndex, ColumnType.DOUBLE);
+		sortedIndex.enableSortedIndex();
+		Random random = new Random(2);
+		BitSet records = new BitSet();
+		for (int id = 1; id < 10_000; id++) {
+			double value = (random.nextInt(200) - 100) / 2.0;
+			scanIndex.setValue(id, value);
+			sortedIndex.setValue(id, value);
+			records.set(id);
+		}
+		for (NumericFilter filter : createFilters()) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), sortedIndex.filter(records, filter));
+		}
+	}
+
+	@Test
+	public void testRestart() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		IntegerIndex index = new IntegerIndex("sorted", tableIndex, ColumnType.INT);
+		index.enableSortedIndex();
+		for (int i = 1; i <= 1_000; i++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			index.setValue(id, i % 100);
+		}
+		BitSet records = tableIndex.getRecords();
+		BitSet expected = index.filter(records, NumericFilter.betweenFilter(10, 19));
+		assertEquals(100, expected.cardinality());
+		index.close();
+
+		IntegerIndex reopened = new IntegerIndex("sorted", tableIndex, ColumnType.INT);
+		reopened.enableSortedIndex();
+		assertEquals(expected, reopened.filter(records, NumericFilter.betweenFilter(10, 19)));
+
+		//no snapshot without a clean shutdown - the index is rebuilt from the column values
+		IntegerIndex rebuilt = new IntegerIndex("sorted", tableIndex, ColumnType.INT);
+		rebuilt.enableSortedIndex();
+		assertEquals(expected, rebuilt.filter(records, NumericFilter.betweenFilter(10, 19)));
+	}
+}
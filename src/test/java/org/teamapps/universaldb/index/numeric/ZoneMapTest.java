@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.numeric;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ZoneMapTest {
+
+	private static List<NumericFilter> createFilters() {
+		return Arrays.asList(
+				NumericFilter.equalsFilter(20_000),
+				NumericFilter.equalsFilter(0),
+				NumericFilter.notEqualsFilter(20_000),
+				NumericFilter.greaterFilter(30_000),
+				NumericFilter.greaterEqualsFilter(-5),
+				NumericFilter.smallerFilter(12_288),
+				NumericFilter.smallerEqualsFilter(0),
+				NumericFilter.betweenFilter(8_000, 9_000),
+				NumericFilter.betweenExclusiveFilter(8_000, 9_000),
+				NumericFilter.containsFilter(1, 2, 3)
+		);
+	}
+
+	@Test
+	public void testFilters() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		IntegerIndex scanIndex = new IntegerIndex("scan", tableIndex, ColumnType.INT);
+		IntegerIndex zoneIndex = new IntegerIndex("zone", tableIndex, ColumnType.INT);
+		zoneIndex.enableZoneMap();
+		BitSet records = new BitSet();
+		for (int id = 1; id < 40_000; id++) {
+			int value = id % 1_000 == 0 ? -id : id;
+			scanIndex.setValue(id, value);
+			zoneIndex.setValue(id, value);
+			if (id % 5 != 0) {
+				records.set(id);
+			}
+		}
+		for (NumericFilter filter : createFilters()) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), zoneIndex.filter(records, filter));
+		}
+	}
+
+	@Test
+	public void testBuildAndRestart() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		DoubleIndex index = new DoubleIndex("zone", tableIndex, ColumnType.DOUBLE);
+		for (int i = 0; i < 20_000; i++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			index.setValue(id, id * 0.5);
+		}
+		BitSet records = tableIndex.getRecords();
+		NumericFilter filter = NumericFilter.betweenFilter(1_000, 1_500.5);
+		BitSet expected = index.filter(records, filter);
+		assertEquals(1_002, expected.cardinality());
+
+		index.enableZoneMap();
+		assertEquals(expected, index.filter(records, filter));
+		index.setValue(10, 1_200);
+		expected.set(10);
+		assertEquals(expected, index.filter(records, filter));
+		index.close();
+
+		DoubleIndex reopened = new DoubleIndex("zone", tableIndex, ColumnType.DOUBLE);
+		reopened.enableZoneMap();
+		assertEquals(expected, reopened.filter(records, filter));
+	}
+}
@@ -0,0 +1,145 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.text;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.context.UserContext;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.SortEntry;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.translation.TranslatableText;
+import org.teamapps.universaldb.index.translation.TranslatableTextIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class CollationKeyIndexTest {
+
+	private static List<String> getValues(List<SortEntry> sortEntries, IntFunction<String> valueFunction) {
+		return sortEntries.stream()
+				.map(entry -> valueFunction.apply(entry.getLeafId()))
+				.collect(Collectors.toList());
+	}
+
+	private static List<SortEntry> createEntries(TableIndex tableIndex) {
+		List<SortEntry> entries = new ArrayList<>();
+		tableIndex.getRecords().stream().forEach(id -> entries.add(new SortEntry(id)));
+		return entries;
+	}
+
+	@Test
+	public void testTextSort() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("text", tableIndex, ColumnType.TEXT, false);
+		for (String value : Arrays.asList("zebra", "Ärger", "apfel", null, "Birne")) {
+			index.setValue(tableIndex.createRecord(0, 0, false), value);
+		}
+		index.enableCollationKeys("de");
+		assertTrue(index.isCollationKeys());
+		index.setValue(tableIndex.createRecord(0, 0, false), "ähnlich");
+
+		UserContext german = UserContext.create("de");
+		List<String> ascending = getValues(index.sortRecords(createEntries(tableIndex), true, german), index::getValue);
+		assertEquals(Arrays.asList(null, "ähnlich", "apfel", "Ärger", "Birne", "zebra"), ascending);
+		List<String> descending = getValues(index.sortRecords(createEntries(tableIndex), false, german), index::getValue);
+		assertEquals(Arrays.asList("zebra", "Birne", "Ärger", "apfel", "ähnlich", null), descending);
+		index.close();
+
+		TextIndex reopened = new TextIndex("text", tableIndex, ColumnType.TEXT, false);
+		reopened.enableCollationKeys("de");
+		reopened.setValue(1, "Zucker");
+		List<String> sorted = getValues(reopened.sortRecords(createEntries(tableIndex), true, german), reopened::getValue);
+		assertEquals(Arrays.asList(null, "ähnlich", "apfel", "Ärger", "Birne", "Zucker"), sorted);
+		reopened.drop();
+	}
+
+	@Test
+	public void testTranslatableTextSort() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TranslatableTextIndex index = new TranslatableTextIndex("translation", tableIndex, ColumnType.TRANSLATABLE_TEXT, false);
+		index.enableCollationKeys("en", "de");
+		index.setValue(tableIndex.createRecord(0, 0, false), TranslatableText.create("Apple", "en").setTranslation("Zitrone", "de"));
+		index.setValue(tableIndex.createRecord(0, 0, false), TranslatableText.create("Lemon", "en").setTranslation("Apfel", "de"));
+		index.setValue(tableIndex.createRecord(0, 0, false), TranslatableText.create("Banana", "en").setTranslation("Äpfelchen", "de"));
+
+		List<String> english = getValues(index.sortRecords(createEntries(tableIndex), true, UserContext.create("en")), id -> index.getTranslatedValue(id, "en"));
+		assertEquals(Arrays.asList("Apple", "Banana", "Lemon"), english);
+		List<String> german = getValues(index.sortRecords(createEntries(tableIndex), true, UserContext.create("de")), id -> index.getTranslatedValue(id, "de"));
+		assertEquals(Arrays.asList("Apfel", "Äpfelchen", "Zitrone"), german);
+		index.drop();
+	}
+
+	@Test
+	public void testBackgroundBuild() throws InterruptedException {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("text", tableIndex, ColumnType.TEXT, false);
+		for (String value : Arrays.asList("zebra", "Ärger", "apfel", "Birne")) {
+			index.setValue(tableIndex.createRecord(0, 0, false), value);
+		}
+		index.enableCollationKeys();
+
+		//the first request compares the values and starts building the keys in the background
+		UserContext swiss = UserContext.create("de-CH");
+		List<String> sorted = getValues(index.sortRecords(createEntries(tableIndex), true, swiss), index::getValue);
+		assertEquals(Arrays.asList("apfel", "Birne", "zebra", "Ärger"), sorted);
+
+		//regional variants use the keys of their language
+		UserContext austrian = UserContext.create("de-AT");
+		List<String> collated = Arrays.asList("apfel", "Ärger", "Birne", "zebra");
+		for (int i = 0; i < 500 && !collated.equals(getValues(index.sortRecords(createEntries(tableIndex), true, austrian), index::getValue)); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(collated, getValues(index.sortRecords(createEntries(tableIndex), true, austrian), index::getValue));
+		index.drop();
+	}
+
+	@Test
+	public void testConfiguredLanguages() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("text", tableIndex, ColumnType.TEXT, false);
+		index.setValue(tableIndex.createRecord(0, 0, false), "apfel");
+		assertEquals("de", CollationKeyIndex.normalizeLanguage("de-CH"));
+		assertEquals("de", CollationKeyIndex.normalizeLanguage("de_AT"));
+
+		CollationKeyIndex collationKeyIndex = new CollationKeyIndex(path, "configured", tableIndex, (id, language) -> index.getValue(id), Arrays.asList("de-DE"));
+		assertEquals(Collections.singleton("de"), collationKeyIndex.getLanguages());
+		assertTrue(collationKeyIndex.isAvailable("de-CH"));
+		assertNotNull(collationKeyIndex.getKey(1, "de"));
+		//other languages are never built
+		assertFalse(collationKeyIndex.isAvailable("fr"));
+		assertNull(collationKeyIndex.getKey(1, "fr"));
+		assertEquals(Collections.singleton("de"), collationKeyIndex.getLanguages());
+		collationKeyIndex.drop();
+		index.drop();
+	}
+}
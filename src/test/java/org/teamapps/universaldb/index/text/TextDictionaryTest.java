@@ -0,0 +1,153 @@
+/*-
+ * ========================LICENSE_START=================================
+ * UniversalDB
+ * ---
+ * Copyright (C) 2014 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.universaldb.index.text;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.teamapps.universaldb.TestBase;
+import org.teamapps.universaldb.context.UserContext;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.SortEntry;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TextDictionaryTest {
+
+	private static final String[] VALUES = {"Germany", "austria", "Switzerland", "germany", "France", null};
+
+	@Test
+	public void testFilters() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex scanIndex = new TextIndex("scan", tableIndex, ColumnType.TEXT, true);
+		TextIndex dictionaryIndex = new TextIndex("dictionary", tableIndex, ColumnType.TEXT, false);
+		dictionaryIndex.enableDictionary();
+		BitSet records = new BitSet();
+		for (int id = 1; id < 2_000; id++) {
+			String value = VALUES[id % VALUES.length];
+			scanIndex.setValue(id, value);
+			dictionaryIndex.setValue(id, value);
+			records.set(id);
+		}
+		scanIndex.setValue(7, "Italy");
+		dictionaryIndex.setValue(7, "Italy");
+		scanIndex.removeValue(8);
+		dictionaryIndex.removeValue(8);
+
+		List<TextFilter> filters = Arrays.asList(
+				TextFilter.textEqualsFilter("Germany"),
+				TextFilter.textEqualsFilter("Italy"),
+				TextFilter.textEqualsFilter("Spain"),
+				TextFilter.textEqualsIgnoreCaseFilter("GERMANY"),
+				TextFilter.textNotEqualsFilter("France"),
+				TextFilter.emptyFilter(),
+				TextFilter.notEmptyFilter(),
+				TextFilter.textByteLengthGreaterFilter(6)
+		);
+		for (TextFilter filter : filters) {
+			assertEquals(filter.toString(), scanIndex.filter(records, filter), dictionaryIndex.filter(records, filter));
+		}
+		assertEquals("Italy", dictionaryIndex.getValue(7));
+		assertNull(dictionaryIndex.getValue(8));
+	}
+
+	@Test
+	public void testSort() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("dictionary", tableIndex, ColumnType.TEXT, false);
+		index.enableDictionary();
+		List<SortEntry> entries = new ArrayList<>();
+		for (int id = 1; id <= VALUES.length; id++) {
+			index.setValue(id, VALUES[id - 1]);
+			entries.add(new SortEntry(id));
+		}
+		List<String> sorted = index.sortRecords(entries, true, UserContext.create()).stream()
+				.map(entry -> index.getValue(entry.getLeafId()))
+				.map(value -> value == null ? null : value.toLowerCase())
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList(null, "austria", "france", "germany", "germany", "switzerland"), sorted);
+	}
+
+	@Test
+	public void testMigrationAndRestart() {
+		File path = Files.createTempDir();
+		TableIndex tableIndex = TestBase.createTableIndex(path);
+		TextIndex index = new TextIndex("text", tableIndex, ColumnType.TEXT, true);
+		for (int i = 0; i < 1_000; i++) {
+			int id = tableIndex.createRecord(0, 0, false);
+			index.setValue(id, VALUES[i % VALUES.length]);
+		}
+		BitSet records = tableIndex.getRecords();
+		TextFilter filter = TextFilter.textEqualsFilter("France");
+		BitSet expected = index.filter(records, filter);
+		index.enableDictionary();
+		assertTrue(index.isDictionary());
+		assertEquals(expected, index.filter(records, filter));
+		index.close();
+
+		TextIndex reopened = new TextIndex("text", tableIndex, ColumnType.TEXT, true);
+		reopened.enableDictionary();
+		assertEquals(expected, reopened.filter(records, filter));
+		assertEquals("Switzerland", reopened.getValue(3));
+		reopened.setValue(3, "Spain");
+		assertEquals("Spain", reopened.getValue(3));
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		File path = Files.createTempDir();
+		TextDictionary dictionary = new TextDictionary(path, "concurrent");
+		BitSet records = new BitSet();
+		records.set(1, 1_000);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				while (dictionary.getValueCount() < 20_000) {
+					dictionary.filterEqualsIgnoreCase(records, "VALUE-5");
+					int[] ranks = dictionary.getSortRanks();
+					dictionary.getSortRank(ranks, 3);
+					dictionary.getCode("value-" + dictionary.getValueCount());
+				}
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 20_000; i++) {
+			dictionary.setValue(i % 1_000, "value-" + i);
+		}
+		reader.join();
+		assertNull(error.get());
+		assertEquals(20_000, dictionary.getValueCount());
+		assertEquals(20_000, dictionary.getSortRanks().length - 1);
+		assertEquals(6, dictionary.getCode("value-5"));
+		dictionary.drop();
+	}
+}